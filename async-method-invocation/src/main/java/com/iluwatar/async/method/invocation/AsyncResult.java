@@ -22,6 +22,7 @@
  */
 package com.iluwatar.async.method.invocation;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -52,4 +53,13 @@ public interface AsyncResult<T> {
    * @throws InterruptedException if the execution is interrupted
    */
   void await() throws InterruptedException;
+
+  /**
+   * Returns a future completed with the outcome of the async task, so that further processing can be
+   * composed on it instead of blocking a thread until the task completes. Completing the returned
+   * future has no effect on this result.
+   *
+   * @return future of the evaluated value
+   */
+  CompletableFuture<T> toCompletableFuture();
 }
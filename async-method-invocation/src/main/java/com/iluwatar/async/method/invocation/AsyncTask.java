@@ -0,0 +1,59 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.async.method.invocation;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runnable that evaluates a task into its async result, so that an executor which turns the task
+ * down can still fail the result instead of leaving it incomplete forever.
+ */
+class AsyncTask<T> implements Runnable {
+
+  private final Callable<T> task;
+  private final CompletableResult<T> result;
+
+  AsyncTask(Callable<T> task, CompletableResult<T> result) {
+    this.task = task;
+    this.result = result;
+  }
+
+  @Override
+  public void run() {
+    try {
+      result.setValue(task.call());
+    } catch (Exception ex) {
+      result.setException(ex);
+    }
+  }
+
+  /**
+   * Fails the result of this task without running it.
+   *
+   * @param exception the reason the task was rejected
+   */
+  void reject(RejectedExecutionException exception) {
+    result.setException(exception);
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.async.method.invocation;
+
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Simple implementation of async result that allows completing it successfully with a value or exceptionally with an
+ * exception. It is backed by a {@link CompletableFuture}, so waiting threads park instead of sitting on a monitor.
+ *
+ * @see java.util.concurrent.FutureTask
+ * @see java.util.concurrent.CompletableFuture
+ */
+class CompletableResult<T> implements AsyncResult<T> {
+
+  private final Optional<AsyncCallback<T>> callback;
+  private final CompletableFuture<T> future = new CompletableFuture<>();
+
+  CompletableResult(AsyncCallback<T> callback) {
+    this.callback = Optional.ofNullable(callback);
+  }
+
+  /**
+   * Sets the value from successful execution and executes callback if available. Releases any thread waiting for
+   * completion.
+   *
+   * @param value
+   *          value of the evaluated task
+   */
+  void setValue(T value) {
+    try {
+      this.callback.ifPresent(ac -> ac.onComplete(value, Optional.<Exception>empty()));
+    } finally {
+      future.complete(value);
+    }
+  }
+
+  /**
+   * Sets the exception from failed execution and executes callback if available. Releases any thread waiting for
+   * completion.
+   *
+   * @param exception
+   *          exception of the failed task
+   */
+  void setException(Exception exception) {
+    try {
+      this.callback.ifPresent(ac -> ac.onComplete(null, Optional.of(exception)));
+    } finally {
+      future.completeExceptionally(exception);
+    }
+  }
+
+  @Override
+  public boolean isCompleted() {
+    return future.isDone();
+  }
+
+  @Override
+  public T getValue() throws ExecutionException {
+    if (!future.isDone()) {
+      throw new IllegalStateException("Execution not completed yet");
+    }
+    try {
+      return future.getNow(null);
+    } catch (CompletionException e) {
+      throw new ExecutionException(e.getCause());
+    }
+  }
+
+  @Override
+  public void await() throws InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException | CancellationException e) {
+      // the task has completed, which is all we are waiting for
+    }
+  }
+
+  @Override
+  public CompletableFuture<T> toCompletableFuture() {
+    return future.thenApply(Function.identity());
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.async.method.invocation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * Implementation of async executor that runs the tasks in an {@link ExecutorService} instead of
+ * creating a new platform thread for every task. The factory methods provide a bounded thread pool
+ * and, on runtimes that have them, virtual threads.
+ * 
+ */
+public class ExecutorServiceAsyncExecutor implements AsyncExecutor, AutoCloseable {
+
+  private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+  private final ExecutorService executor;
+
+  /**
+   * Creates an async executor running its tasks in the given executor service.
+   *
+   * @param executor executor service that runs the tasks
+   */
+  public ExecutorServiceAsyncExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Creates an async executor backed by a fixed number of daemon threads and a bounded queue.
+   *
+   * @param poolSize number of threads running the tasks
+   * @param queueCapacity number of tasks that can wait for a thread
+   * @param policy what to do with a task that does not fit in the queue
+   * @return new async executor
+   */
+  public static ExecutorServiceAsyncExecutor bounded(int poolSize, int queueCapacity,
+      RejectionPolicy policy) {
+    AtomicInteger idx = new AtomicInteger(0);
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "executor-" + idx.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+        (runnable, executor) -> policy.reject((AsyncTask<?>) runnable, executor));
+    return new ExecutorServiceAsyncExecutor(pool);
+  }
+
+  /**
+   * Creates an async executor that starts a new virtual thread for every task.
+   *
+   * @return new async executor
+   * @throws UnsupportedOperationException if the runtime does not support virtual threads
+   */
+  public static ExecutorServiceAsyncExecutor virtualThreads() {
+    if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+    }
+    try {
+      return new ExecutorServiceAsyncExecutor(
+          (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null));
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new UnsupportedOperationException("Virtual threads are not available", e);
+    }
+  }
+
+  /**
+   * Tells whether {@link #virtualThreads()} can be used on this runtime.
+   *
+   * @return <code>true</code> if the runtime supports virtual threads
+   */
+  public static boolean isVirtualThreadSupported() {
+    return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+  }
+
+  private static Method findVirtualThreadExecutorFactory() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public <T> AsyncResult<T> startProcess(Callable<T> task) {
+    return startProcess(task, null);
+  }
+
+  @Override
+  public <T> AsyncResult<T> startProcess(Callable<T> task, AsyncCallback<T> callback) {
+    CompletableResult<T> result = new CompletableResult<>(callback);
+    executor.execute(new AsyncTask<>(task, result));
+    return result;
+  }
+
+  @Override
+  public <T> T endProcess(AsyncResult<T> asyncResult) throws ExecutionException, InterruptedException {
+    if (!asyncResult.isCompleted()) {
+      asyncResult.await();
+    }
+    return asyncResult.getValue();
+  }
+
+  /**
+   * Stops accepting new tasks. Tasks already started or queued still run to completion.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
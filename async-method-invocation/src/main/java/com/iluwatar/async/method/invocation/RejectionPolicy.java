@@ -0,0 +1,93 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.async.method.invocation;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * What a bounded {@link ExecutorServiceAsyncExecutor} does with a task once all its threads are
+ * busy and its queue is full, or once it has been closed.
+ */
+public enum RejectionPolicy {
+
+  /**
+   * Throws {@link RejectedExecutionException} from <code>startProcess</code>.
+   */
+  ABORT {
+    @Override
+    void reject(AsyncTask<?> task, ThreadPoolExecutor pool) {
+      throw rejected(pool);
+    }
+  },
+
+  /**
+   * Returns an async result that has failed with {@link RejectedExecutionException}.
+   */
+  FAIL {
+    @Override
+    void reject(AsyncTask<?> task, ThreadPoolExecutor pool) {
+      task.reject(rejected(pool));
+    }
+  },
+
+  /**
+   * Runs the task in the thread that started it, which slows down the producer of tasks.
+   */
+  CALLER_RUNS {
+    @Override
+    void reject(AsyncTask<?> task, ThreadPoolExecutor pool) {
+      if (pool.isShutdown()) {
+        task.reject(rejected(pool));
+      } else {
+        task.run();
+      }
+    }
+  },
+
+  /**
+   * Fails the result of the oldest queued task with {@link RejectedExecutionException} and queues
+   * the task in its place.
+   */
+  DISCARD_OLDEST {
+    @Override
+    void reject(AsyncTask<?> task, ThreadPoolExecutor pool) {
+      if (pool.isShutdown()) {
+        task.reject(rejected(pool));
+        return;
+      }
+      Runnable oldest = pool.getQueue().poll();
+      if (oldest != null) {
+        ((AsyncTask<?>) oldest).reject(rejected(pool));
+      }
+      pool.execute(task);
+    }
+  };
+
+  abstract void reject(AsyncTask<?> task, ThreadPoolExecutor pool);
+
+  private static RejectedExecutionException rejected(ThreadPoolExecutor pool) {
+    return new RejectedExecutionException(pool.isShutdown()
+        ? "Executor has been closed" : "Executor is saturated");
+  }
+}
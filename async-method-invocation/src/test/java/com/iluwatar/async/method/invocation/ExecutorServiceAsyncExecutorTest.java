@@ -0,0 +1,144 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.async.method.invocation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the bounded and virtual thread flavours of {@link ExecutorServiceAsyncExecutor}.
+ */
+public class ExecutorServiceAsyncExecutorTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private ExecutorServiceAsyncExecutor executor;
+
+  /**
+   * Releases any blocked task and closes the executor.
+   */
+  @AfterEach
+  public void tearDown() {
+    release.countDown();
+    if (executor != null) {
+      executor.close();
+    }
+  }
+
+  @Test
+  public void testTaskRunsInPooledThread() throws Exception {
+    executor = ExecutorServiceAsyncExecutor.bounded(2, 4, RejectionPolicy.ABORT);
+
+    AsyncResult<String> result = executor.startProcess(() -> Thread.currentThread().getName());
+
+    assertTrue(executor.endProcess(result).startsWith("executor-"));
+  }
+
+  @Test
+  public void testAbortPolicyThrowsWhenSaturated() throws Exception {
+    executor = saturated(RejectionPolicy.ABORT);
+
+    assertThrows(RejectedExecutionException.class, () -> executor.startProcess(() -> 3));
+  }
+
+  @Test
+  public void testFailPolicyFailsTheResult() throws Exception {
+    executor = saturated(RejectionPolicy.FAIL);
+
+    AsyncResult<Integer> result = executor.startProcess(() -> 3);
+
+    assertTrue(result.isCompleted());
+    ExecutionException e = assertThrows(ExecutionException.class, result::getValue);
+    assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+  }
+
+  @Test
+  public void testCallerRunsPolicyRunsTaskInCallingThread() throws Exception {
+    executor = saturated(RejectionPolicy.CALLER_RUNS);
+
+    AsyncResult<String> result = executor.startProcess(() -> Thread.currentThread().getName());
+
+    assertEquals(Thread.currentThread().getName(), result.getValue());
+  }
+
+  @Test
+  public void testDiscardOldestPolicyFailsTheQueuedTask() throws Exception {
+    executor = ExecutorServiceAsyncExecutor.bounded(1, 1, RejectionPolicy.DISCARD_OLDEST);
+    executor.startProcess(this::blocked);
+    AsyncResult<Integer> queued = executor.startProcess(() -> 2);
+
+    AsyncResult<Integer> latest = executor.startProcess(() -> 3);
+
+    ExecutionException e = assertThrows(ExecutionException.class, queued::getValue);
+    assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+    release.countDown();
+    assertEquals(Integer.valueOf(3), executor.endProcess(latest));
+  }
+
+  @Test
+  public void testResultComposesAsCompletableFuture() throws Exception {
+    executor = ExecutorServiceAsyncExecutor.bounded(1, 1, RejectionPolicy.ABORT);
+    AsyncResult<Integer> result = executor.startProcess(this::blocked);
+
+    CompletableFuture<Integer> doubled = result.toCompletableFuture().thenApply(value -> value * 2);
+
+    assertFalse(doubled.isDone());
+    release.countDown();
+    assertEquals(Integer.valueOf(2), doubled.get(3, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testVirtualThreads() throws Exception {
+    if (!ExecutorServiceAsyncExecutor.isVirtualThreadSupported()) {
+      assertThrows(UnsupportedOperationException.class, ExecutorServiceAsyncExecutor::virtualThreads);
+      return;
+    }
+    executor = ExecutorServiceAsyncExecutor.virtualThreads();
+
+    AsyncResult<Integer> result = executor.startProcess(() -> 3);
+
+    assertEquals(Integer.valueOf(3), executor.endProcess(result));
+  }
+
+  private ExecutorServiceAsyncExecutor saturated(RejectionPolicy policy) {
+    ExecutorServiceAsyncExecutor saturated = ExecutorServiceAsyncExecutor.bounded(1, 1, policy);
+    saturated.startProcess(this::blocked);
+    saturated.startProcess(this::blocked);
+    return saturated;
+  }
+
+  private Integer blocked() throws InterruptedException {
+    release.await();
+    return 1;
+  }
+}
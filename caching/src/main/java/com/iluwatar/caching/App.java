@@ -105,11 +105,13 @@ public class App {
                               // true to run the tests with MongoDB (provided that MongoDB is
                               // installed and socket connection is open).
     AppManager.initCacheCapacity(3);
+    CacheStatsMonitor.register();
     App app = new App();
     app.useReadAndWriteThroughStrategy();
     app.useReadThroughAndWriteAroundStrategy();
     app.useReadThroughAndWriteBehindStrategy();
     app.useCacheAsideStategy();
+    LOGGER.info("{}", AppManager.cacheStats());
   }
 
   /**
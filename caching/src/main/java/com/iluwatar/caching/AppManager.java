@@ -23,6 +23,9 @@
 package com.iluwatar.caching;
 
 import java.text.ParseException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  *
@@ -63,6 +66,7 @@ public final class AppManager {
    */
   public static void initCachingPolicy(CachingPolicy policy) {
     cachingPolicy = policy;
+    CacheStore.initWriteBackOnEviction(cachingPolicy == CachingPolicy.BEHIND);
     if (cachingPolicy == CachingPolicy.BEHIND) {
       Runtime.getRuntime().addShutdownHook(new Thread(CacheStore::flushCache));
     }
@@ -73,6 +77,14 @@ public final class AppManager {
     CacheStore.initCapacity(capacity);
   }
 
+  public static void initCacheCapacity(int capacity, EvictionPolicy evictionPolicy) {
+    CacheStore.initCapacity(capacity, evictionPolicy);
+  }
+
+  public static void initConcurrentCacheCapacity(int capacity) {
+    CacheStore.initConcurrentCapacity(capacity);
+  }
+
   /**
    * Find user account
    */
@@ -87,6 +99,23 @@ public final class AppManager {
     return null;
   }
 
+  /**
+   * Find several user accounts. With the read-through policies the cache misses are loaded in bulk.
+   */
+  public static Map<String, UserAccount> findAll(Collection<String> userIds) {
+    if (cachingPolicy == CachingPolicy.THROUGH || cachingPolicy == CachingPolicy.AROUND) {
+      return CacheStore.readThroughAll(userIds);
+    }
+    Map<String, UserAccount> userAccounts = new LinkedHashMap<>();
+    for (String userId : userIds) {
+      UserAccount userAccount = find(userId);
+      if (userAccount != null) {
+        userAccounts.put(userId, userAccount);
+      }
+    }
+    return userAccounts;
+  }
+
   /**
    * Save user account
    */
@@ -106,6 +135,13 @@ public final class AppManager {
     return CacheStore.print();
   }
 
+  /**
+   * Cache statistics, also exposed through JMX once {@link CacheStatsMonitor#register()} is called
+   */
+  public static CacheStats cacheStats() {
+    return CacheStore.stats();
+  }
+
   /**
    * Cache-Aside save user account helper
    */
@@ -123,7 +159,7 @@ public final class AppManager {
       return userAccount;
     }
 
-    userAccount = DbManager.readFromDb(userId);
+    userAccount = CacheStore.loadFromBackingStore(userId);
     if (userAccount != null) {
       CacheStore.set(userId, userAccount);
     }
@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ *
+ * Adaptive Replacement Cache eviction (Megiddo and Modha). Entries seen once live in the recency
+ * list T1, entries seen at least twice in the frequency list T2. Evicted entries are remembered in
+ * the ghost lists B1 and B2, and a hit on a ghost entry moves the target size of T1 towards
+ * recency or frequency. A one-off scan therefore only churns T1 and leaves the hot set in T2 alone.
+ *
+ */
+public class ArcPolicy implements EvictionPolicy {
+
+  private final LinkedHashSet<String> t1 = new LinkedHashSet<>();
+  private final LinkedHashSet<String> t2 = new LinkedHashSet<>();
+  private final LinkedHashSet<String> b1 = new LinkedHashSet<>();
+  private final LinkedHashSet<String> b2 = new LinkedHashSet<>();
+  private int capacity;
+  private int targetT1;
+
+  @Override
+  public void recordAccess(String userId) {
+    if (t1.remove(userId) || t2.remove(userId)) {
+      t2.add(userId);
+    }
+  }
+
+  @Override
+  public void recordInsertion(String userId) {
+    if (b1.remove(userId)) {
+      targetT1 = Math.min(capacity, targetT1 + Math.max(b2.size() / Math.max(b1.size(), 1), 1));
+      t2.add(userId);
+    } else if (b2.remove(userId)) {
+      targetT1 = Math.max(0, targetT1 - Math.max(b1.size() / Math.max(b2.size(), 1), 1));
+      t2.add(userId);
+    } else {
+      t1.add(userId);
+    }
+    trimGhosts();
+  }
+
+  @Override
+  public void recordRemoval(String userId) {
+    if (!t1.remove(userId)) {
+      t2.remove(userId);
+    }
+  }
+
+  @Override
+  public void recordEviction(String userId) {
+    if (t1.remove(userId)) {
+      b1.add(userId);
+    } else if (t2.remove(userId)) {
+      b2.add(userId);
+    }
+    trimGhosts();
+  }
+
+  @Override
+  public String victim() {
+    if (!t1.isEmpty() && (t1.size() > targetT1 || t2.isEmpty())) {
+      return t1.iterator().next();
+    }
+    return t2.isEmpty() ? null : t2.iterator().next();
+  }
+
+  @Override
+  public List<String> keys() {
+    List<String> frequent = new ArrayList<>(t2);
+    Collections.reverse(frequent);
+    List<String> recent = new ArrayList<>(t1);
+    Collections.reverse(recent);
+    frequent.addAll(recent);
+    return frequent;
+  }
+
+  @Override
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+    targetT1 = Math.min(targetT1, capacity);
+    trimGhosts();
+  }
+
+  @Override
+  public void clear() {
+    t1.clear();
+    t2.clear();
+    b1.clear();
+    b2.clear();
+    targetT1 = 0;
+  }
+
+  /**
+   * Keeps |T1| + |B1| and the total directory size within the bounds of the ARC algorithm.
+   */
+  private void trimGhosts() {
+    while (!b1.isEmpty() && t1.size() + b1.size() > capacity) {
+      removeEldest(b1);
+    }
+    while (!b2.isEmpty() && t1.size() + t2.size() + b1.size() + b2.size() > 2 * capacity) {
+      removeEldest(b2);
+    }
+  }
+
+  private static void removeEldest(LinkedHashSet<String> list) {
+    Iterator<String> iterator = list.iterator();
+    iterator.next();
+    iterator.remove();
+  }
+}
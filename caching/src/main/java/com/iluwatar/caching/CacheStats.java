@@ -0,0 +1,138 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * Immutable snapshot of the {@link CacheStore} statistics, as returned by {@link CacheStore#stats()}.
+ *
+ */
+public final class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long loadCount;
+  private final long totalLoadTimeNanos;
+  private final long[] loadLatency;
+  private final long upsertCount;
+  private final long totalUpsertTimeNanos;
+  private final long[] upsertLatency;
+  private final int writeBehindQueueSize;
+
+  /**
+   * Constructor
+   */
+  public CacheStats(long hitCount, long missCount, long evictionCount, long loadCount,
+      long totalLoadTimeNanos, long[] loadLatency, long upsertCount, long totalUpsertTimeNanos,
+      long[] upsertLatency, int writeBehindQueueSize) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.loadCount = loadCount;
+    this.totalLoadTimeNanos = totalLoadTimeNanos;
+    this.loadLatency = loadLatency.clone();
+    this.upsertCount = upsertCount;
+    this.totalUpsertTimeNanos = totalUpsertTimeNanos;
+    this.upsertLatency = upsertLatency.clone();
+    this.writeBehindQueueSize = writeBehindQueueSize;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public long getRequestCount() {
+    return hitCount + missCount;
+  }
+
+  /**
+   * Ratio of requests served from the cache, 1.0 if there were no requests yet
+   */
+  public double getHitRate() {
+    long requestCount = getRequestCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Number of DB reads after cache misses, a bulk read counting once
+   */
+  public long getLoadCount() {
+    return loadCount;
+  }
+
+  public long getTotalLoadTimeNanos() {
+    return totalLoadTimeNanos;
+  }
+
+  /**
+   * Average time spent loading a user account from the DB
+   */
+  public double getAverageLoadPenaltyNanos() {
+    return loadCount == 0 ? 0.0 : (double) totalLoadTimeNanos / loadCount;
+  }
+
+  public long getLoadLatencyPercentileMicros(double percentile) {
+    return LatencyHistogram.percentileMicros(loadLatency, percentile);
+  }
+
+  /**
+   * Number of bulk upserts issued by the write-behind queue
+   */
+  public long getUpsertCount() {
+    return upsertCount;
+  }
+
+  public long getTotalUpsertTimeNanos() {
+    return totalUpsertTimeNanos;
+  }
+
+  public double getAverageUpsertNanos() {
+    return upsertCount == 0 ? 0.0 : (double) totalUpsertTimeNanos / upsertCount;
+  }
+
+  public long getUpsertLatencyPercentileMicros(double percentile) {
+    return LatencyHistogram.percentileMicros(upsertLatency, percentile);
+  }
+
+  public int getWriteBehindQueueSize() {
+    return writeBehindQueueSize;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hits=" + hitCount + ", misses=" + missCount + ", hitRate=" + getHitRate()
+        + ", evictions=" + evictionCount + ", loads=" + loadCount + ", loadP99Micros="
+        + getLoadLatencyPercentileMicros(99) + ", upserts=" + upsertCount + ", upsertP99Micros="
+        + getUpsertLatencyPercentileMicros(99) + ", writeBehindQueueSize=" + writeBehindQueueSize
+        + "}";
+  }
+}
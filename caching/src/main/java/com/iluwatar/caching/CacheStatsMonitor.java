@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ *
+ * {@link CacheStatsMonitorMBean} implementation reading a fresh {@link CacheStats} snapshot from the
+ * {@link CacheStore} on every attribute access.
+ *
+ */
+public class CacheStatsMonitor implements CacheStatsMonitorMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CacheStatsMonitor.class);
+
+  public static final String OBJECT_NAME = "com.iluwatar.caching:type=CacheStore";
+
+  /**
+   * Registers the monitor with the platform MBean server, unless it is already registered.
+   */
+  public static void register() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(new CacheStatsMonitor(), name);
+      }
+    } catch (JMException e) {
+      LOGGER.warn("# Unable to register cache statistics MBean", e);
+    }
+  }
+
+  @Override
+  public long getHitCount() {
+    return CacheStore.stats().getHitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return CacheStore.stats().getMissCount();
+  }
+
+  @Override
+  public double getHitRate() {
+    return CacheStore.stats().getHitRate();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return CacheStore.stats().getEvictionCount();
+  }
+
+  @Override
+  public long getLoadCount() {
+    return CacheStore.stats().getLoadCount();
+  }
+
+  @Override
+  public double getAverageLoadPenaltyMicros() {
+    return CacheStore.stats().getAverageLoadPenaltyNanos() / 1000;
+  }
+
+  @Override
+  public long getLoadLatencyP50Micros() {
+    return CacheStore.stats().getLoadLatencyPercentileMicros(50);
+  }
+
+  @Override
+  public long getLoadLatencyP99Micros() {
+    return CacheStore.stats().getLoadLatencyPercentileMicros(99);
+  }
+
+  @Override
+  public long getUpsertCount() {
+    return CacheStore.stats().getUpsertCount();
+  }
+
+  @Override
+  public double getAverageUpsertMicros() {
+    return CacheStore.stats().getAverageUpsertNanos() / 1000;
+  }
+
+  @Override
+  public long getUpsertLatencyP99Micros() {
+    return CacheStore.stats().getUpsertLatencyPercentileMicros(99);
+  }
+
+  @Override
+  public int getWriteBehindQueueSize() {
+    return CacheStore.stats().getWriteBehindQueueSize();
+  }
+}
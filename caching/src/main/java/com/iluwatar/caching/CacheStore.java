@@ -25,7 +25,15 @@ package com.iluwatar.caching;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  *
@@ -36,7 +44,25 @@ public class CacheStore {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CacheStore.class);
 
-  static LruCache cache;
+  static UserAccountCache cache;
+
+  static final StatsCounter STATS = new StatsCounter();
+
+  static OffHeapStore offHeapStore;
+
+  /**
+   * Loads in flight, shared by the concurrent readers missing the same user ID
+   */
+  static final ConcurrentHashMap<String, CompletableFuture<UserAccount>> IN_FLIGHT_LOADS =
+      new ConcurrentHashMap<>();
+
+  static WriteBehindQueue writeBehindQueue =
+      new WriteBehindQueue(CacheStore::timedUpsert, 100, 1000, 10000);
+
+  /**
+   * Whether entries evicted from the cache are handed over to the write-behind queue
+   */
+  static volatile boolean writeBackOnEviction;
 
   private CacheStore() {
   }
@@ -47,23 +73,168 @@ public class CacheStore {
   public static void initCapacity(int capacity) {
     if (cache == null) {
       cache = new LruCache(capacity);
+      attachEvictionListener();
     } else {
       cache.setCapacity(capacity);
     }
   }
 
   /**
-   * Get user account using read-through cache
+   * Init cache capacity using a {@link ConcurrentCache} with the given eviction policy and no
+   * expiry.
+   */
+  public static void initCapacity(int capacity, EvictionPolicy evictionPolicy) {
+    initCapacity(capacity, evictionPolicy, Expiry.NEVER);
+  }
+
+  /**
+   * Init cache capacity using a {@link ConcurrentCache} with the given eviction policy and expiry.
+   * Refreshes reload from the DB. Entries of the current cache are carried over, most valuable ones
+   * last so that they are the least likely to be evicted if the new cache is smaller.
+   * <p>
+   * Expiry is meant for the read-through policies: under write-behind the cache may hold the only
+   * up-to-date copy of an entry.
+   */
+  public static void initCapacity(int capacity, EvictionPolicy evictionPolicy, Expiry expiry) {
+    UserAccountCache newCache =
+        new ConcurrentCache(capacity, evictionPolicy, expiry, CacheStore::loadFromDb);
+    if (cache != null) {
+      List<UserAccount> listOfUserAccounts = cache.getCacheDataInListForm();
+      for (int i = listOfUserAccounts.size() - 1; i >= 0; i--) {
+        UserAccount userAccount = listOfUserAccounts.get(i);
+        if (userAccount != null) {
+          newCache.set(userAccount.getUserId(), userAccount);
+        }
+      }
+    }
+    cache = newCache;
+    attachEvictionListener();
+  }
+
+  /**
+   * Init cache capacity using an LRU {@link ConcurrentCache}, so that the store can be shared
+   * between request threads without an external lock.
+   */
+  public static void initConcurrentCapacity(int capacity) {
+    if (cache instanceof ConcurrentCache) {
+      cache.setCapacity(capacity);
+    } else {
+      cache = new ConcurrentCache(capacity);
+      attachEvictionListener();
+    }
+  }
+
+  /**
+   * Puts an off-heap tier behind the cache. Entries evicted from the cache are demoted into it, and
+   * cache misses consult it before the DB. An entry lives in at most one of the two tiers. Passing
+   * null removes the tier.
+   */
+  public static void initOffHeapTier(OffHeapStore store) {
+    offHeapStore = store;
+    attachEvictionListener();
+  }
+
+  /**
+   * Init the write-behind engine. Pending dirty entries of the previous engine are flushed first.
+   *
+   * @param batchSize number of dirty entries that triggers a bulk write
+   * @param flushIntervalMillis maximum time a dirty entry waits before it is written
+   * @param maxPending number of dirty entries at which writers are blocked
+   */
+  public static void initWriteBehind(int batchSize, long flushIntervalMillis, int maxPending) {
+    writeBehindQueue.shutdown();
+    writeBehindQueue =
+        new WriteBehindQueue(CacheStore::timedUpsert, batchSize, flushIntervalMillis, maxPending);
+  }
+
+  /**
+   * Hands the entries evicted from the cache over to the write-behind queue, or stops doing so. This
+   * is needed under the write-back policy, where the cache may hold the only up-to-date copy of an
+   * entry. The victims are queued by the cache's eviction listener, so each entry the cache evicts is
+   * queued exactly once, however many writers are racing.
+   */
+  public static void initWriteBackOnEviction(boolean enabled) {
+    writeBackOnEviction = enabled;
+  }
+
+  /**
+   * Returns a snapshot of the cache statistics
+   */
+  public static CacheStats stats() {
+    long evictionCount = cache == null ? 0 : cache.getEvictionCount();
+    return STATS.snapshot(evictionCount, writeBehindQueue.size());
+  }
+
+  /**
+   * Get user account using read-through cache. Concurrent misses of the same user ID share a single
+   * load.
    */
   public static UserAccount readThrough(String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Cache Hit!");
-      return cache.get(userId);
+    UserAccount userAccount = cache.get(userId);
+    if (userAccount != null) {
+      STATS.recordHit();
+      return userAccount;
     }
-    LOGGER.info("# Cache Miss!");
-    UserAccount userAccount = DbManager.readFromDb(userId);
-    cache.set(userId, userAccount);
-    return userAccount;
+    STATS.recordMiss();
+    return loadOnce(userId, id -> {
+      UserAccount loaded = loadFromBackingStore(id);
+      cache.set(id, loaded);
+      return loaded;
+    });
+  }
+
+  /**
+   * Get several user accounts using read-through cache. The misses are read from the DB with a
+   * single bulk query, except for the ones already being loaded by another reader, which are
+   * awaited. User IDs that are not found are absent from the returned map.
+   */
+  public static Map<String, UserAccount> readThroughAll(Collection<String> userIds) {
+    Map<String, UserAccount> userAccounts = new LinkedHashMap<>();
+    Map<String, CompletableFuture<UserAccount>> claimed = new LinkedHashMap<>();
+    Map<String, CompletableFuture<UserAccount>> awaited = new LinkedHashMap<>();
+    for (String userId : userIds) {
+      UserAccount userAccount = cache.get(userId);
+      if (userAccount != null) {
+        STATS.recordHit();
+        userAccounts.put(userId, userAccount);
+        continue;
+      }
+      STATS.recordMiss();
+      CompletableFuture<UserAccount> future = new CompletableFuture<>();
+      CompletableFuture<UserAccount> existing = IN_FLIGHT_LOADS.putIfAbsent(userId, future);
+      if (existing != null) {
+        awaited.put(userId, existing);
+      } else {
+        claimed.put(userId, future);
+      }
+    }
+    try {
+      Map<String, UserAccount> loaded = loadAllFromBackingStore(claimed.keySet());
+      for (Map.Entry<String, CompletableFuture<UserAccount>> entry : claimed.entrySet()) {
+        UserAccount userAccount = loaded.get(entry.getKey());
+        if (userAccount != null) {
+          cache.set(entry.getKey(), userAccount);
+        }
+        entry.getValue().complete(userAccount);
+      }
+    } catch (RuntimeException e) {
+      for (CompletableFuture<UserAccount> future : claimed.values()) {
+        future.completeExceptionally(e);
+      }
+      throw e;
+    } finally {
+      for (Map.Entry<String, CompletableFuture<UserAccount>> entry : claimed.entrySet()) {
+        IN_FLIGHT_LOADS.remove(entry.getKey(), entry.getValue());
+      }
+    }
+    claimed.putAll(awaited);
+    for (Map.Entry<String, CompletableFuture<UserAccount>> entry : claimed.entrySet()) {
+      UserAccount userAccount = join(entry.getValue());
+      if (userAccount != null) {
+        userAccounts.put(entry.getKey(), userAccount);
+      }
+    }
+    return userAccounts;
   }
 
   /**
@@ -75,6 +246,7 @@ public class CacheStore {
     } else {
       DbManager.writeToDb(userAccount);
     }
+    removeFromOffHeapTier(userAccount.getUserId());
     cache.set(userAccount.getUserId(), userAccount);
   }
 
@@ -82,6 +254,7 @@ public class CacheStore {
    * Get user account using write-around cache
    */
   public static void writeAround(UserAccount userAccount) {
+    removeFromOffHeapTier(userAccount.getUserId());
     if (cache.contains(userAccount.getUserId())) {
       DbManager.updateDb(userAccount);
       cache.invalidate(userAccount.getUserId()); // Cache data has been updated -- remove older
@@ -95,54 +268,55 @@ public class CacheStore {
    * Get user account using read-through cache with write-back policy
    */
   public static UserAccount readThroughWithWriteBackPolicy(String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Cache Hit!");
-      return cache.get(userId);
+    UserAccount userAccount = cache.get(userId);
+    if (userAccount != null) {
+      STATS.recordHit();
+      return userAccount;
     }
-    LOGGER.info("# Cache Miss!");
-    UserAccount userAccount = DbManager.readFromDb(userId);
-    if (cache.isFull()) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      DbManager.upsertDb(toBeWrittenToDb);
-    }
-    cache.set(userId, userAccount);
-    return userAccount;
+    STATS.recordMiss();
+    return loadOnce(userId, id -> {
+      UserAccount loaded = writeBehindQueue.getPending(id);
+      if (loaded == null) {
+        loaded = loadFromBackingStore(id);
+      }
+      cache.set(id, loaded);
+      return loaded;
+    });
   }
 
   /**
    * Set user account
    */
   public static void writeBehind(UserAccount userAccount) {
-    if (cache.isFull() && !cache.contains(userAccount.getUserId())) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      DbManager.upsertDb(toBeWrittenToDb);
-    }
+    removeFromOffHeapTier(userAccount.getUserId());
     cache.set(userAccount.getUserId(), userAccount);
   }
 
   /**
-   * Clears cache
+   * Clears cache. Entries already queued for write-behind are written to the DB first.
    */
   public static void clearCache() {
+    writeBehindQueue.flush();
     if (cache != null) {
       cache.clear();
     }
   }
 
   /**
-   * Writes remaining content in the cache into the DB.
+   * Writes remaining content in the cache into the DB and waits until the write-behind queue is
+   * drained.
    */
   public static void flushCache() {
     LOGGER.info("# flushCache...");
-    if (null == cache) {
-      return;
-    }
-    List<UserAccount> listOfUserAccounts = cache.getCacheDataInListForm();
-    for (UserAccount userAccount : listOfUserAccounts) {
-      DbManager.upsertDb(userAccount);
+    if (null != cache) {
+      List<UserAccount> listOfUserAccounts = cache.getCacheDataInListForm();
+      for (UserAccount userAccount : listOfUserAccounts) {
+        if (userAccount != null) {
+          writeBehindQueue.enqueue(userAccount);
+        }
+      }
     }
+    writeBehindQueue.flush();
   }
 
   /**
@@ -163,13 +337,20 @@ public class CacheStore {
    * Delegate to backing cache store
    */
   public static UserAccount get(String userId) {
-    return cache.get(userId);
+    UserAccount userAccount = cache.get(userId);
+    if (userAccount != null) {
+      STATS.recordHit();
+    } else {
+      STATS.recordMiss();
+    }
+    return userAccount;
   }
 
   /**
    * Delegate to backing cache store
    */
   public static void set(String userId, UserAccount userAccount) {
+    removeFromOffHeapTier(userId);
     cache.set(userId, userAccount);
   }
 
@@ -177,6 +358,130 @@ public class CacheStore {
    * Delegate to backing cache store
    */
   public static void invalidate(String userId) {
+    removeFromOffHeapTier(userId);
     cache.invalidate(userId);
   }
+
+  /**
+   * Single-flight load: the first reader missing the user ID runs the loader, which also fills the
+   * cache, while concurrent readers of the same user ID wait for its result.
+   */
+  private static UserAccount loadOnce(String userId, Function<String, UserAccount> loader) {
+    CompletableFuture<UserAccount> future = new CompletableFuture<>();
+    CompletableFuture<UserAccount> existing = IN_FLIGHT_LOADS.putIfAbsent(userId, future);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      UserAccount userAccount = cache.get(userId); // another reader may have just filled it
+      if (userAccount == null) {
+        userAccount = loader.apply(userId);
+      }
+      future.complete(userAccount);
+      return userAccount;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      IN_FLIGHT_LOADS.remove(userId, future);
+    }
+  }
+
+  private static UserAccount join(CompletableFuture<UserAccount> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Bulk counterpart of {@link #loadFromBackingStore(String)}
+   */
+  private static Map<String, UserAccount> loadAllFromBackingStore(Collection<String> userIds) {
+    Map<String, UserAccount> userAccounts = new LinkedHashMap<>();
+    List<String> misses = new ArrayList<>(userIds.size());
+    for (String userId : userIds) {
+      UserAccount userAccount = offHeapStore == null ? null : offHeapStore.remove(userId);
+      if (userAccount != null) {
+        userAccounts.put(userId, userAccount);
+      } else {
+        misses.add(userId);
+      }
+    }
+    if (!misses.isEmpty()) {
+      long start = System.nanoTime();
+      try {
+        userAccounts.putAll(DbManager.readFromDb(misses));
+      } finally {
+        STATS.recordLoad(System.nanoTime() - start);
+      }
+    }
+    return userAccounts;
+  }
+
+  /**
+   * Reads the user account after a cache miss: from the off-heap tier if it holds it, which then
+   * hands it back to the cache, otherwise from the DB.
+   */
+  static UserAccount loadFromBackingStore(String userId) {
+    if (offHeapStore != null) {
+      UserAccount userAccount = offHeapStore.remove(userId);
+      if (userAccount != null) {
+        return userAccount;
+      }
+    }
+    return loadFromDb(userId);
+  }
+
+  /**
+   * Reads the user account from the DB, recording the load latency
+   */
+  static UserAccount loadFromDb(String userId) {
+    long start = System.nanoTime();
+    try {
+      return DbManager.readFromDb(userId);
+    } finally {
+      STATS.recordLoad(System.nanoTime() - start);
+    }
+  }
+
+  /*
+   * The listener runs while the cache picks and removes its victim, so it sees every evicted entry
+   * exactly once. Queueing may block on the write-behind backpressure, which then holds back the
+   * cache's writers too.
+   */
+  private static void attachEvictionListener() {
+    if (cache == null) {
+      return;
+    }
+    OffHeapStore store = offHeapStore;
+    cache.setEvictionListener(userAccount -> {
+      if (userAccount == null) {
+        return;
+      }
+      if (writeBackOnEviction) {
+        LOGGER.debug("# Cache is FULL! Queueing {} for write-behind...", userAccount.getUserId());
+        writeBehindQueue.enqueue(userAccount);
+      }
+      if (store != null) {
+        store.put(userAccount);
+      }
+    });
+  }
+
+  private static void removeFromOffHeapTier(String userId) {
+    if (offHeapStore != null) {
+      offHeapStore.remove(userId);
+    }
+  }
+
+  private static void timedUpsert(List<UserAccount> userAccounts) {
+    long start = System.nanoTime();
+    DbManager.upsertDb(userAccounts);
+    STATS.recordUpsert(System.nanoTime() - start);
+  }
 }
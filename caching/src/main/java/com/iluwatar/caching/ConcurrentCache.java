@@ -0,0 +1,509 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ *
+ * Thread-safe counterpart of {@link LruCache} with a pluggable {@link EvictionPolicy} (LRU unless
+ * specified otherwise). The entries are kept in a {@link ConcurrentHashMap} so that lookups never
+ * block, while the policy is guarded by a single eviction lock. Reads do not touch the policy
+ * directly. Instead they are recorded into striped, lossy ring buffers which are drained in batches
+ * by whichever thread manages to acquire the eviction lock (the approach taken by Caffeine). Writes
+ * acquire the eviction lock and replay the pending reads before updating the policy, so evictions
+ * always see an up-to-date access history.
+ * <p>
+ * Entries can optionally expire (see {@link Expiry}). Their deadlines are kept in a
+ * {@link TimerWheel} that is advanced whenever the eviction lock is held, while reads check the
+ * exact deadline themselves so that an expired entry is never returned. With refresh-after-write,
+ * a read of an old entry reloads it asynchronously through the loader and returns the stale value
+ * meanwhile, so the reader never waits for the backing store. The reloads run on the given executor,
+ * by default on a pool of its own, as the loader typically blocks on I/O.
+ *
+ */
+public class ConcurrentCache implements UserAccountCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCache.class);
+
+  private static final int NUMBER_OF_STRIPES =
+      ceilingPowerOfTwo(4 * Runtime.getRuntime().availableProcessors());
+  private static final int BUFFER_SIZE = 16;
+  private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+  /**
+   * Runs the reloads of caches that are not given an executor. Loaders block on the backing store,
+   * which would starve the common ForkJoin pool, so the reloads get daemon threads of their own.
+   */
+  private static final Executor DEFAULT_REFRESH_EXECUTOR = Executors.newCachedThreadPool(task -> {
+    Thread thread = new Thread(task, "cache-refresh");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Cache entry. The alive flag and the timer are guarded by the eviction lock.
+   */
+  static final class Node {
+    final String userId;
+    volatile UserAccount userAccount;
+    volatile long writeTime;
+    volatile long accessTime;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+    boolean alive = true;
+    TimerWheel.Timer<Node> timer;
+
+    Node(String userId, UserAccount userAccount) {
+      this.userId = userId;
+      this.userAccount = userAccount;
+    }
+  }
+
+  /**
+   * Bounded multiple-producer ring buffer recording reads. Producers drop the read when the buffer
+   * is full or contended; losing a few reads only makes the access history slightly less precise.
+   */
+  static final class ReadBuffer {
+    final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+    final AtomicLong writeCounter = new AtomicLong();
+    volatile long readCounter;
+
+    /**
+     * Returns the number of pending reads after the offer, or zero if the read was dropped.
+     */
+    int offer(Node node) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      long size = tail - head;
+      if (size >= BUFFER_SIZE) {
+        return BUFFER_SIZE;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        slots.lazySet((int) (tail & (BUFFER_SIZE - 1)), node);
+        return (int) size + 1;
+      }
+      return 0;
+    }
+  }
+
+  private final ConcurrentHashMap<String, Node> cache = new ConcurrentHashMap<>();
+  private final ReadBuffer[] readBuffers = new ReadBuffer[NUMBER_OF_STRIPES];
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final EvictionPolicy evictionPolicy;
+  private final Expiry expiry;
+  private final Function<String, UserAccount> loader;
+  private final Executor refreshExecutor;
+  private final LongSupplier ticker;
+  private final TimerWheel<Node> timerWheel;
+  private volatile int capacity;
+  private volatile long evictionCount;
+  private volatile Consumer<UserAccount> evictionListener = userAccount -> { };
+
+  /**
+   * Constructor, using LRU eviction
+   */
+  public ConcurrentCache(int capacity) {
+    this(capacity, new LruPolicy());
+  }
+
+  /**
+   * Constructor
+   */
+  public ConcurrentCache(int capacity, EvictionPolicy evictionPolicy) {
+    this(capacity, evictionPolicy, Expiry.NEVER, null);
+  }
+
+  /**
+   * Constructor, reloading on the default refresh pool
+   *
+   * @param loader reloads entries for refresh-after-write, may be null if refresh is disabled
+   */
+  public ConcurrentCache(int capacity, EvictionPolicy evictionPolicy, Expiry expiry,
+      Function<String, UserAccount> loader) {
+    this(capacity, evictionPolicy, expiry, loader, DEFAULT_REFRESH_EXECUTOR);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param loader reloads entries for refresh-after-write, may be null if refresh is disabled
+   * @param refreshExecutor runs the reloads of refresh-after-write
+   */
+  public ConcurrentCache(int capacity, EvictionPolicy evictionPolicy, Expiry expiry,
+      Function<String, UserAccount> loader, Executor refreshExecutor) {
+    this(capacity, evictionPolicy, expiry, loader, refreshExecutor, System::nanoTime);
+  }
+
+  ConcurrentCache(int capacity, EvictionPolicy evictionPolicy, Expiry expiry,
+      Function<String, UserAccount> loader, Executor refreshExecutor, LongSupplier ticker) {
+    if (expiry.refreshes() && loader == null) {
+      throw new IllegalArgumentException("refresh-after-write requires a loader");
+    }
+    this.capacity = capacity;
+    this.evictionPolicy = evictionPolicy;
+    this.expiry = expiry;
+    this.loader = loader;
+    this.refreshExecutor = refreshExecutor;
+    this.ticker = ticker;
+    this.timerWheel = new TimerWheel<>(ticker.getAsLong());
+    evictionPolicy.setCapacity(capacity);
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  @Override
+  public UserAccount get(String userId) {
+    Node node = cache.get(userId);
+    if (node == null) {
+      return null;
+    }
+    long now = ticker.getAsLong();
+    if (isExpired(node, now)) {
+      return null;
+    }
+    if (expiry.getExpireAfterAccessNanos() > 0) {
+      node.accessTime = now;
+    }
+    afterRead(node);
+    UserAccount userAccount = node.userAccount;
+    if (expiry.refreshes() && now - node.writeTime >= expiry.getRefreshAfterWriteNanos()) {
+      refresh(node);
+    }
+    return userAccount;
+  }
+
+  @Override
+  public void set(String userId, UserAccount userAccount) {
+    evictionLock.lock();
+    try {
+      long now = ticker.getAsLong();
+      maintenance(now);
+      Node node = cache.get(userId);
+      if (node != null) {
+        node.userAccount = userAccount;
+        node.writeTime = now;
+        node.accessTime = now;
+        scheduleExpiry(node);
+        evictionPolicy.recordAccess(userId);
+        return;
+      }
+      evictDownTo(capacity - 1);
+      node = new Node(userId, userAccount);
+      node.writeTime = now;
+      node.accessTime = now;
+      cache.put(userId, node);
+      scheduleExpiry(node);
+      evictionPolicy.recordInsertion(userId);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean contains(String userId) {
+    Node node = cache.get(userId);
+    return node != null && !isExpired(node, ticker.getAsLong());
+  }
+
+  @Override
+  public void invalidate(String userId) {
+    evictionLock.lock();
+    try {
+      Node toBeRemoved = cache.get(userId);
+      if (toBeRemoved != null) {
+        LOGGER.debug("# {} has been updated! Removing older version from cache...", userId);
+        removeNode(toBeRemoved);
+        evictionPolicy.recordRemoval(userId);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isFull() {
+    return cache.size() >= capacity;
+  }
+
+  @Override
+  public UserAccount getLruData() {
+    evictionLock.lock();
+    try {
+      maintenance(ticker.getAsLong());
+      String victim = evictionPolicy.victim();
+      Node node = victim == null ? null : cache.get(victim);
+      return node == null ? null : node.userAccount;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      for (Node node : cache.values()) {
+        removeNode(node);
+      }
+      evictionPolicy.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    evictionLock.lock();
+    try {
+      long now = ticker.getAsLong();
+      maintenance(now);
+      List<UserAccount> listOfCacheData = new ArrayList<>(cache.size());
+      for (String userId : evictionPolicy.keys()) {
+        Node node = cache.get(userId);
+        if (!isExpired(node, now)) {
+          listOfCacheData.add(node.userAccount);
+        }
+      }
+      return listOfCacheData;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Set cache capacity. When the capacity shrinks, the policy's victims are evicted one by one until
+   * the cache fits.
+   */
+  @Override
+  public void setCapacity(int newCapacity) {
+    evictionLock.lock();
+    try {
+      maintenance(ticker.getAsLong());
+      capacity = newCapacity;
+      evictionPolicy.setCapacity(newCapacity);
+      evictDownTo(capacity);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Sets the eviction listener. It is called while the eviction lock is held, so it should be quick.
+   */
+  @Override
+  public void setEvictionListener(Consumer<UserAccount> evictionListener) {
+    this.evictionListener = evictionListener;
+  }
+
+  /**
+   * Records the read in this thread's buffer and drains the buffers once enough reads are pending.
+   * The drain is skipped if another thread currently holds the eviction lock.
+   */
+  private void afterRead(Node node) {
+    int pending = readBuffers[stripe()].offer(node);
+    if (pending >= DRAIN_THRESHOLD && evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Replays the pending reads and expires the entries that are due. Must be called while holding the
+   * eviction lock.
+   */
+  private void maintenance(long now) {
+    drainReadBuffers();
+    if (expiry.expires()) {
+      timerWheel.advance(now, node -> {
+        if (isExpired(node, now)) {
+          LOGGER.debug("# {} has expired! Removing it from cache...", node.userId);
+          node.timer = null;
+          removeNode(node);
+          evictionPolicy.recordEviction(node.userId);
+          evictionCount++;
+        } else {
+          node.timer = null;
+          scheduleExpiry(node);
+        }
+      });
+    }
+  }
+
+  /**
+   * Replays the recorded reads of still cached nodes into the eviction policy. Must be called while
+   * holding the eviction lock.
+   */
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      long readCounter = buffer.readCounter;
+      long writeCounter = buffer.writeCounter.get();
+      while (readCounter < writeCounter) {
+        int index = (int) (readCounter & (BUFFER_SIZE - 1));
+        Node node = buffer.slots.get(index);
+        if (node == null) {
+          break; // the producer has claimed the slot but not yet published the node
+        }
+        buffer.slots.lazySet(index, null);
+        if (node.alive) {
+          evictionPolicy.recordAccess(node.userId);
+          if (expiry.getExpireAfterAccessNanos() > 0) {
+            scheduleExpiry(node);
+          }
+        }
+        readCounter++;
+      }
+      buffer.readCounter = readCounter;
+    }
+  }
+
+  /**
+   * Evicts the policy's victims one at a time until at most maxSize entries are left.
+   */
+  private void evictDownTo(int maxSize) {
+    while (cache.size() > maxSize) {
+      String victim = evictionPolicy.victim();
+      if (victim == null) {
+        return;
+      }
+      LOGGER.debug("# Cache is FULL! Removing {} from cache...", victim);
+      Node node = cache.get(victim);
+      if (node != null) {
+        removeNode(node);
+        evictionListener.accept(node.userAccount);
+      }
+      evictionPolicy.recordEviction(victim);
+      evictionCount++;
+    }
+  }
+
+  private void removeNode(Node node) {
+    cache.remove(node.userId, node);
+    node.alive = false;
+    if (node.timer != null) {
+      timerWheel.cancel(node.timer);
+      node.timer = null;
+    }
+  }
+
+  /**
+   * (Re)schedules the node's timer at its current deadline. Must be called holding the eviction lock.
+   */
+  private void scheduleExpiry(Node node) {
+    if (!expiry.expires() || !node.alive) {
+      return;
+    }
+    long deadline = Long.MAX_VALUE;
+    if (expiry.getExpireAfterWriteNanos() > 0) {
+      deadline = node.writeTime + expiry.getExpireAfterWriteNanos();
+    }
+    if (expiry.getExpireAfterAccessNanos() > 0) {
+      deadline = Math.min(deadline, node.accessTime + expiry.getExpireAfterAccessNanos());
+    }
+    if (node.timer == null) {
+      node.timer = timerWheel.schedule(node, deadline);
+    } else {
+      timerWheel.reschedule(node.timer, deadline);
+    }
+  }
+
+  private boolean isExpired(Node node, long now) {
+    return expiry.getExpireAfterWriteNanos() > 0
+        && now - node.writeTime >= expiry.getExpireAfterWriteNanos()
+        || expiry.getExpireAfterAccessNanos() > 0
+        && now - node.accessTime >= expiry.getExpireAfterAccessNanos();
+  }
+
+  /**
+   * Reloads the entry in the background unless a reload is already in flight. The new value is only
+   * installed if the entry has neither been removed nor overwritten in the meantime.
+   */
+  private void refresh(Node node) {
+    if (!node.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    long writeTime = node.writeTime;
+    CompletableFuture<UserAccount> reload;
+    try {
+      reload = CompletableFuture.supplyAsync(() -> loader.apply(node.userId), refreshExecutor);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("# Refreshing {} rejected, keeping the stale value", node.userId, e);
+      node.refreshing.set(false);
+      return;
+    }
+    reload.whenComplete((loaded, e) -> {
+      if (e != null) {
+        LOGGER.warn("# Refreshing {} failed, keeping the stale value", node.userId, e);
+      } else if (loaded != null) {
+        evictionLock.lock();
+        try {
+          if (node.alive && node.writeTime == writeTime) {
+            long now = ticker.getAsLong();
+            node.userAccount = loaded;
+            node.writeTime = now;
+            node.accessTime = now;
+            scheduleExpiry(node);
+          }
+        } finally {
+          evictionLock.unlock();
+        }
+      }
+      node.refreshing.set(false);
+    });
+  }
+
+  private static int stripe() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & (NUMBER_OF_STRIPES - 1);
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(x - 1));
+  }
+}
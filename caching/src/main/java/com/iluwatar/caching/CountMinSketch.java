@@ -0,0 +1,107 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ *
+ * Count-Min sketch estimating how often a user ID has been accessed, used as the frequency filter
+ * of {@link WindowTinyLfuPolicy}. Each user ID maps to one counter in each of four rows, and the
+ * estimate is the smallest of them. A row has as many counters as the largest power of two below
+ * eight times the cache capacity; a counter takes a byte but saturates at 15, the range of the
+ * 4-bit counters of TinyLFU, which is enough to rank candidates. Once the number of recorded
+ * accesses reaches ten times the cache capacity all counters are halved, so that the history ages
+ * and old popularity fades.
+ *
+ */
+public class CountMinSketch {
+
+  private static final int DEPTH = 4;
+  private static final int MAX_COUNT = 15;
+  private static final int[] SEEDS = {0x97CB3127, 0x3F4A7C15, 0x85EBCA6B, 0xC2B2AE35};
+
+  private final byte[][] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Constructor
+   *
+   * @param capacity capacity of the cache the sketch is sized for
+   */
+  public CountMinSketch(int capacity) {
+    int width = Integer.highestOneBit(Math.max(capacity, 8) * 8 - 1);
+    table = new byte[DEPTH][width];
+    mask = width - 1;
+    sampleSize = 10 * Math.max(capacity, 1);
+  }
+
+  /**
+   * Returns the estimated access frequency of the user ID
+   */
+  public int frequency(String userId) {
+    int hash = spread(userId.hashCode());
+    int frequency = MAX_COUNT;
+    for (int row = 0; row < DEPTH; row++) {
+      frequency = Math.min(frequency, table[row][index(hash, row)]);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access to the user ID
+   */
+  public void increment(String userId) {
+    int hash = spread(userId.hashCode());
+    boolean added = false;
+    for (int row = 0; row < DEPTH; row++) {
+      int index = index(hash, row);
+      if (table[row][index] < MAX_COUNT) {
+        table[row][index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (byte[] row : table) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>= 1;
+      }
+    }
+    additions /= 2;
+  }
+
+  private int index(int hash, int row) {
+    int h = (hash + SEEDS[row]) * SEEDS[row];
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -23,15 +23,22 @@
 package com.iluwatar.caching;
 
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bson.Document;
 
 import com.mongodb.MongoClient;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 
 /**
  *
@@ -60,7 +67,7 @@ public final class DbManager {
    */
   public static void createVirtualDb() {
     useMongoDB = false;
-    virtualDB = new HashMap<>();
+    virtualDB = new ConcurrentHashMap<>();
   }
 
   /**
@@ -98,6 +105,41 @@ public final class DbManager {
     return new UserAccount(userId, doc.getString("userName"), doc.getString("additionalInfo"));
   }
 
+  /**
+   * Read several user accounts from the DB in a single round-trip (an $in query in MongoDB). User
+   * IDs that are not found are absent from the returned map.
+   */
+  public static Map<String, UserAccount> readFromDb(Collection<String> userIds) {
+    Map<String, UserAccount> userAccounts = new HashMap<>();
+    if (userIds.isEmpty()) {
+      return userAccounts;
+    }
+    if (!useMongoDB) {
+      for (String userId : userIds) {
+        UserAccount userAccount = virtualDB.get(userId);
+        if (userAccount != null) {
+          userAccounts.put(userId, userAccount);
+        }
+      }
+      return userAccounts;
+    }
+    if (db == null) {
+      try {
+        connect();
+      } catch (ParseException e) {
+        e.printStackTrace();
+      }
+    }
+    FindIterable<Document> iterable = db.getCollection("user_accounts")
+        .find(new Document("userID", new Document("$in", new ArrayList<>(userIds))));
+    for (Document doc : iterable) {
+      String userId = doc.getString("userID");
+      userAccounts.put(userId,
+          new UserAccount(userId, doc.getString("userName"), doc.getString("additionalInfo")));
+    }
+    return userAccounts;
+  }
+
   /**
    * Write user account to DB
    */
@@ -161,4 +203,36 @@ public final class DbManager {
             userAccount.getUserName()).append("additionalInfo", userAccount.getAdditionalInfo())),
         new UpdateOptions().upsert(true));
   }
+
+  /**
+   * Upserts a batch of user accounts in a single round-trip (an unordered bulk write in MongoDB).
+   */
+  public static void upsertDb(List<UserAccount> userAccounts) {
+    if (userAccounts.isEmpty()) {
+      return;
+    }
+    if (!useMongoDB) {
+      for (UserAccount userAccount : userAccounts) {
+        virtualDB.put(userAccount.getUserId(), userAccount);
+      }
+      return;
+    }
+    if (db == null) {
+      try {
+        connect();
+      } catch (ParseException e) {
+        e.printStackTrace();
+      }
+    }
+    List<WriteModel<Document>> upserts = new ArrayList<>(userAccounts.size());
+    UpdateOptions upsert = new UpdateOptions().upsert(true);
+    for (UserAccount userAccount : userAccounts) {
+      upserts.add(new UpdateOneModel<>(
+          new Document("userID", userAccount.getUserId()),
+          new Document("$set", new Document("userID", userAccount.getUserId()).append("userName",
+              userAccount.getUserName()).append("additionalInfo", userAccount.getAdditionalInfo())),
+          upsert));
+    }
+    db.getCollection("user_accounts").bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+  }
 }
@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+
+/**
+ *
+ * Strategy deciding which entry a {@link ConcurrentCache} evicts when it is full. The policy only
+ * tracks user IDs; the cache keeps the data. All callbacks are invoked while the cache holds its
+ * eviction lock, so implementations do not need to be thread-safe.
+ *
+ */
+public interface EvictionPolicy {
+
+  /**
+   * Called when a cached entry is read or overwritten.
+   */
+  void recordAccess(String userId);
+
+  /**
+   * Called when a new entry has been added to the cache.
+   */
+  void recordInsertion(String userId);
+
+  /**
+   * Called when an entry is removed from the cache for any other reason than eviction.
+   */
+  void recordRemoval(String userId);
+
+  /**
+   * Called when an entry is evicted to make room. Policies keeping a history of evicted entries
+   * override this.
+   */
+  default void recordEviction(String userId) {
+    recordRemoval(userId);
+  }
+
+  /**
+   * Returns the entry to evict in order to make room for a new one, or null if no entry is tracked.
+   * Calling this method does not change the state of the policy.
+   */
+  String victim();
+
+  /**
+   * Returns the tracked user IDs, the entries the policy values the most first.
+   */
+  List<String> keys();
+
+  /**
+   * Called when the capacity of the cache changes, before any entry is evicted to fit.
+   */
+  void setCapacity(int capacity);
+
+  /**
+   * Forget every tracked entry
+   */
+  void clear();
+}
@@ -0,0 +1,77 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Time-based expiry settings of a {@link ConcurrentCache}. A duration of zero disables the
+ * corresponding behaviour.
+ * <ul>
+ * <li>expire-after-write: an entry is dropped once this long has passed since it was written</li>
+ * <li>expire-after-access: an entry is dropped once it has not been read or written for this
+ * long</li>
+ * <li>refresh-after-write: the first read of an entry older than this triggers an asynchronous
+ * reload, the stale value is served in the meantime</li>
+ * </ul>
+ *
+ */
+public final class Expiry {
+
+  public static final Expiry NEVER = new Expiry(0, 0, 0, TimeUnit.NANOSECONDS);
+
+  private final long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private final long refreshAfterWriteNanos;
+
+  /**
+   * Constructor
+   */
+  public Expiry(long expireAfterWrite, long expireAfterAccess, long refreshAfterWrite,
+      TimeUnit unit) {
+    this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+    this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+    this.refreshAfterWriteNanos = unit.toNanos(refreshAfterWrite);
+  }
+
+  public long getExpireAfterWriteNanos() {
+    return expireAfterWriteNanos;
+  }
+
+  public long getExpireAfterAccessNanos() {
+    return expireAfterAccessNanos;
+  }
+
+  public long getRefreshAfterWriteNanos() {
+    return refreshAfterWriteNanos;
+  }
+
+  public boolean expires() {
+    return expireAfterWriteNanos > 0 || expireAfterAccessNanos > 0;
+  }
+
+  public boolean refreshes() {
+    return refreshAfterWriteNanos > 0;
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * Least-Frequently-Used eviction: the entry with the lowest access count is evicted first. Ties are
+ * broken by recency, the least recently used of the least frequently used entries goes first.
+ *
+ */
+public class LfuPolicy implements EvictionPolicy {
+
+  private final Map<String, Integer> frequencies = new HashMap<>();
+  private final TreeMap<Integer, LinkedHashSet<String>> buckets = new TreeMap<>();
+
+  @Override
+  public void recordAccess(String userId) {
+    Integer frequency = frequencies.get(userId);
+    if (frequency != null) {
+      removeFromBucket(userId, frequency);
+      addToBucket(userId, frequency + 1);
+    }
+  }
+
+  @Override
+  public void recordInsertion(String userId) {
+    recordRemoval(userId);
+    addToBucket(userId, 1);
+  }
+
+  @Override
+  public void recordRemoval(String userId) {
+    Integer frequency = frequencies.remove(userId);
+    if (frequency != null) {
+      removeFromBucket(userId, frequency);
+    }
+  }
+
+  @Override
+  public String victim() {
+    return buckets.isEmpty() ? null : buckets.firstEntry().getValue().iterator().next();
+  }
+
+  @Override
+  public List<String> keys() {
+    List<String> keys = new ArrayList<>(frequencies.size());
+    for (LinkedHashSet<String> bucket : buckets.descendingMap().values()) {
+      List<String> bucketKeys = new ArrayList<>(bucket);
+      Collections.reverse(bucketKeys);
+      keys.addAll(bucketKeys);
+    }
+    return keys;
+  }
+
+  @Override
+  public void setCapacity(int capacity) {
+    // the access counts do not depend on the capacity
+  }
+
+  @Override
+  public void clear() {
+    frequencies.clear();
+    buckets.clear();
+  }
+
+  private void addToBucket(String userId, int frequency) {
+    frequencies.put(userId, frequency);
+    buckets.computeIfAbsent(frequency, f -> new LinkedHashSet<>()).add(userId);
+  }
+
+  private void removeFromBucket(String userId, int frequency) {
+    LinkedHashSet<String> bucket = buckets.get(frequency);
+    bucket.remove(userId);
+    if (bucket.isEmpty()) {
+      buckets.remove(frequency);
+    }
+  }
+}
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  *
@@ -39,7 +40,7 @@ import java.util.Map;
  * LRU data is always at the end of the list.
  *
  */
-public class LruCache {
+public class LruCache implements UserAccountCache {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LruCache.class);
 
@@ -56,6 +57,8 @@ public class LruCache {
   }
 
   int capacity;
+  long evictionCount;
+  Consumer<UserAccount> evictionListener = userAccount -> { };
   Map<String, Node> cache = new HashMap<>();
   Node head;
   Node end;
@@ -67,6 +70,7 @@ public class LruCache {
   /**
    * Get user account
    */
+  @Override
   public UserAccount get(String userId) {
     if (cache.containsKey(userId)) {
       Node node = cache.get(userId);
@@ -111,6 +115,7 @@ public class LruCache {
   /**
    * Set user account
    */
+  @Override
   public void set(String userId, UserAccount userAccount) {
     if (cache.containsKey(userId)) {
       Node old = cache.get(userId);
@@ -122,7 +127,9 @@ public class LruCache {
       if (cache.size() >= capacity) {
         LOGGER.info("# Cache is FULL! Removing {} from cache...", end.userId);
         cache.remove(end.userId); // remove LRU data from cache.
+        evictionListener.accept(end.userAccount);
         remove(end);
+        evictionCount++;
         setHead(newNode);
       } else {
         setHead(newNode);
@@ -131,6 +138,7 @@ public class LruCache {
     }
   }
 
+  @Override
   public boolean contains(String userId) {
     return cache.containsKey(userId);
   }
@@ -138,6 +146,7 @@ public class LruCache {
   /**
    * Invalidate cache for user
    */
+  @Override
   public void invalidate(String userId) {
     Node toBeRemoved = cache.remove(userId);
     if (toBeRemoved != null) {
@@ -146,10 +155,12 @@ public class LruCache {
     }
   }
 
+  @Override
   public boolean isFull() {
     return cache.size() >= capacity;
   }
 
+  @Override
   public UserAccount getLruData() {
     return end.userAccount;
   }
@@ -157,6 +168,7 @@ public class LruCache {
   /**
    * Clear cache
    */
+  @Override
   public void clear() {
     head = null;
     end = null;
@@ -166,6 +178,7 @@ public class LruCache {
   /**
    * Returns cache data in list form.
    */
+  @Override
   public List<UserAccount> getCacheDataInListForm() {
     List<UserAccount> listOfCacheData = new ArrayList<>();
     Node temp = head;
@@ -177,14 +190,27 @@ public class LruCache {
   }
 
   /**
-   * Set cache capacity
+   * Set cache capacity. When the capacity shrinks, the LRU data is evicted until the cache fits.
    */
+  @Override
   public void setCapacity(int newCapacity) {
-    if (capacity > newCapacity) {
-      clear(); // Behavior can be modified to accommodate for decrease in cache size. For now, we'll
-               // just clear the cache.
-    } else {
-      this.capacity = newCapacity;
+    this.capacity = newCapacity;
+    while (cache.size() > capacity) {
+      LOGGER.info("# Cache is shrinking! Removing {} from cache...", end.userId);
+      cache.remove(end.userId);
+      evictionListener.accept(end.userAccount);
+      remove(end);
+      evictionCount++;
     }
   }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public void setEvictionListener(Consumer<UserAccount> evictionListener) {
+    this.evictionListener = evictionListener;
+  }
 }
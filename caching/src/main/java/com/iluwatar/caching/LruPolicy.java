@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ *
+ * Least-Recently-Used eviction: the entry that has not been accessed for the longest time is
+ * evicted first.
+ *
+ */
+public class LruPolicy implements EvictionPolicy {
+
+  private final LinkedHashSet<String> order = new LinkedHashSet<>();
+
+  @Override
+  public void recordAccess(String userId) {
+    if (order.remove(userId)) {
+      order.add(userId);
+    }
+  }
+
+  @Override
+  public void recordInsertion(String userId) {
+    order.remove(userId);
+    order.add(userId);
+  }
+
+  @Override
+  public void recordRemoval(String userId) {
+    order.remove(userId);
+  }
+
+  @Override
+  public String victim() {
+    return order.isEmpty() ? null : order.iterator().next();
+  }
+
+  @Override
+  public List<String> keys() {
+    List<String> keys = new ArrayList<>(order);
+    Collections.reverse(keys);
+    return keys;
+  }
+
+  @Override
+  public void setCapacity(int capacity) {
+    // the recency order does not depend on the capacity
+  }
+
+  @Override
+  public void clear() {
+    order.clear();
+  }
+}
@@ -0,0 +1,344 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ *
+ * Second cache tier keeping serialized user accounts outside the Java heap, either in a direct
+ * {@link ByteBuffer} or in a memory-mapped file. The buffer is cut into 64 KiB slabs; each slab is
+ * assigned on demand to a size class (64 bytes to 4 KiB) and split into slots of that size, so
+ * that a record is stored in the smallest slot it fits in without fragmenting the buffer. The
+ * index from user ID to slot stays on the heap. When a size class runs out of slots and no slab is
+ * left, the oldest record of that class is dropped.
+ * <p>
+ * The first slab holds a header with the size class of every slab, and every slot starts with the
+ * length of its record (zero when free) and a write sequence number. A file-backed store therefore
+ * rebuilds its index by scanning the slabs when it is reopened, so that a restarted process comes
+ * up warm. Since the length is written after the record and a replaced record is only freed once
+ * its new version is written, a record torn by a crash is seen as a free slot rather than as
+ * corrupt data, and of two copies of a record left by a crash the one written last is kept.
+ *
+ */
+public class OffHeapStore {
+
+  private static final int MAGIC = 0x55414353;
+  private static final int VERSION = 2;
+  private static final int SLAB_SIZE = 64 * 1024;
+  private static final int[] SLOT_SIZES = {64, 128, 256, 512, 1024, 2048, 4096};
+  private static final int CLASSES_OFFSET = 16;
+  private static final byte UNASSIGNED = -1;
+  private static final int SLOT_HEADER = 12;
+
+  private final ByteBuffer buffer;
+  private final FileChannel channel;
+  private final int slabCount;
+  private final Map<String, Integer> index = new HashMap<>();
+  private final ArrayDeque<Integer>[] freeSlots;
+  private final LinkedHashSet<String>[] residents;
+  private int nextUnassignedSlab = 1;
+  private long nextSequence = 1;
+
+  @SuppressWarnings("unchecked")
+  private OffHeapStore(ByteBuffer buffer, FileChannel channel) {
+    this.buffer = buffer;
+    this.channel = channel;
+    this.slabCount = buffer.capacity() / SLAB_SIZE;
+    /*
+     * An int capacity holds at most 32767 slabs, just under 2 GiB, so the size classes of all slabs
+     * always fit into the header slab and only the lower bound can be violated.
+     */
+    if (slabCount < 2) {
+      throw new IllegalArgumentException(
+          "capacity must be at least 128 KiB (two slabs): " + buffer.capacity());
+    }
+    freeSlots = new ArrayDeque[SLOT_SIZES.length];
+    residents = new LinkedHashSet[SLOT_SIZES.length];
+    for (int i = 0; i < SLOT_SIZES.length; i++) {
+      freeSlots[i] = new ArrayDeque<>();
+      residents[i] = new LinkedHashSet<>();
+    }
+    if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == SLAB_SIZE
+        && buffer.getInt(12) == slabCount) {
+      recover();
+    } else {
+      format();
+    }
+  }
+
+  /**
+   * Creates a store in direct memory. Its content is lost when the process exits. The capacity must
+   * be at least 128 KiB, a remainder smaller than a 64 KiB slab is left unused.
+   */
+  public static OffHeapStore allocateDirect(int capacityBytes) {
+    return new OffHeapStore(ByteBuffer.allocateDirect(capacityBytes), null);
+  }
+
+  /**
+   * Opens the store kept in the given file, creating the file if it does not exist yet. An existing
+   * store of the same capacity is reopened with its content.
+   */
+  public static OffHeapStore mapFile(Path file, int capacityBytes) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+    return new OffHeapStore(buffer, channel);
+  }
+
+  /**
+   * Stores the user account, replacing a previously stored version. Returns false if the record is
+   * too large for the biggest slot size.
+   */
+  public synchronized boolean put(UserAccount userAccount) {
+    byte[] record = encode(userAccount);
+    int sizeClass = sizeClass(record.length + SLOT_HEADER);
+    if (sizeClass < 0) {
+      return false;
+    }
+    int slot = allocate(sizeClass);
+    buffer.putLong(slot + 4, nextSequence++);
+    ByteBuffer view = buffer.duplicate();
+    view.position(slot + SLOT_HEADER);
+    view.put(record);
+    buffer.putInt(slot, record.length);
+    Integer previous = index.put(userAccount.getUserId(), slot);
+    if (previous != null) {
+      free(previous);
+    }
+    residents[sizeClass].add(userAccount.getUserId());
+    return true;
+  }
+
+  /**
+   * Returns the stored user account, or null
+   */
+  public synchronized UserAccount get(String userId) {
+    Integer slot = index.get(userId);
+    return slot == null ? null : read(slot);
+  }
+
+  /**
+   * Removes the user account, returning the stored version or null
+   */
+  public synchronized UserAccount remove(String userId) {
+    Integer slot = index.remove(userId);
+    if (slot == null) {
+      return null;
+    }
+    UserAccount userAccount = read(slot);
+    free(slot);
+    return userAccount;
+  }
+
+  public synchronized boolean contains(String userId) {
+    return index.containsKey(userId);
+  }
+
+  public synchronized int size() {
+    return index.size();
+  }
+
+  /**
+   * Removes every record
+   */
+  public synchronized void clear() {
+    index.clear();
+    format();
+  }
+
+  /**
+   * Flushes a file-backed store to disk and closes the file
+   */
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      ((MappedByteBuffer) buffer).force();
+      channel.close();
+    }
+  }
+
+  private int allocate(int sizeClass) {
+    Integer slot = freeSlots[sizeClass].poll();
+    if (slot != null) {
+      return slot;
+    }
+    if (nextUnassignedSlab < slabCount) {
+      int slab = nextUnassignedSlab++;
+      buffer.put(CLASSES_OFFSET + slab, (byte) sizeClass);
+      int slotSize = SLOT_SIZES[sizeClass];
+      for (int offset = slab * SLAB_SIZE; offset < (slab + 1) * SLAB_SIZE; offset += slotSize) {
+        buffer.putInt(offset, 0);
+        freeSlots[sizeClass].add(offset);
+      }
+      return freeSlots[sizeClass].poll();
+    }
+    Iterator<String> oldest = residents[sizeClass].iterator();
+    if (!oldest.hasNext()) {
+      throw new IllegalStateException("no slab left for records of " + SLOT_SIZES[sizeClass]
+          + " bytes");
+    }
+    remove(oldest.next());
+    return freeSlots[sizeClass].poll();
+  }
+
+  private void free(int slot) {
+    int sizeClass = buffer.get(CLASSES_OFFSET + slot / SLAB_SIZE);
+    residents[sizeClass].remove(readUserId(slot));
+    buffer.putInt(slot, 0);
+    freeSlots[sizeClass].add(slot);
+  }
+
+  private UserAccount read(int slot) {
+    byte[] record = new byte[buffer.getInt(slot)];
+    ByteBuffer view = buffer.duplicate();
+    view.position(slot + SLOT_HEADER);
+    view.get(record);
+    return decode(record);
+  }
+
+  private String readUserId(int slot) {
+    int length = buffer.getShort(slot + SLOT_HEADER);
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(slot + SLOT_HEADER + 2);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void format() {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(8, SLAB_SIZE);
+    buffer.putInt(12, slabCount);
+    for (int slab = 0; slab < slabCount; slab++) {
+      buffer.put(CLASSES_OFFSET + slab, UNASSIGNED);
+    }
+    for (int i = 0; i < SLOT_SIZES.length; i++) {
+      freeSlots[i].clear();
+      residents[i].clear();
+    }
+    nextUnassignedSlab = 1;
+    nextSequence = 1;
+  }
+
+  /**
+   * Rebuilds the index and the free lists from the slabs of a reopened file.
+   */
+  private void recover() {
+    for (int slab = 1; slab < slabCount; slab++) {
+      int sizeClass = buffer.get(CLASSES_OFFSET + slab);
+      if (sizeClass == UNASSIGNED) {
+        break;
+      }
+      nextUnassignedSlab = slab + 1;
+      int slotSize = SLOT_SIZES[sizeClass];
+      for (int offset = slab * SLAB_SIZE; offset < (slab + 1) * SLAB_SIZE; offset += slotSize) {
+        int length = buffer.getInt(offset);
+        if (length > 0 && length <= slotSize - SLOT_HEADER) {
+          long sequence = buffer.getLong(offset + 4);
+          nextSequence = Math.max(nextSequence, sequence + 1);
+          String userId = readUserId(offset);
+          Integer previous = index.get(userId);
+          // the process died while replacing the record, keep the copy written last
+          if (previous == null || sequence > buffer.getLong(previous + 4)) {
+            index.put(userId, offset);
+            if (previous != null) {
+              free(previous);
+            }
+            residents[sizeClass].add(userId);
+          } else {
+            buffer.putInt(offset, 0);
+            freeSlots[sizeClass].add(offset);
+          }
+        } else {
+          buffer.putInt(offset, 0);
+          freeSlots[sizeClass].add(offset);
+        }
+      }
+    }
+  }
+
+  private static int sizeClass(int size) {
+    for (int i = 0; i < SLOT_SIZES.length; i++) {
+      if (size <= SLOT_SIZES[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static byte[] encode(UserAccount userAccount) {
+    byte[] userId = bytes(userAccount.getUserId());
+    byte[] userName = bytes(userAccount.getUserName());
+    byte[] additionalInfo = bytes(userAccount.getAdditionalInfo());
+    ByteBuffer record = ByteBuffer.allocate(6 + length(userId) + length(userName)
+        + length(additionalInfo));
+    putString(record, userId);
+    putString(record, userName);
+    putString(record, additionalInfo);
+    return record.array();
+  }
+
+  private static UserAccount decode(byte[] bytes) {
+    ByteBuffer record = ByteBuffer.wrap(bytes);
+    return new UserAccount(getString(record), getString(record), getString(record));
+  }
+
+  private static byte[] bytes(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int length(byte[] value) {
+    return value == null ? 0 : value.length;
+  }
+
+  private static void putString(ByteBuffer record, byte[] value) {
+    if (value == null) {
+      record.putShort((short) -1);
+    } else {
+      record.putShort((short) value.length);
+      record.put(value);
+    }
+  }
+
+  private static String getString(ByteBuffer record) {
+    short length = record.getShort();
+    if (length < 0) {
+      return null;
+    }
+    byte[] value = new byte[length];
+    record.get(value);
+    return new String(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Records the {@link CacheStore} statistics on the request path. All counters are
+ * {@link LongAdder}s, so recording is cheap and does not contend between threads.
+ *
+ */
+public class StatsCounter {
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder loadCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  private final LongAdder upsertCount = new LongAdder();
+  private final LongAdder totalUpsertTime = new LongAdder();
+  private final LatencyHistogram upsertLatency = new LatencyHistogram();
+
+  public void recordHit() {
+    hitCount.increment();
+  }
+
+  public void recordMiss() {
+    missCount.increment();
+  }
+
+  /**
+   * Records the time spent loading a user account from the DB
+   */
+  public void recordLoad(long nanos) {
+    loadCount.increment();
+    totalLoadTime.add(nanos);
+    loadLatency.record(nanos);
+  }
+
+  /**
+   * Records the time spent on a bulk upsert
+   */
+  public void recordUpsert(long nanos) {
+    upsertCount.increment();
+    totalUpsertTime.add(nanos);
+    upsertLatency.record(nanos);
+  }
+
+  /**
+   * Returns a snapshot of the counters
+   *
+   * @param evictionCount evictions reported by the backing cache
+   * @param writeBehindQueueSize current number of dirty entries waiting to be written
+   */
+  public CacheStats snapshot(long evictionCount, int writeBehindQueueSize) {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount, loadCount.sum(),
+        totalLoadTime.sum(), loadLatency.snapshot(), upsertCount.sum(), totalUpsertTime.sum(),
+        upsertLatency.snapshot(), writeBehindQueueSize);
+  }
+}
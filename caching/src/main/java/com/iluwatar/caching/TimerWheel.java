@@ -0,0 +1,172 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.function.Consumer;
+
+/**
+ *
+ * Hierarchical timing wheel used by {@link ConcurrentCache} to expire entries without a timer per
+ * entry. Each level is an array of buckets holding a doubly linked-list of timers; the buckets of
+ * the first level span about a second, those of the higher levels about a minute, an hour and
+ * three days. Scheduling and cancelling are O(1). When time advances, the buckets that were passed
+ * are emptied: due timers fire and the others cascade down to a finer level.
+ *
+ * <p>Not thread-safe, the cache only uses it while holding its eviction lock.</p>
+ *
+ * @param <T> type of the item carried by the timers
+ */
+public class TimerWheel<T> {
+
+  private static final int[] SHIFTS = {30, 36, 42, 48};
+  private static final int BUCKETS = 64;
+
+  /**
+   * Scheduled timer; also the sentinel of each bucket.
+   *
+   * @param <T> type of the item carried by the timer
+   */
+  public static final class Timer<T> {
+    final T item;
+    long deadline;
+    Timer<T> previous;
+    Timer<T> next;
+
+    Timer(T item) {
+      this.item = item;
+    }
+  }
+
+  private final Timer<T>[][] wheel;
+  private long nanos;
+
+  /**
+   * Constructor
+   *
+   * @param nanos current time of the ticker the deadlines are expressed in
+   */
+  @SuppressWarnings("unchecked")
+  public TimerWheel(long nanos) {
+    this.nanos = nanos;
+    wheel = new Timer[SHIFTS.length][BUCKETS];
+    for (Timer<T>[] level : wheel) {
+      for (int i = 0; i < BUCKETS; i++) {
+        Timer<T> sentinel = new Timer<>(null);
+        sentinel.previous = sentinel;
+        sentinel.next = sentinel;
+        level[i] = sentinel;
+      }
+    }
+  }
+
+  /**
+   * Schedules a new timer firing at the given deadline
+   */
+  public Timer<T> schedule(T item, long deadline) {
+    Timer<T> timer = new Timer<>(item);
+    timer.deadline = deadline;
+    link(findBucket(deadline), timer);
+    return timer;
+  }
+
+  /**
+   * Moves the timer to a new deadline
+   */
+  public void reschedule(Timer<T> timer, long deadline) {
+    unlink(timer);
+    timer.deadline = deadline;
+    link(findBucket(deadline), timer);
+  }
+
+  /**
+   * Cancels the timer
+   */
+  public void cancel(Timer<T> timer) {
+    unlink(timer);
+  }
+
+  /**
+   * Advances the wheel to the given time and passes the items of the timers that are due to the
+   * consumer. The timers that fired are no longer scheduled.
+   */
+  public void advance(long now, Consumer<T> expired) {
+    long previous = nanos;
+    nanos = now;
+    for (int level = 0; level < SHIFTS.length; level++) {
+      long previousTicks = previous >>> SHIFTS[level];
+      long currentTicks = now >>> SHIFTS[level];
+      if (currentTicks <= previousTicks) {
+        break;
+      }
+      long passed = Math.min(currentTicks - previousTicks, BUCKETS - 1);
+      for (long ticks = previousTicks; ticks <= previousTicks + passed; ticks++) {
+        expireBucket(wheel[level][(int) (ticks & (BUCKETS - 1))], expired);
+      }
+    }
+  }
+
+  private void expireBucket(Timer<T> sentinel, Consumer<T> expired) {
+    Timer<T> timer = sentinel.next;
+    sentinel.previous = sentinel;
+    sentinel.next = sentinel;
+    while (timer != sentinel) {
+      Timer<T> next = timer.next;
+      timer.previous = null;
+      timer.next = null;
+      if (timer.deadline - nanos <= 0) {
+        expired.accept(timer.item);
+      } else {
+        link(findBucket(timer.deadline), timer);
+      }
+      timer = next;
+    }
+  }
+
+  private Timer<T> findBucket(long deadline) {
+    long duration = Math.max(deadline - nanos, 0);
+    long time = nanos + duration; // overdue timers go into the current bucket
+    int last = SHIFTS.length - 1;
+    for (int level = 0; level < last; level++) {
+      if (duration < 1L << SHIFTS[level + 1]) {
+        return wheel[level][(int) ((time >>> SHIFTS[level]) & (BUCKETS - 1))];
+      }
+    }
+    return wheel[last][(int) ((time >>> SHIFTS[last]) & (BUCKETS - 1))];
+  }
+
+  private static <T> void link(Timer<T> sentinel, Timer<T> timer) {
+    timer.previous = sentinel.previous;
+    timer.next = sentinel;
+    sentinel.previous.next = timer;
+    sentinel.previous = timer;
+  }
+
+  private static <T> void unlink(Timer<T> timer) {
+    if (timer.next != null) {
+      timer.previous.next = timer.next;
+      timer.next.previous = timer.previous;
+      timer.previous = null;
+      timer.next = null;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ *
+ * Contract shared by the cache implementations that can back the {@link CacheStore}. The cache
+ * keeps user accounts keyed by user ID and knows which entry it would evict next.
+ *
+ */
+public interface UserAccountCache {
+
+  /**
+   * Get user account, or null if it is not cached
+   */
+  UserAccount get(String userId);
+
+  /**
+   * Set user account
+   */
+  void set(String userId, UserAccount userAccount);
+
+  boolean contains(String userId);
+
+  /**
+   * Invalidate cache for user
+   */
+  void invalidate(String userId);
+
+  boolean isFull();
+
+  /**
+   * Returns the user account that would be evicted next.
+   */
+  UserAccount getLruData();
+
+  /**
+   * Clear cache
+   */
+  void clear();
+
+  /**
+   * Returns cache data in list form, most-recently-used first.
+   */
+  List<UserAccount> getCacheDataInListForm();
+
+  /**
+   * Set cache capacity
+   */
+  void setCapacity(int newCapacity);
+
+  /**
+   * Returns the number of entries evicted to make room since the cache was created.
+   */
+  long getEvictionCount();
+
+  /**
+   * Sets the listener receiving every entry evicted to make room. Invalidated and expired entries
+   * are not passed to it.
+   */
+  void setEvictionListener(Consumer<UserAccount> evictionListener);
+}
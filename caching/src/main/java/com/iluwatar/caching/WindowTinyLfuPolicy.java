@@ -0,0 +1,154 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ *
+ * Window TinyLFU eviction (the policy used by Caffeine). New entries go into a small LRU admission
+ * window (1% of the capacity). Entries leaving the window become candidates for the main region,
+ * a segmented LRU split into probation and protected (80%) segments. A candidate is only admitted
+ * if the {@link CountMinSketch} estimates it to be accessed more often than the probation victim
+ * it would replace, which keeps the hot set safe from scans of entries read only once.
+ *
+ */
+public class WindowTinyLfuPolicy implements EvictionPolicy {
+
+  private final LinkedHashSet<String> window = new LinkedHashSet<>();
+  private final LinkedHashSet<String> probation = new LinkedHashSet<>();
+  private final LinkedHashSet<String> protectedSegment = new LinkedHashSet<>();
+  private CountMinSketch sketch = new CountMinSketch(0);
+  private int windowCapacity = 1;
+  private int protectedCapacity;
+
+  @Override
+  public void recordAccess(String userId) {
+    sketch.increment(userId);
+    if (window.remove(userId)) {
+      window.add(userId);
+    } else if (probation.remove(userId)) {
+      protectedSegment.add(userId);
+      demoteProtectedOverflow();
+    } else if (protectedSegment.remove(userId)) {
+      protectedSegment.add(userId);
+    }
+  }
+
+  @Override
+  public void recordInsertion(String userId) {
+    recordRemoval(userId);
+    sketch.increment(userId);
+    window.add(userId);
+    while (window.size() > windowCapacity) {
+      probation.add(removeEldest(window));
+    }
+  }
+
+  @Override
+  public void recordRemoval(String userId) {
+    if (!window.remove(userId) && !probation.remove(userId)) {
+      protectedSegment.remove(userId);
+    }
+  }
+
+  /**
+   * When the window is full, the candidate leaving it competes with the main region's victim and
+   * the less frequently used of the two is evicted.
+   */
+  @Override
+  public String victim() {
+    String mainVictim = mainVictim();
+    if (window.isEmpty()) {
+      return mainVictim;
+    }
+    String candidate = window.iterator().next();
+    if (mainVictim == null) {
+      return candidate;
+    }
+    if (window.size() < windowCapacity) {
+      return mainVictim;
+    }
+    return sketch.frequency(candidate) > sketch.frequency(mainVictim) ? mainVictim : candidate;
+  }
+
+  @Override
+  public List<String> keys() {
+    List<String> keys = new ArrayList<>(window.size() + probation.size() + protectedSegment.size());
+    addMostRecentFirst(keys, protectedSegment);
+    addMostRecentFirst(keys, window);
+    addMostRecentFirst(keys, probation);
+    return keys;
+  }
+
+  /**
+   * Resizes the segments. The frequency history is dropped since the sketch is sized for the cache.
+   */
+  @Override
+  public void setCapacity(int capacity) {
+    windowCapacity = Math.max(1, capacity / 100);
+    protectedCapacity = (capacity - windowCapacity) * 8 / 10;
+    sketch = new CountMinSketch(capacity);
+    while (window.size() > windowCapacity) {
+      probation.add(removeEldest(window));
+    }
+    demoteProtectedOverflow();
+  }
+
+  @Override
+  public void clear() {
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+  }
+
+  private String mainVictim() {
+    if (!probation.isEmpty()) {
+      return probation.iterator().next();
+    }
+    return protectedSegment.isEmpty() ? null : protectedSegment.iterator().next();
+  }
+
+  private void demoteProtectedOverflow() {
+    while (protectedSegment.size() > protectedCapacity) {
+      probation.add(removeEldest(protectedSegment));
+    }
+  }
+
+  private static String removeEldest(LinkedHashSet<String> segment) {
+    Iterator<String> iterator = segment.iterator();
+    String eldest = iterator.next();
+    iterator.remove();
+    return eldest;
+  }
+
+  private static void addMostRecentFirst(List<String> keys, LinkedHashSet<String> segment) {
+    List<String> segmentKeys = new ArrayList<>(segment);
+    Collections.reverse(segmentKeys);
+    keys.addAll(segmentKeys);
+  }
+}
@@ -0,0 +1,278 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ *
+ * Write-behind engine used by the {@link CacheStore}. Dirty user accounts are put into a coalescing
+ * queue keyed by user ID, so a hot account that changes repeatedly is written only once per flush.
+ * A background flusher drains the queue as a single bulk write whenever it holds a batch worth of
+ * entries or when the flush interval has elapsed. Producers block while the queue, including the
+ * batch being written, is at its maximum size (backpressure), and {@link #flush()} acts as a barrier
+ * that returns once everything enqueued before the call has been written. A failed bulk write is
+ * put back into the queue and retried by the flusher after the flush interval.
+ *
+ */
+public class WriteBehindQueue {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+  private final Consumer<List<UserAccount>> writer;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final int maxPending;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+  private final Condition flushRequested = lock.newCondition();
+  private final Condition flushed = lock.newCondition();
+
+  private Map<String, UserAccount> pending = new LinkedHashMap<>();
+  private Map<String, UserAccount> inFlight = new LinkedHashMap<>();
+  private long enqueuedCount;
+  private long flushedCount;
+  private long failedCount;
+  private RuntimeException lastFailure;
+  private boolean flushForced;
+  private boolean flushAwaited;
+  private boolean backingOff;
+  private boolean running;
+  private Thread flusher;
+
+  /**
+   * Constructor
+   *
+   * @param writer bulk writer receiving each batch of dirty user accounts
+   * @param batchSize number of dirty entries that triggers a flush
+   * @param flushIntervalMillis maximum time a dirty entry waits before being flushed
+   * @param maxPending number of dirty entries, including the ones being written, at which producers
+   *     are blocked
+   */
+  public WriteBehindQueue(Consumer<List<UserAccount>> writer, int batchSize,
+      long flushIntervalMillis, int maxPending) {
+    this.writer = writer;
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.maxPending = Math.max(maxPending, batchSize);
+  }
+
+  /**
+   * Marks the user account as dirty. A newer version of an already queued account replaces the
+   * older one. Blocks while the queue is full.
+   */
+  public void enqueue(UserAccount userAccount) {
+    lock.lock();
+    try {
+      startFlusherIfNeeded();
+      while (pending.size() + inFlight.size() >= maxPending
+          && !pending.containsKey(userAccount.getUserId())) {
+        flushForced = true;
+        flushRequested.signal();
+        notFull.awaitUninterruptibly();
+      }
+      pending.put(userAccount.getUserId(), userAccount);
+      enqueuedCount++;
+      if (pending.size() >= batchSize) {
+        flushRequested.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the queued version of the user account that has not yet reached the DB, or null.
+   */
+  public UserAccount getPending(String userId) {
+    lock.lock();
+    try {
+      UserAccount userAccount = pending.get(userId);
+      return userAccount != null ? userAccount : inFlight.get(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of dirty entries waiting to be written.
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return pending.size() + inFlight.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Flush barrier: triggers a flush and waits until every entry enqueued before the call is written.
+   *
+   * @throws IllegalStateException if a bulk write fails meanwhile, the entries stay queued and are
+   *     retried by the background flusher
+   */
+  public void flush() {
+    lock.lock();
+    try {
+      long target = enqueuedCount;
+      long failures = failedCount;
+      while (flushedCount < target) {
+        startFlusherIfNeeded();
+        flushForced = true;
+        flushAwaited = true;
+        flushRequested.signal();
+        flushed.awaitUninterruptibly();
+        if (failedCount != failures) {
+          throw new IllegalStateException("Write-behind flush failed", lastFailure);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Flushes the remaining entries and stops the background flusher. The flusher is stopped even if
+   * the flush fails, in which case the entries still queued are not written.
+   *
+   * @throws IllegalStateException if the final flush fails
+   */
+  public void shutdown() {
+    try {
+      flush();
+    } finally {
+      stopFlusher();
+    }
+  }
+
+  private void stopFlusher() {
+    Thread toJoin;
+    lock.lock();
+    try {
+      running = false;
+      toJoin = flusher;
+      flusher = null;
+      flushRequested.signal();
+    } finally {
+      lock.unlock();
+    }
+    if (toJoin != null) {
+      try {
+        toJoin.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void startFlusherIfNeeded() {
+    if (flusher == null) {
+      running = true;
+      flusher = new Thread(this::runFlusher, "write-behind-flusher");
+      flusher.setDaemon(true);
+      flusher.start();
+    }
+  }
+
+  private void runFlusher() {
+    lock.lock();
+    try {
+      while (running) {
+        /*
+         * After a failed write the flusher waits a whole interval before retrying, so that it does
+         * not hammer a DB which is down. Only a caller waiting in flush() cuts the wait short.
+         */
+        long remaining = flushIntervalNanos;
+        while (running && !flushAwaited && remaining > 0
+            && (backingOff || !flushForced && pending.size() < batchSize)) {
+          try {
+            remaining = flushRequested.awaitNanos(remaining);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        writeBatch();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes the current dirty set as one bulk write. Must be called holding the lock; the lock is
+   * released while the writer runs so that producers are not blocked by the DB round-trip.
+   */
+  private void writeBatch() {
+    flushForced = false;
+    flushAwaited = false;
+    if (pending.isEmpty()) {
+      flushedCount = enqueuedCount;
+      flushed.signalAll();
+      return;
+    }
+    long target = enqueuedCount;
+    inFlight = pending;
+    pending = new LinkedHashMap<>();
+    List<UserAccount> batch = new ArrayList<>(inFlight.values());
+    boolean written = false;
+    lock.unlock();
+    try {
+      writer.accept(batch);
+      written = true;
+    } catch (RuntimeException e) {
+      LOGGER.error("# Write-behind flush of {} entries failed, will retry", batch.size(), e);
+      lastFailure = e;
+    } finally {
+      lock.lock();
+    }
+    // a flush which came in during the write sees its outcome and asks again if it needs more
+    flushAwaited = false;
+    backingOff = !written;
+    if (written) {
+      flushedCount = target;
+      flushed.signalAll();
+      notFull.signalAll();
+    } else {
+      for (UserAccount userAccount : batch) {
+        pending.putIfAbsent(userAccount.getUserId(), userAccount);
+      }
+      // let waiting flushes report the failure instead of waiting for the DB to come back
+      failedCount++;
+      flushed.signalAll();
+    }
+    inFlight = new LinkedHashMap<>();
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link CacheStore} statistics
+ */
+public class CacheStatsTest {
+
+  @BeforeEach
+  public void setUp() {
+    AppManager.initDb(false);
+    AppManager.initCacheCapacity(3);
+    AppManager.initCachingPolicy(CachingPolicy.THROUGH);
+  }
+
+  @Test
+  public void testRecordsHitsMissesAndLoads() {
+    CacheStats before = CacheStore.stats();
+    AppManager.save(new UserAccount("001", "John", "He is a boy."));
+    CacheStore.invalidate("001");
+    AppManager.find("001");
+    AppManager.find("001");
+    AppManager.find("001");
+    CacheStats after = CacheStore.stats();
+
+    assertEquals(2, after.getHitCount() - before.getHitCount());
+    assertEquals(1, after.getMissCount() - before.getMissCount());
+    assertEquals(1, after.getLoadCount() - before.getLoadCount());
+    assertTrue(after.getLoadLatencyPercentileMicros(99) > 0);
+  }
+
+  @Test
+  public void testLatencyHistogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(3_000); // 3 microseconds
+    }
+    histogram.record(5_000_000); // 5 milliseconds
+    long[] snapshot = histogram.snapshot();
+
+    assertEquals(4, LatencyHistogram.percentileMicros(snapshot, 50));
+    assertEquals(4, LatencyHistogram.percentileMicros(snapshot, 99));
+    assertEquals(8192, LatencyHistogram.percentileMicros(snapshot, 100));
+  }
+
+  @Test
+  public void testExposedThroughJmx() throws Exception {
+    CacheStatsMonitor.register();
+    CacheStatsMonitor.register();
+    Object hitRate = ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(new ObjectName(CacheStatsMonitor.OBJECT_NAME), "HitRate");
+    assertTrue(hitRate instanceof Double);
+  }
+}
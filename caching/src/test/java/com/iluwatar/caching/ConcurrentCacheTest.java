@@ -0,0 +1,118 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ConcurrentCache}
+ */
+public class ConcurrentCacheTest {
+
+  private static UserAccount account(String userId) {
+    return new UserAccount(userId, "name" + userId, "info" + userId);
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    ConcurrentCache cache = new ConcurrentCache(3);
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    cache.set("003", account("003"));
+    cache.get("001");
+
+    assertEquals("002", cache.getLruData().getUserId());
+    cache.set("004", account("004"));
+
+    assertFalse(cache.contains("002"));
+    assertTrue(cache.contains("001"));
+    List<UserAccount> content = cache.getCacheDataInListForm();
+    assertEquals(3, content.size());
+    assertEquals("004", content.get(0).getUserId());
+    assertEquals("003", content.get(2).getUserId());
+  }
+
+  @Test
+  public void testShrinkingCapacityEvictsDownToNewSize() {
+    ConcurrentCache cache = new ConcurrentCache(4);
+    for (int i = 1; i <= 4; i++) {
+      cache.set("00" + i, account("00" + i));
+    }
+    cache.setCapacity(2);
+
+    assertEquals(2, cache.getCacheDataInListForm().size());
+    assertTrue(cache.contains("004"));
+    assertTrue(cache.contains("003"));
+  }
+
+  @Test
+  public void testInvalidateAndClear() {
+    ConcurrentCache cache = new ConcurrentCache(2);
+    cache.set("001", account("001"));
+    cache.invalidate("001");
+    assertNull(cache.get("001"));
+
+    cache.set("002", account("002"));
+    cache.clear();
+    assertTrue(cache.getCacheDataInListForm().isEmpty());
+    assertNull(cache.getLruData());
+  }
+
+  @Test
+  public void testConcurrentAccessKeepsCapacity() throws Exception {
+    int capacity = 50;
+    ConcurrentCache cache = new ConcurrentCache(capacity);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int t = 0; t < 8; t++) {
+      final int seed = t;
+      executor.submit(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          String userId = String.valueOf((i * 31 + seed) % 200);
+          if (i % 3 == 0) {
+            cache.set(userId, account(userId));
+          } else {
+            cache.get(userId);
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    List<UserAccount> content = cache.getCacheDataInListForm();
+    assertEquals(capacity, content.size());
+    for (UserAccount userAccount : content) {
+      assertEquals(userAccount, cache.get(userAccount.getUserId()));
+    }
+  }
+}
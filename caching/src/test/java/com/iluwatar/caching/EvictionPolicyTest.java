@@ -0,0 +1,125 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link EvictionPolicy} implementations used through {@link ConcurrentCache}
+ */
+public class EvictionPolicyTest {
+
+  private static UserAccount account(String userId) {
+    return new UserAccount(userId, "name" + userId, "info" + userId);
+  }
+
+  /**
+   * Fills the cache with a hot set that is read repeatedly and then runs a scan of one-off reads.
+   * Returns the number of hot entries that survived the scan.
+   */
+  private static int hotEntriesSurvivingScan(EvictionPolicy evictionPolicy) {
+    ConcurrentCache cache = new ConcurrentCache(100, evictionPolicy);
+    for (int i = 0; i < 50; i++) {
+      cache.set("hot" + i, account("hot" + i));
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 50; i++) {
+        cache.get("hot" + i);
+      }
+    }
+    for (int i = 0; i < 1000; i++) {
+      cache.set("scan" + i, account("scan" + i));
+    }
+    int survivors = 0;
+    for (int i = 0; i < 50; i++) {
+      if (cache.contains("hot" + i)) {
+        survivors++;
+      }
+    }
+    return survivors;
+  }
+
+  @Test
+  public void testLruIsFlushedByScan() {
+    assertEquals(0, hotEntriesSurvivingScan(new LruPolicy()));
+  }
+
+  @Test
+  public void testLfuKeepsHotSetDuringScan() {
+    assertEquals(50, hotEntriesSurvivingScan(new LfuPolicy()));
+  }
+
+  @Test
+  public void testArcKeepsHotSetDuringScan() {
+    assertEquals(50, hotEntriesSurvivingScan(new ArcPolicy()));
+  }
+
+  @Test
+  public void testWindowTinyLfuKeepsHotSetDuringScan() {
+    assertEquals(50, hotEntriesSurvivingScan(new WindowTinyLfuPolicy()));
+  }
+
+  @Test
+  public void testLfuEvictsLeastFrequentlyUsed() {
+    ConcurrentCache cache = new ConcurrentCache(2, new LfuPolicy());
+    cache.set("001", account("001"));
+    cache.set("002", account("002"));
+    cache.get("001");
+    cache.get("001");
+    cache.getCacheDataInListForm(); // replays the buffered reads
+
+    assertEquals("002", cache.getLruData().getUserId());
+    cache.set("003", account("003"));
+    assertTrue(cache.contains("001"));
+    assertFalse(cache.contains("002"));
+  }
+
+  @Test
+  public void testShrinkingCapacityEvictsIncrementally() {
+    for (EvictionPolicy evictionPolicy : new EvictionPolicy[] {new LruPolicy(), new LfuPolicy(),
+        new ArcPolicy(), new WindowTinyLfuPolicy()}) {
+      ConcurrentCache cache = new ConcurrentCache(10, evictionPolicy);
+      for (int i = 0; i < 10; i++) {
+        cache.set(String.valueOf(i), account(String.valueOf(i)));
+      }
+      cache.setCapacity(4);
+      assertEquals(4, cache.getCacheDataInListForm().size());
+    }
+  }
+
+  @Test
+  public void testLruCacheShrinksIncrementally() {
+    LruCache cache = new LruCache(4);
+    for (int i = 0; i < 4; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i)));
+    }
+    cache.setCapacity(2);
+    assertEquals(2, cache.getCacheDataInListForm().size());
+    assertTrue(cache.contains("3"));
+    assertTrue(cache.isFull());
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the time-based expiry and refresh of {@link ConcurrentCache}
+ */
+public class ExpiryTest {
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private static UserAccount account(String userId, String userName) {
+    return new UserAccount(userId, userName, "info");
+  }
+
+  @Test
+  public void testExpireAfterWrite() {
+    Expiry expiry = new Expiry(10, 0, 0, TimeUnit.SECONDS);
+    ConcurrentCache cache = new ConcurrentCache(10, new LruPolicy(), expiry, null, Runnable::run,
+        nanos::get);
+    cache.set("001", account("001", "John"));
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    assertEquals("John", cache.get("001").getUserName());
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertNull(cache.get("001"));
+    assertFalse(cache.contains("001"));
+  }
+
+  @Test
+  public void testExpireAfterAccess() {
+    Expiry expiry = new Expiry(0, 10, 0, TimeUnit.SECONDS);
+    ConcurrentCache cache = new ConcurrentCache(10, new LruPolicy(), expiry, null, Runnable::run,
+        nanos::get);
+    cache.set("001", account("001", "John"));
+    for (int i = 0; i < 5; i++) {
+      nanos.addAndGet(TimeUnit.SECONDS.toNanos(8));
+      assertTrue(cache.contains("001"));
+      cache.get("001");
+    }
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertNull(cache.get("001"));
+  }
+
+  @Test
+  public void testTimerWheelRemovesExpiredEntries() {
+    Expiry expiry = new Expiry(5, 0, 0, TimeUnit.MINUTES);
+    ConcurrentCache cache = new ConcurrentCache(10, new LruPolicy(), expiry, null, Runnable::run,
+        nanos::get);
+    for (int i = 0; i < 5; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i), "name"));
+    }
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(3));
+    cache.set("5", account("5", "name"));
+
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(3));
+    cache.set("6", account("6", "name"));
+    assertEquals(2, cache.getCacheDataInListForm().size());
+    assertEquals(5, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testRefreshServesStaleValueWhileReloading() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch reloaded = new CountDownLatch(1);
+    Expiry expiry = new Expiry(0, 0, 1, TimeUnit.SECONDS);
+    AtomicInteger refreshes = new AtomicInteger();
+    Executor refreshExecutor = task -> {
+      refreshes.incrementAndGet();
+      new Thread(task).start();
+    };
+    ConcurrentCache cache = new ConcurrentCache(10, new LruPolicy(), expiry, userId -> {
+      loads.incrementAndGet();
+      reloaded.countDown();
+      return account(userId, "John G.");
+    }, refreshExecutor, nanos::get);
+    cache.set("001", account("001", "John"));
+
+    assertEquals("John", cache.get("001").getUserName());
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    assertEquals("John", cache.get("001").getUserName());
+
+    assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!"John G.".equals(cache.get("001").getUserName())
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals("John G.", cache.get("001").getUserName());
+    assertEquals(1, loads.get());
+    assertEquals(1, refreshes.get());
+  }
+}
@@ -0,0 +1,148 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link OffHeapStore} and its use as second tier of the {@link CacheStore}
+ */
+public class OffHeapStoreTest {
+
+  private static final int CAPACITY = 256 * 1024;
+
+  @AfterEach
+  public void tearDown() {
+    CacheStore.initOffHeapTier(null);
+  }
+
+  @Test
+  public void testStoresAndRemovesRecords() {
+    OffHeapStore store = OffHeapStore.allocateDirect(CAPACITY);
+    store.put(new UserAccount("001", "John", null));
+    store.put(new UserAccount("002", "Jane", "She is a girl."));
+    store.put(new UserAccount("001", "John G.", "He is a boy."));
+
+    assertEquals(2, store.size());
+    UserAccount john = store.get("001");
+    assertEquals("John G.", john.getUserName());
+    assertEquals("He is a boy.", john.getAdditionalInfo());
+    assertEquals("Jane", store.remove("002").getUserName());
+    assertFalse(store.contains("002"));
+  }
+
+  @Test
+  public void testDropsOldestRecordWhenFull() {
+    OffHeapStore store = OffHeapStore.allocateDirect(CAPACITY);
+    int records = 3 * 64 * 1024 / 64 + 10; // three data slabs of 64 byte slots, plus ten
+    for (int i = 0; i < records; i++) {
+      assertTrue(store.put(new UserAccount(String.valueOf(i), "n", "i")));
+    }
+    assertEquals(records - 10, store.size());
+    assertNull(store.get("0"));
+    assertEquals("n", store.get(String.valueOf(records - 1)).getUserName());
+  }
+
+  @Test
+  public void testFileBackedStoreSurvivesRestart() throws Exception {
+    Path file = Files.createTempFile("offheap", ".cache");
+    try {
+      OffHeapStore store = OffHeapStore.mapFile(file, CAPACITY);
+      for (int i = 0; i < 100; i++) {
+        store.put(new UserAccount(String.valueOf(i), "name" + i, "info" + i));
+      }
+      store.remove("42");
+      store.close();
+
+      OffHeapStore reopened = OffHeapStore.mapFile(file, CAPACITY);
+      assertEquals(99, reopened.size());
+      assertEquals("name7", reopened.get("7").getUserName());
+      assertNull(reopened.get("42"));
+      reopened.close();
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testRecoveryKeepsTheCopyWrittenLast() throws Exception {
+    Path file = Files.createTempFile("offheap", ".cache");
+    try {
+      OffHeapStore store = OffHeapStore.mapFile(file, CAPACITY);
+      store.put(new UserAccount("002", "Jane", null)); // assigns the first slab to small records
+      StringBuilder info = new StringBuilder();
+      for (int i = 0; i < 200; i++) {
+        info.append('x');
+      }
+      store.put(new UserAccount("001", "John", info.toString())); // first slot of the next slab
+      store.put(new UserAccount("001", "John", "new"));
+      store.close();
+
+      // a crash before the old copy was freed leaves it in a slab scanned after the new one
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        ByteBuffer length = ByteBuffer.allocate(4).putInt(6 + 3 + 4 + 200);
+        length.flip();
+        channel.write(length, 2 * 64 * 1024);
+      }
+
+      OffHeapStore reopened = OffHeapStore.mapFile(file, CAPACITY);
+      assertEquals(2, reopened.size());
+      assertEquals("new", reopened.get("001").getAdditionalInfo());
+      reopened.close();
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testCacheStoreDemotesEvictedEntries() {
+    AppManager.initDb(false);
+    AppManager.initCacheCapacity(3);
+    AppManager.initCachingPolicy(CachingPolicy.THROUGH);
+    OffHeapStore store = OffHeapStore.allocateDirect(CAPACITY);
+    CacheStore.initOffHeapTier(store);
+
+    for (int i = 1; i <= 4; i++) {
+      AppManager.save(new UserAccount("00" + i, "name" + i, "info"));
+    }
+    assertTrue(store.contains("001"));
+
+    CacheStats before = CacheStore.stats();
+    assertEquals("name1", AppManager.find("001").getUserName());
+    assertEquals(before.getLoadCount(), CacheStore.stats().getLoadCount());
+    assertFalse(store.contains("001"));
+    assertTrue(store.contains("002"));
+  }
+}
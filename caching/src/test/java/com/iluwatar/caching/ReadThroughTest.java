@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the single-flight and bulk loads of the {@link CacheStore}
+ */
+public class ReadThroughTest {
+
+  @BeforeEach
+  public void setUp() {
+    AppManager.initDb(false);
+    AppManager.initConcurrentCacheCapacity(10);
+    AppManager.initCachingPolicy(CachingPolicy.AROUND);
+  }
+
+  @Test
+  public void testConcurrentMissWaitsForLoadInFlight() throws Exception {
+    CompletableFuture<UserAccount> inFlight = new CompletableFuture<>();
+    CacheStore.IN_FLIGHT_LOADS.put("001", inFlight);
+    try {
+      long loads = CacheStore.stats().getLoadCount();
+      CompletableFuture<UserAccount> reader =
+          CompletableFuture.supplyAsync(() -> CacheStore.readThrough("001"));
+      Thread.sleep(100);
+      assertFalse(reader.isDone());
+
+      inFlight.complete(new UserAccount("001", "John", "He is a boy."));
+      assertEquals("John", reader.get(5, TimeUnit.SECONDS).getUserName());
+      assertEquals(loads, CacheStore.stats().getLoadCount());
+    } finally {
+      CacheStore.IN_FLIGHT_LOADS.remove("001");
+    }
+  }
+
+  @Test
+  public void testReadThroughAllLoadsMissesInOneQuery() {
+    for (int i = 1; i <= 5; i++) {
+      AppManager.save(new UserAccount("00" + i, "name" + i, "info"));
+    }
+    AppManager.find("001");
+
+    long loads = CacheStore.stats().getLoadCount();
+    Map<String, UserAccount> userAccounts =
+        AppManager.findAll(Arrays.asList("001", "002", "003", "004", "005", "999"));
+
+    assertEquals(5, userAccounts.size());
+    assertEquals("name4", userAccounts.get("004").getUserName());
+    assertFalse(userAccounts.containsKey("999"));
+    assertEquals(loads + 1, CacheStore.stats().getLoadCount());
+    assertTrue(CacheStore.IN_FLIGHT_LOADS.isEmpty());
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WriteBehindQueue}
+ */
+public class WriteBehindQueueTest {
+
+  private final List<List<UserAccount>> batches = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  public void testCoalescesHotKeysIntoOneBulkWrite() {
+    WriteBehindQueue queue = new WriteBehindQueue(batches::add, 100, 60_000, 1000);
+    for (int i = 0; i < 10; i++) {
+      queue.enqueue(new UserAccount("001", "John " + i, "He is a boy."));
+    }
+    queue.enqueue(new UserAccount("002", "Jane", "She is a girl."));
+    assertEquals("John 9", queue.getPending("001").getUserName());
+
+    queue.flush();
+
+    assertEquals(1, batches.size());
+    assertEquals(2, batches.get(0).size());
+    assertEquals("John 9", batches.get(0).get(0).getUserName());
+    assertNull(queue.getPending("001"));
+    queue.shutdown();
+  }
+
+  @Test
+  public void testFlushesWhenBatchSizeIsReached() throws Exception {
+    WriteBehindQueue queue = new WriteBehindQueue(batches::add, 2, 60_000, 1000);
+    queue.enqueue(new UserAccount("001", "John", "He is a boy."));
+    queue.enqueue(new UserAccount("002", "Jane", "She is a girl."));
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, batches.size());
+    assertEquals(0, queue.size());
+    queue.shutdown();
+  }
+
+  @Test
+  public void testBackpressureDoesNotLoseWrites() {
+    WriteBehindQueue queue = new WriteBehindQueue(batches::add, 4, 60_000, 4);
+    for (int i = 0; i < 50; i++) {
+      queue.enqueue(new UserAccount(String.valueOf(i), "name", "info"));
+    }
+    queue.shutdown();
+
+    int written = 0;
+    for (List<UserAccount> batch : batches) {
+      written += batch.size();
+    }
+    assertEquals(50, written);
+  }
+
+  @Test
+  public void testFailedWriteIsRetriedAfterTheFlushInterval() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    WriteBehindQueue queue = new WriteBehindQueue(batch -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("DB is down");
+    }, 1, 500, 4);
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < 8; i++) {
+        queue.enqueue(new UserAccount(String.valueOf(i), "name", "info"));
+      }
+    });
+    producer.setDaemon(true);
+    producer.start();
+    Thread.sleep(300);
+
+    // the first write and at most one retry, not a retry as soon as the write fails
+    assertTrue(attempts.get() <= 2, attempts + " attempts");
+    // the failed entries count against the bound, the producer stays blocked
+    assertEquals(4, queue.size());
+    assertTrue(producer.isAlive());
+    assertThrows(IllegalStateException.class, queue::shutdown);
+  }
+
+  @Test
+  public void testConcurrentWritersDoNotLoseEvictedEntries() throws Exception {
+    AppManager.initDb(false);
+    AppManager.initConcurrentCacheCapacity(4);
+    AppManager.initCachingPolicy(CachingPolicy.BEHIND);
+    int threads = 8;
+    int usersPerThread = 500;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        writers.add(executor.submit(() -> {
+          for (int i = 0; i < usersPerThread; i++) {
+            AppManager.save(new UserAccount(thread + "-" + i, "name", "info"));
+          }
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    CacheStore.flushCache();
+
+    for (int t = 0; t < threads; t++) {
+      for (int i = 0; i < usersPerThread; i++) {
+        assertNotNull(DbManager.readFromDb(t + "-" + i), t + "-" + i);
+      }
+    }
+  }
+
+  @Test
+  public void testFlushReportsFailingWriter() {
+    RuntimeException failure = new IllegalStateException("DB is down");
+    WriteBehindQueue queue = new WriteBehindQueue(batch -> {
+      throw failure;
+    }, 100, 60_000, 1000);
+    queue.enqueue(new UserAccount("001", "John", "He is a boy."));
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, queue::flush);
+    assertSame(failure, e.getCause());
+    assertEquals(1, queue.size());
+    assertThrows(IllegalStateException.class, queue::shutdown);
+  }
+}
@@ -33,7 +33,8 @@ import org.slf4j.LoggerFactory;
 /**
  * This is the Account class that holds the account info, the account number,
  * account owner name and money of the account. Account class also have the business logic of events
- * that effects this account.
+ * that effects this account. The business logic never modifies a stored account, it stores an
+ * updated account instead.
  *
  * Created by Serdar Hamzaogullari on 06.08.2017.
  */
@@ -44,6 +45,7 @@ public class Account {
   private final int accountNo;
   private final String owner;
   private BigDecimal money;
+  private boolean readOnly;
 
   /**
    * Instantiates a new Account.
@@ -90,12 +92,32 @@ public class Account {
    * @param money the money
    */
   public void setMoney(BigDecimal money) {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Stored account is read only, copy it to modify");
+    }
     this.money = money;
   }
 
+  /**
+   * Makes the account read only. The accounts are made read only when they are stored, so that
+   * they can be shared with the readers without copying.
+   */
+  public void freeze() {
+    readOnly = true;
+  }
+
+  /**
+   * Is read only boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
 
   /**
-   * Copy account.
+   * Copy account. The copy is never read only.
    *
    * @return the account
    */
@@ -114,17 +136,14 @@ public class Account {
         + '}';
   }
 
-  private void depositMoney(BigDecimal money) {
-    this.money = this.money.add(money);
-  }
-
-  private void withdrawMoney(BigDecimal money) {
-    this.money = this.money.subtract(money);
+  private Account withMoney(BigDecimal money) {
+    Account account = new Account(accountNo, owner);
+    account.money = money;
+    return account;
   }
 
   private void handleDeposit(BigDecimal money, boolean realTime) {
-    depositMoney(money);
-    AccountAggregate.putAccount(this);
+    AccountAggregate.putAccount(withMoney(this.money.add(money)));
     if (realTime) {
       LOGGER.info("Some external api for only realtime execution could be called here.");
     }
@@ -135,8 +154,7 @@ public class Account {
       throw new RuntimeException("Insufficient Account Balance");
     }
 
-    withdrawMoney(money);
-    AccountAggregate.putAccount(this);
+    AccountAggregate.putAccount(withMoney(this.money.subtract(money)));
     if (realTime) {
       LOGGER.info("Some external api for only realtime execution could be called here.");
     }
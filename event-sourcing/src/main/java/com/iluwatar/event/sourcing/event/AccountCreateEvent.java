@@ -72,11 +72,11 @@ public class AccountCreateEvent extends DomainEvent {
 
   @Override
   public void process() {
-    Account account = AccountAggregate.getAccount(accountNo);
-    if (account != null) {
-      throw new RuntimeException("Account already exists");
-    }
-    account = new Account(accountNo, owner);
-    account.handleEvent(this);
+    AccountAggregate.withLock(accountNo, () -> {
+      if (AccountAggregate.getAccount(accountNo) != null) {
+        throw new RuntimeException("Account already exists");
+      }
+      new Account(accountNo, owner).handleEvent(this);
+    });
   }
 }
@@ -73,10 +73,12 @@ public class MoneyDepositEvent extends DomainEvent {
 
   @Override
   public void process() {
-    Account account = AccountAggregate.getAccount(accountNo);
-    if (account == null) {
-      throw new RuntimeException("Account not found");
-    }
-    account.handleEvent(this);
+    AccountAggregate.withLock(accountNo, () -> {
+      Account account = AccountAggregate.getAccount(accountNo);
+      if (account == null) {
+        throw new RuntimeException("Account not found");
+      }
+      account.handleEvent(this);
+    });
   }
 }
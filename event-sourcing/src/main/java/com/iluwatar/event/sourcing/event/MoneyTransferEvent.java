@@ -86,16 +86,18 @@ public class MoneyTransferEvent extends DomainEvent {
 
   @Override
   public void process() {
-    Account accountFrom = AccountAggregate.getAccount(accountNoFrom);
-    if (accountFrom == null) {
-      throw new RuntimeException("Account not found " + accountNoFrom);
-    }
-    Account accountTo = AccountAggregate.getAccount(accountNoTo);
-    if (accountTo == null) {
-      throw new RuntimeException("Account not found " + accountNoTo);
-    }
+    AccountAggregate.withLock(accountNoFrom, accountNoTo, () -> {
+      Account accountFrom = AccountAggregate.getAccount(accountNoFrom);
+      if (accountFrom == null) {
+        throw new RuntimeException("Account not found " + accountNoFrom);
+      }
+      Account accountTo = AccountAggregate.getAccount(accountNoTo);
+      if (accountTo == null) {
+        throw new RuntimeException("Account not found " + accountNoTo);
+      }
 
-    accountFrom.handleTransferFromEvent(this);
-    accountTo.handleTransferToEvent(this);
+      accountFrom.handleTransferFromEvent(this);
+      accountTo.handleTransferToEvent(this);
+    });
   }
 }
@@ -0,0 +1,223 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This is the binary serializer of the domain events.
+ * Every event is written as a one byte type tag, the sequence id, the created time and the type
+ * specific body written by the {@link EventCodec} registered for the type. The codec is looked up
+ * by the class of the event when writing and by the tag when reading.
+ */
+public final class BinaryEventCodec {
+
+  /**
+   * The offset of the sequence id in an encoded event.
+   */
+  static final int SEQUENCE_ID_OFFSET = 1;
+
+  private static final int MAX_SHORT_LENGTH = 0xFFFF;
+
+  private final Map<Class<?>, Integer> tags = new HashMap<>();
+  private final EventCodec<?>[] codecs = new EventCodec<?>[256];
+
+  /**
+   * Creates a codec that knows the account events of this application.
+   *
+   * @return the codec
+   */
+  public static BinaryEventCodec defaultCodec() {
+    BinaryEventCodec codec = new BinaryEventCodec();
+    codec.register(1, AccountCreateEvent.class, new AccountCreateCodec());
+    codec.register(2, MoneyDepositEvent.class, new MoneyDepositCodec());
+    codec.register(3, MoneyTransferEvent.class, new MoneyTransferCodec());
+    return codec;
+  }
+
+  /**
+   * Registers the codec of an event type.
+   *
+   * @param tag the type tag written in front of the events, between 0 and 255
+   * @param type the type of the events
+   * @param codec the codec of the events
+   * @param <E> the type of the events
+   */
+  public <E extends DomainEvent> void register(int tag, Class<E> type, EventCodec<E> codec) {
+    if (tag < 0 || tag >= codecs.length) {
+      throw new IllegalArgumentException("tag: " + tag);
+    }
+    if (codecs[tag] != null || tags.containsKey(type)) {
+      throw new IllegalArgumentException("Codec already registered for " + type.getSimpleName());
+    }
+    codecs[tag] = codec;
+    tags.put(type, tag);
+  }
+
+  /**
+   * Writes the event to the buffer.
+   *
+   * @param event the domain event
+   * @param buffer the buffer to write to
+   * @throws java.nio.BufferOverflowException if the event does not fit in the buffer
+   */
+  @SuppressWarnings("unchecked")
+  public void encode(DomainEvent event, ByteBuffer buffer) {
+    Integer tag = tags.get(event.getClass());
+    if (tag == null) {
+      throw new RuntimeException("Journal Event not recognized " + event.getClass().getName());
+    }
+    buffer.put(tag.byteValue());
+    buffer.putLong(event.getSequenceId());
+    buffer.putLong(event.getCreatedTime());
+    ((EventCodec<DomainEvent>) codecs[tag]).encode(event, buffer);
+  }
+
+  /**
+   * Reads an event from the buffer.
+   *
+   * @param buffer the buffer to read from
+   * @return the domain event
+   */
+  public DomainEvent decode(ByteBuffer buffer) {
+    int tag = buffer.get() & 0xFF;
+    EventCodec<?> codec = codecs[tag];
+    if (codec == null) {
+      throw new RuntimeException("Journal Event not recognized, tag " + tag);
+    }
+    long sequenceId = buffer.getLong();
+    long createdTime = buffer.getLong();
+    return codec.decode(sequenceId, createdTime, buffer);
+  }
+
+  /**
+   * Writes the string as UTF-8 bytes prefixed with their length.
+   *
+   * @param value the string
+   * @param buffer the buffer to write to
+   */
+  public static void putString(String value, ByteBuffer buffer) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_SHORT_LENGTH) {
+      throw new IllegalArgumentException("String is too long: " + bytes.length + " bytes");
+    }
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #putString(String, ByteBuffer)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the string
+   */
+  public static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getShort() & MAX_SHORT_LENGTH];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes the decimal as its scale followed by the two's complement bytes of its unscaled value.
+   *
+   * @param value the decimal
+   * @param buffer the buffer to write to
+   */
+  public static void putDecimal(BigDecimal value, ByteBuffer buffer) {
+    byte[] unscaled = value.unscaledValue().toByteArray();
+    if (unscaled.length > MAX_SHORT_LENGTH) {
+      throw new IllegalArgumentException("Decimal is too large");
+    }
+    buffer.putInt(value.scale());
+    buffer.putShort((short) unscaled.length);
+    buffer.put(unscaled);
+  }
+
+  /**
+   * Reads a decimal written by {@link #putDecimal(BigDecimal, ByteBuffer)}.
+   *
+   * @param buffer the buffer to read from
+   * @return the decimal
+   */
+  public static BigDecimal getDecimal(ByteBuffer buffer) {
+    int scale = buffer.getInt();
+    byte[] unscaled = new byte[buffer.getShort() & MAX_SHORT_LENGTH];
+    buffer.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+
+  private static class AccountCreateCodec implements EventCodec<AccountCreateEvent> {
+
+    @Override
+    public void encode(AccountCreateEvent event, ByteBuffer buffer) {
+      buffer.putInt(event.getAccountNo());
+      putString(event.getOwner(), buffer);
+    }
+
+    @Override
+    public AccountCreateEvent decode(long sequenceId, long createdTime, ByteBuffer buffer) {
+      return new AccountCreateEvent(sequenceId, createdTime, buffer.getInt(), getString(buffer));
+    }
+  }
+
+  private static class MoneyDepositCodec implements EventCodec<MoneyDepositEvent> {
+
+    @Override
+    public void encode(MoneyDepositEvent event, ByteBuffer buffer) {
+      buffer.putInt(event.getAccountNo());
+      putDecimal(event.getMoney(), buffer);
+    }
+
+    @Override
+    public MoneyDepositEvent decode(long sequenceId, long createdTime, ByteBuffer buffer) {
+      return new MoneyDepositEvent(sequenceId, createdTime, buffer.getInt(), getDecimal(buffer));
+    }
+  }
+
+  private static class MoneyTransferCodec implements EventCodec<MoneyTransferEvent> {
+
+    @Override
+    public void encode(MoneyTransferEvent event, ByteBuffer buffer) {
+      buffer.putInt(event.getAccountNoFrom());
+      buffer.putInt(event.getAccountNoTo());
+      putDecimal(event.getMoney(), buffer);
+    }
+
+    @Override
+    public MoneyTransferEvent decode(long sequenceId, long createdTime, ByteBuffer buffer) {
+      int accountNoFrom = buffer.getInt();
+      int accountNoTo = buffer.getInt();
+      return new MoneyTransferEvent(sequenceId, createdTime, getDecimal(buffer), accountNoFrom,
+          accountNoTo);
+    }
+  }
+}
@@ -23,47 +23,259 @@
 package com.iluwatar.event.sourcing.processor;
 
 import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This is the implementation of event processor.
  * All events are processed by this class.
  * This processor uses processorJournal to persist and recover events.
+ * With a {@link FsyncPolicy}, the events of concurrent callers are group committed by a
+ * {@link GroupCommitWriter} and each caller returns once its event is durable.
+ * With a {@link SnapshotStore}, the state is captured periodically and written in the background,
+ * and recovery replays only the events after the latest snapshot.
  *
  * Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class DomainEventProcessor {
 
-  private final JsonFileJournal processorJournal = new JsonFileJournal();
+  private static final Logger LOGGER = LoggerFactory.getLogger(DomainEventProcessor.class);
+
+  private final EventJournal processorJournal;
+  private final GroupCommitWriter writer;
+  private final SnapshotStore snapshotStore;
+  private final SnapshotPolicy snapshotPolicy;
+  private final ScheduledExecutorService snapshotExecutor;
+  private long lastSequenceId = -1;
+  private long lastTicket;
+  private long eventsSinceSnapshot;
+  private boolean snapshotPending;
+
+  /**
+   * Instantiates a new Domain event processor that uses a {@link JsonFileJournal}.
+   */
+  public DomainEventProcessor() {
+    this(new JsonFileJournal());
+  }
+
+  /**
+   * Instantiates a new Domain event processor.
+   *
+   * @param processorJournal the journal to persist and recover the events
+   */
+  public DomainEventProcessor(EventJournal processorJournal) {
+    this(processorJournal, null, null, null);
+  }
+
+  /**
+   * Instantiates a new Domain event processor that group commits the events.
+   *
+   * @param processorJournal the journal to persist and recover the events
+   * @param fsyncPolicy the policy of forcing the journal
+   */
+  public DomainEventProcessor(EventJournal processorJournal, FsyncPolicy fsyncPolicy) {
+    this(processorJournal, fsyncPolicy, null, null);
+  }
+
+  /**
+   * Instantiates a new Domain event processor that takes snapshots of the state.
+   *
+   * @param processorJournal the journal to persist and recover the events
+   * @param fsyncPolicy the policy of forcing the journal, or null to write the events directly
+   * @param snapshotStore the store of the snapshots, or null to not take snapshots
+   * @param snapshotPolicy the cadence of the snapshots
+   */
+  public DomainEventProcessor(EventJournal processorJournal, FsyncPolicy fsyncPolicy,
+      SnapshotStore snapshotStore, SnapshotPolicy snapshotPolicy) {
+    this.processorJournal = processorJournal;
+    this.writer = fsyncPolicy == null ? null : new GroupCommitWriter(processorJournal, fsyncPolicy);
+    this.snapshotStore = snapshotStore;
+    this.snapshotPolicy = snapshotPolicy;
+    if (snapshotStore == null) {
+      this.snapshotExecutor = null;
+      return;
+    }
+    this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "snapshot-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = snapshotPolicy.getIntervalMillis();
+    if (interval > 0) {
+      snapshotExecutor.scheduleWithFixedDelay(this::timedSnapshot, interval, interval,
+          TimeUnit.MILLISECONDS);
+    }
+  }
 
   /**
    * Process.
    *
    * @param domainEvent the domain event
+   * @throws IllegalArgumentException if the sequence id of the event is not greater than the one
+   *     of the last processed or recovered event
    */
   public void process(DomainEvent domainEvent) {
-    domainEvent.process();
-    processorJournal.write(domainEvent);
+    long ticket;
+    // events are journaled in the order they are applied
+    synchronized (this) {
+      if (domainEvent.getSequenceId() <= lastSequenceId) {
+        // snapshots and recovery rely on the journal order being the sequence id order
+        throw new IllegalArgumentException("Sequence id " + domainEvent.getSequenceId()
+            + " is not greater than the last processed sequence id " + lastSequenceId);
+      }
+      domainEvent.process();
+      lastSequenceId = domainEvent.getSequenceId();
+      if (writer == null) {
+        processorJournal.write(domainEvent);
+      } else {
+        lastTicket = writer.append(domainEvent);
+      }
+      ticket = lastTicket;
+      eventsSinceSnapshot++;
+      if (snapshotStore != null && snapshotPolicy.getEventCount() > 0
+          && eventsSinceSnapshot >= snapshotPolicy.getEventCount()) {
+        captureSnapshot();
+      }
+    }
+    if (writer != null) {
+      writer.awaitDurable(ticket);
+    }
+  }
+
+  /**
+   * Takes a snapshot of the current state, unless the previous one is still being written. The
+   * snapshot is written in the background.
+   */
+  public synchronized void snapshot() {
+    if (snapshotStore == null) {
+      throw new IllegalStateException("No snapshot store");
+    }
+    captureSnapshot();
+  }
+
+  private synchronized void timedSnapshot() {
+    if (eventsSinceSnapshot > 0) {
+      captureSnapshot();
+    }
+  }
+
+  /**
+   * Captures the state under the processor lock. Only the list of the accounts is copied, the
+   * accounts themselves are replaced rather than modified by the events.
+   */
+  private void captureSnapshot() {
+    if (snapshotPending) {
+      return;
+    }
+    AccountSnapshot snapshot = new AccountSnapshot(lastSequenceId, AccountAggregate.getAccounts());
+    long ticket = lastTicket;
+    if (writer == null) {
+      // the snapshot must not get ahead of the journal
+      processorJournal.force();
+    }
+    snapshotPending = true;
+    eventsSinceSnapshot = 0;
+    snapshotExecutor.execute(() -> {
+      try {
+        if (writer != null) {
+          writer.awaitDurable(ticket);
+        }
+        snapshotStore.save(snapshot);
+      } catch (RuntimeException e) {
+        LOGGER.error("Could not save the snapshot of sequence id " + snapshot.getLastSequenceId(),
+            e);
+      } finally {
+        synchronized (this) {
+          snapshotPending = false;
+        }
+      }
+    });
   }
 
   /**
    * Reset.
    */
   public void reset() {
+    if (writer != null) {
+      writer.flush();
+    }
     processorJournal.reset();
+    if (snapshotStore != null) {
+      snapshotStore.reset();
+    }
+    synchronized (this) {
+      lastSequenceId = -1;
+      eventsSinceSnapshot = 0;
+    }
   }
 
   /**
    * Recover.
    */
   public void recover() {
-    DomainEvent domainEvent;
-    while (true) {
-      domainEvent = processorJournal.readNext();
-      if (domainEvent == null) {
-        break;
-      } else {
-        domainEvent.process();
+    recover(1);
+  }
+
+  /**
+   * Recovers the state, replaying the events partitioned by account on the given number of
+   * threads. The recovered state is the same as the one of a sequential replay.
+   *
+   * @param parallelism the number of replay threads, 1 to replay on the calling thread
+   */
+  public void recover(int parallelism) {
+    if (writer != null) {
+      writer.flush();
+    }
+    long snapshotSequenceId = Long.MIN_VALUE;
+    if (snapshotStore != null) {
+      AccountSnapshot snapshot = snapshotStore.loadLatest();
+      if (snapshot != null) {
+        AccountAggregate.restoreState(snapshot.getAccounts());
+        snapshotSequenceId = snapshot.getLastSequenceId();
+        processorJournal.seek(snapshotSequenceId + 1);
+      }
+    }
+    long recovered;
+    if (parallelism > 1) {
+      recovered = new ParallelReplayer(parallelism).replay(processorJournal, snapshotSequenceId);
+    } else {
+      recovered = snapshotSequenceId;
+      DomainEvent domainEvent;
+      while (true) {
+        domainEvent = processorJournal.readNext();
+        if (domainEvent == null) {
+          break;
+        } else if (domainEvent.getSequenceId() > snapshotSequenceId) {
+          domainEvent.process();
+          recovered = Math.max(recovered, domainEvent.getSequenceId());
+        }
       }
     }
+    synchronized (this) {
+      lastSequenceId = Math.max(lastSequenceId, recovered);
+    }
+  }
+
+  /**
+   * Writes the pending events and snapshots and closes the journal.
+   */
+  public void close() {
+    if (snapshotExecutor != null) {
+      snapshotExecutor.shutdown();
+      try {
+        snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (writer != null) {
+      writer.close();
+    }
+    processorJournal.close();
   }
 }
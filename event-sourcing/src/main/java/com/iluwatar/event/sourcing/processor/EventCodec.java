@@ -0,0 +1,53 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes the body of a single type of domain event. The sequence id and the created
+ * time are common to all the events and they are handled by {@link BinaryEventCodec}.
+ *
+ * @param <E> the type of the domain event
+ */
+public interface EventCodec<E extends DomainEvent> {
+
+  /**
+   * Writes the type specific fields of the event.
+   *
+   * @param event the domain event
+   * @param buffer the buffer to write to
+   */
+  void encode(E event, ByteBuffer buffer);
+
+  /**
+   * Reads the type specific fields and creates the event.
+   *
+   * @param sequenceId the sequence id of the event
+   * @param createdTime the created time of the event
+   * @param buffer the buffer to read from
+   * @return the domain event
+   */
+  E decode(long sequenceId, long createdTime, ByteBuffer buffer);
+}
@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+
+/**
+ * This is the contract of an event journal.
+ * A journal is an append-only store of domain events that can be read back in the order they
+ * were written in order to recover the state.
+ */
+public interface EventJournal {
+
+  /**
+   * Appends the event to the journal.
+   *
+   * @param domainEvent the domain event
+   */
+  void write(DomainEvent domainEvent);
+
+  /**
+   * Deletes all the events of the journal.
+   */
+  void reset();
+
+  /**
+   * Read next domain event.
+   *
+   * @return the next domain event or null if all events are read
+   */
+  DomainEvent readNext();
+
+  /**
+   * Skips the events before the given sequence id, if the journal can do so without reading them.
+   * Does nothing by default, the readers have to skip the events themselves.
+   *
+   * @param sequenceId the sequence id of the next event to read
+   */
+  default void seek(long sequenceId) {
+  }
+
+  /**
+   * Forces the written events to the storage device. Does nothing by default.
+   */
+  default void force() {
+  }
+
+  /**
+   * Releases the resources held by the journal. Does nothing by default.
+   */
+  default void close() {
+  }
+}
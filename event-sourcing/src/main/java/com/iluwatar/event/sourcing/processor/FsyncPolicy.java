@@ -0,0 +1,114 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the policy of forcing the journal to the storage device used by the
+ * {@link GroupCommitWriter}.
+ */
+public final class FsyncPolicy {
+
+  private static final FsyncPolicy EVERY_BATCH = new FsyncPolicy(0);
+  private static final FsyncPolicy OS_MANAGED = new FsyncPolicy(-1);
+
+  private final long intervalNanos;
+
+  private FsyncPolicy(long intervalNanos) {
+    this.intervalNanos = intervalNanos;
+  }
+
+  /**
+   * The journal is forced after every batch, the writers are released once their events are on
+   * the storage device.
+   *
+   * @return the policy
+   */
+  public static FsyncPolicy everyBatch() {
+    return EVERY_BATCH;
+  }
+
+  /**
+   * The journal is forced at most once per interval, the writers are released once their events
+   * are written and the events reach the storage device within the interval.
+   *
+   * @param interval the interval
+   * @param unit the unit of the interval
+   * @return the policy
+   */
+  public static FsyncPolicy interval(long interval, TimeUnit unit) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("interval: " + interval);
+    }
+    return new FsyncPolicy(unit.toNanos(interval));
+  }
+
+  /**
+   * The journal is never forced, the operating system writes the events back when it sees fit.
+   *
+   * @return the policy
+   */
+  public static FsyncPolicy osManaged() {
+    return OS_MANAGED;
+  }
+
+  /**
+   * Is every batch forced.
+   *
+   * @return the boolean
+   */
+  public boolean isEveryBatch() {
+    return intervalNanos == 0;
+  }
+
+  /**
+   * Is forcing left to the operating system.
+   *
+   * @return the boolean
+   */
+  public boolean isOsManaged() {
+    return intervalNanos < 0;
+  }
+
+  /**
+   * Gets the interval between forces in nanoseconds, 0 if every batch is forced and negative if
+   * the journal is never forced.
+   *
+   * @return the interval
+   */
+  public long getIntervalNanos() {
+    return intervalNanos;
+  }
+
+  @Override
+  public String toString() {
+    if (isEveryBatch()) {
+      return "FsyncPolicy{everyBatch}";
+    }
+    if (isOsManaged()) {
+      return "FsyncPolicy{osManaged}";
+    }
+    return "FsyncPolicy{interval=" + TimeUnit.NANOSECONDS.toMillis(intervalNanos) + "ms}";
+  }
+}
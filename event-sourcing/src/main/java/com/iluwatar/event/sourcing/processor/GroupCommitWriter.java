@@ -0,0 +1,286 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the group commit writer of a journal.
+ * Concurrent writers append their events to a shared batch and get a ticket. A single flusher
+ * thread swaps the batch out, writes it to the journal, forces the journal according to the
+ * {@link FsyncPolicy} and releases all the writers of the batch at once. While a batch is written
+ * the next one fills up, so the cost of forcing is shared by all the events of a batch.
+ *
+ * <p>If the journal fails, the writer stops: the writers waiting for their events and all the
+ * later appends fail with the cause.
+ */
+public class GroupCommitWriter {
+
+  private final EventJournal journal;
+  private final FsyncPolicy fsyncPolicy;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition releasedCondition = lock.newCondition();
+  private final Thread flusher;
+  private List<DomainEvent> pending = new ArrayList<>();
+  private long appended;
+  private long released;
+  private RuntimeException failure;
+  private boolean closed;
+  private boolean dirty;
+  private long lastForce;
+  private volatile long batchCount;
+  private volatile long forceCount;
+
+  /**
+   * Instantiates a new group commit writer and starts its flusher thread.
+   *
+   * @param journal the journal to write to
+   * @param fsyncPolicy the policy of forcing the journal
+   */
+  public GroupCommitWriter(EventJournal journal, FsyncPolicy fsyncPolicy) {
+    this.journal = journal;
+    this.fsyncPolicy = fsyncPolicy;
+    this.lastForce = System.nanoTime();
+    this.flusher = new Thread(this::run, "journal-group-commit");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Appends the event to the current batch without waiting for it to be written.
+   *
+   * @param domainEvent the domain event
+   * @return the ticket to pass to {@link #awaitDurable(long)}
+   */
+  public long append(DomainEvent domainEvent) {
+    lock.lock();
+    try {
+      checkNotFailed();
+      if (closed) {
+        throw new IllegalStateException("Group commit writer is closed");
+      }
+      pending.add(domainEvent);
+      if (pending.size() == 1) {
+        notEmpty.signal();
+      }
+      return ++appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the batch of the ticket was written, and forced if the policy forces every batch.
+   *
+   * @param ticket the ticket returned by {@link #append(DomainEvent)}
+   */
+  public void awaitDurable(long ticket) {
+    boolean interrupted = false;
+    lock.lock();
+    try {
+      while (released < ticket) {
+        checkNotFailed();
+        try {
+          releasedCondition.await();
+        } catch (InterruptedException e) {
+          // the event is already appended, the caller has to learn its outcome
+          interrupted = true;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Appends the event and waits until it is durable.
+   *
+   * @param domainEvent the domain event
+   */
+  public void write(DomainEvent domainEvent) {
+    awaitDurable(append(domainEvent));
+  }
+
+  /**
+   * Waits until all the events appended so far are durable.
+   */
+  public void flush() {
+    long ticket;
+    lock.lock();
+    try {
+      ticket = appended;
+    } finally {
+      lock.unlock();
+    }
+    awaitDurable(ticket);
+  }
+
+  /**
+   * Writes the pending events and stops the flusher thread.
+   */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    boolean interrupted = false;
+    while (flusher.isAlive()) {
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gets the number of batches written.
+   *
+   * @return the batch count
+   */
+  public long getBatchCount() {
+    return batchCount;
+  }
+
+  /**
+   * Gets the number of times the journal was forced.
+   *
+   * @return the force count
+   */
+  public long getForceCount() {
+    return forceCount;
+  }
+
+  private void checkNotFailed() {
+    if (failure != null) {
+      throw new RuntimeException("Journal write failed", failure);
+    }
+  }
+
+  private void run() {
+    List<DomainEvent> batch = new ArrayList<>();
+    while (true) {
+      long batchEnd;
+      boolean exit;
+      lock.lock();
+      try {
+        awaitBatch();
+        List<DomainEvent> swapped = pending;
+        pending = batch;
+        batch = swapped;
+        batchEnd = appended;
+        exit = closed && batch.isEmpty();
+      } finally {
+        lock.unlock();
+      }
+      try {
+        if (!batch.isEmpty()) {
+          for (DomainEvent domainEvent : batch) {
+            journal.write(domainEvent);
+          }
+          batch.clear();
+          batchCount++;
+          dirty = true;
+        }
+        forceIfDue(exit);
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      release(batchEnd);
+      if (exit) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Waits for events, or until the next force is due when written events are not forced yet.
+   */
+  private void awaitBatch() {
+    while (pending.isEmpty() && !closed) {
+      try {
+        if (dirty && !fsyncPolicy.isOsManaged()) {
+          long wait = lastForce + fsyncPolicy.getIntervalNanos() - System.nanoTime();
+          if (wait <= 0) {
+            return;
+          }
+          notEmpty.awaitNanos(wait);
+        } else {
+          notEmpty.await();
+        }
+      } catch (InterruptedException e) {
+        // the flusher is stopped by close only
+      }
+    }
+  }
+
+  private void forceIfDue(boolean closing) {
+    if (!dirty || fsyncPolicy.isOsManaged()) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (closing || fsyncPolicy.isEveryBatch()
+        || now - lastForce >= fsyncPolicy.getIntervalNanos()) {
+      journal.force();
+      lastForce = now;
+      dirty = false;
+      forceCount++;
+    }
+  }
+
+  private void release(long batchEnd) {
+    lock.lock();
+    try {
+      released = batchEnd;
+      releasedCondition.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void fail(RuntimeException cause) {
+    lock.lock();
+    try {
+      failure = cause;
+      pending.clear();
+      releasedCondition.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
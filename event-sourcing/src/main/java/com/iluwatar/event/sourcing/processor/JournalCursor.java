@@ -0,0 +1,135 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static com.iluwatar.event.sourcing.processor.MappedFileJournal.HEADER_SIZE;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A read position in the segments of a {@link MappedFileJournal}. Every reader has its own
+ * cursor, so the journal can be read by several threads while it is written: a cursor never reads
+ * past the write position of a segment, which is published after the record is written.
+ */
+class JournalCursor {
+
+  private final List<JournalSegment> segments;
+  private final BinaryEventCodec codec;
+  private final CRC32 crc = new CRC32();
+  private int segmentIndex;
+  private int position;
+
+  JournalCursor(List<JournalSegment> segments, BinaryEventCodec codec) {
+    this.segments = segments;
+    this.codec = codec;
+  }
+
+  /**
+   * Reads the next event.
+   *
+   * @return the event or null if the end of the journal is reached
+   */
+  DomainEvent next() {
+    while (segmentIndex < segments.size()) {
+      JournalSegment segment = segments.get(segmentIndex);
+      MappedByteBuffer buffer = segment.buffer();
+      int limit = segment.limit();
+      if (position + HEADER_SIZE <= limit) {
+        int length = buffer.getInt(position);
+        if (length > 0) {
+          if (validRecordLength(buffer, position, limit, crc) != length) {
+            throw new RuntimeException("Corrupt journal record at " + position + " of "
+                + segment.getFile());
+          }
+          DomainEvent domainEvent = codec.decode(payload(buffer, position, length));
+          domainEvent.setRealTime(false);
+          position += HEADER_SIZE + length;
+          return domainEvent;
+        }
+      }
+      if (segmentIndex == segments.size() - 1) {
+        return null;
+      }
+      segmentIndex++;
+      position = 0;
+    }
+    return null;
+  }
+
+  /**
+   * Positions the cursor on the first event whose sequence id is greater than or equal to the
+   * given one, using the sparse indexes.
+   */
+  void seek(long sequenceId) {
+    segmentIndex = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      JournalSegment segment = segments.get(i);
+      if (!segment.isEmpty() && segment.firstSequenceId() <= sequenceId) {
+        segmentIndex = i;
+      }
+    }
+    JournalSegment segment = segments.get(segmentIndex);
+    position = segment.floorPosition(sequenceId);
+    MappedByteBuffer buffer = segment.buffer();
+    int limit = segment.limit();
+    while (position + HEADER_SIZE <= limit) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || sequenceIdAt(buffer, position) >= sequenceId) {
+        return;
+      }
+      position += HEADER_SIZE + length;
+    }
+  }
+
+  /**
+   * Gets the payload length of the record at the position if it is complete and its checksum
+   * matches, 0 otherwise.
+   */
+  static int validRecordLength(ByteBuffer buffer, int position, int limit, CRC32 crc) {
+    if (position + HEADER_SIZE > limit) {
+      return 0;
+    }
+    int length = buffer.getInt(position);
+    if (length <= 0 || length > limit - position - HEADER_SIZE) {
+      return 0;
+    }
+    crc.reset();
+    crc.update(payload(buffer, position, length));
+    return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES) ? length : 0;
+  }
+
+  static ByteBuffer payload(ByteBuffer buffer, int position, int length) {
+    ByteBuffer payload = buffer.duplicate();
+    payload.limit(position + HEADER_SIZE + length);
+    payload.position(position + HEADER_SIZE);
+    return payload;
+  }
+
+  static long sequenceIdAt(ByteBuffer buffer, int position) {
+    return buffer.getLong(position + HEADER_SIZE + BinaryEventCodec.SEQUENCE_ID_OFFSET);
+  }
+}
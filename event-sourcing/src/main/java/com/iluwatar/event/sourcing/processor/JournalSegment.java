@@ -0,0 +1,225 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A segment file of the {@link MappedFileJournal} together with its sparse index. The index maps
+ * the sequence id of every few records to the position of the record in the segment, it is kept
+ * in memory while the segment is written and saved next to the segment when the segment is sealed.
+ * The index is guarded by the segment monitor as it is read by the subscriptions while it grows.
+ */
+class JournalSegment {
+
+  static final String SEGMENT_SUFFIX = ".seg";
+  static final String INDEX_SUFFIX = ".idx";
+
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+  private final long number;
+  private final File file;
+  private final File indexFile;
+  private volatile MappedByteBuffer buffer;
+  private volatile int writePosition = -1;
+  private long[] indexSequenceIds = new long[16];
+  private int[] indexPositions = new int[16];
+  private int indexSize;
+  private int lastIndexedPosition;
+
+  JournalSegment(File directory, long number) {
+    this.number = number;
+    String name = String.format("%020d", number);
+    this.file = new File(directory, name + SEGMENT_SUFFIX);
+    this.indexFile = new File(directory, name + INDEX_SUFFIX);
+  }
+
+  long getNumber() {
+    return number;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Maps the segment for writing, growing the file to the given size if needed.
+   */
+  void openForWrite(int size) {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long length = Math.max(raf.length(), size);
+      raf.setLength(length);
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Gets the mapping of the segment, sealed segments are mapped read only on first use.
+   */
+  MappedByteBuffer buffer() {
+    MappedByteBuffer mapped = buffer;
+    if (mapped != null) {
+      return mapped;
+    }
+    synchronized (this) {
+      if (buffer == null) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+          buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      return buffer;
+    }
+  }
+
+  /**
+   * Gets the end of the written records, the capacity of the segment if the segment was sealed in
+   * a previous run and has not been scanned.
+   */
+  int limit() {
+    int position = writePosition;
+    return position >= 0 ? position : buffer().capacity();
+  }
+
+  int getWritePosition() {
+    return writePosition;
+  }
+
+  void setWritePosition(int writePosition) {
+    this.writePosition = writePosition;
+  }
+
+  /**
+   * Adds the record to the sparse index if it is the first record of the segment or at least
+   * {@code interval} bytes were written since the last indexed record.
+   */
+  synchronized void index(long sequenceId, int position, int interval) {
+    if (indexSize > 0 && position - lastIndexedPosition < interval) {
+      return;
+    }
+    if (indexSize == indexPositions.length) {
+      indexSequenceIds = Arrays.copyOf(indexSequenceIds, indexSize * 2);
+      indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+    }
+    indexSequenceIds[indexSize] = sequenceId;
+    indexPositions[indexSize] = position;
+    indexSize++;
+    lastIndexedPosition = position;
+  }
+
+  synchronized boolean isEmpty() {
+    return indexSize == 0;
+  }
+
+  synchronized long firstSequenceId() {
+    return indexSequenceIds[0];
+  }
+
+  /**
+   * Gets the position of the last indexed record whose sequence id is not greater than the given
+   * one, or 0 if there is no such record.
+   */
+  synchronized int floorPosition(long sequenceId) {
+    int low = 0;
+    int high = indexSize - 1;
+    int position = 0;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (indexSequenceIds[mid] <= sequenceId) {
+        position = indexPositions[mid];
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Saves the sparse index next to the segment.
+   */
+  synchronized void saveIndex() {
+    ByteBuffer entries = ByteBuffer.allocate(indexSize * INDEX_ENTRY_SIZE);
+    for (int i = 0; i < indexSize; i++) {
+      entries.putLong(indexSequenceIds[i]).putInt(indexPositions[i]);
+    }
+    entries.flip();
+    try (FileOutputStream output = new FileOutputStream(indexFile)) {
+      output.getChannel().write(entries);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Loads the sparse index saved when the segment was sealed.
+   *
+   * @return false if there is no saved index
+   */
+  synchronized boolean loadIndex() {
+    if (!indexFile.isFile() || indexFile.length() % INDEX_ENTRY_SIZE != 0) {
+      return false;
+    }
+    try (FileInputStream input = new FileInputStream(indexFile)) {
+      ByteBuffer entries = ByteBuffer.allocate((int) indexFile.length());
+      while (entries.hasRemaining() && input.getChannel().read(entries) >= 0) {
+        // read the whole file
+      }
+      entries.flip();
+      indexSize = 0;
+      while (entries.remaining() >= INDEX_ENTRY_SIZE) {
+        index(entries.getLong(), entries.getInt(), 0);
+      }
+      return true;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  void force() {
+    if (buffer != null && writePosition >= 0 && !buffer.isReadOnly()) {
+      buffer.force();
+    }
+  }
+
+  void delete() {
+    buffer = null;
+    if (file.exists() && !file.delete()) {
+      throw new RuntimeException("Could not delete " + file);
+    }
+    if (indexFile.exists() && !indexFile.delete()) {
+      throw new RuntimeException("Could not delete " + indexFile);
+    }
+  }
+}
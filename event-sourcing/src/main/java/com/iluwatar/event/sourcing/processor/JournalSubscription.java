@@ -0,0 +1,202 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This is a subscription to the events of a {@link MappedFileJournal}.
+ * A dedicated thread reads the journal with its own cursor and passes the events to the consumer
+ * in batches. Once it has caught up with the writer, the thread parks until the journal signals
+ * an append, so new events are delivered with low latency and an idle subscription costs nothing.
+ *
+ * <p>A named subscription keeps a checkpoint file holding the sequence id of the next event to
+ * deliver. The file is memory mapped and updated after every batch.
+ */
+public class JournalSubscription {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JournalSubscription.class);
+
+  static final int DEFAULT_BATCH_SIZE = 256;
+  static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final MappedFileJournal journal;
+  private final JournalCursor cursor;
+  private final MappedByteBuffer checkpoint;
+  private final long fromSequenceId;
+  private final int maxBatchSize;
+  private final Consumer<List<DomainEvent>> consumer;
+  private final Thread thread;
+  private volatile boolean running = true;
+  private volatile boolean waiting;
+  private volatile long lastSequenceId = Long.MIN_VALUE;
+
+  JournalSubscription(MappedFileJournal journal, JournalCursor cursor, File checkpointFile,
+      long fromSequenceId, int maxBatchSize, Consumer<List<DomainEvent>> consumer) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize: " + maxBatchSize);
+    }
+    this.journal = journal;
+    this.cursor = cursor;
+    this.checkpoint = checkpointFile == null ? null : openCheckpoint(checkpointFile);
+    this.fromSequenceId = checkpoint == null ? fromSequenceId
+        : Math.max(fromSequenceId, checkpoint.getLong(0));
+    this.maxBatchSize = maxBatchSize;
+    this.consumer = consumer;
+    this.thread = new Thread(this::run, checkpointFile == null ? "journal-subscription"
+        : "journal-subscription-" + checkpointFile.getName());
+    thread.setDaemon(true);
+  }
+
+  private static MappedByteBuffer openCheckpoint(File file) {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      boolean created = raf.length() < Long.BYTES;
+      MappedByteBuffer buffer =
+          raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+      if (created) {
+        buffer.putLong(0, Long.MIN_VALUE);
+      }
+      return buffer;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Wakes the subscription up if it is waiting for events. Called by the journal writer after
+   * every append.
+   */
+  void appended() {
+    if (waiting) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Gets the sequence id of the last event passed to the consumer.
+   *
+   * @return the sequence id, Long.MIN_VALUE if no event was delivered
+   */
+  public long getLastSequenceId() {
+    return lastSequenceId;
+  }
+
+  /**
+   * Is the subscription running. A subscription stops when it is closed or when its consumer
+   * throws.
+   *
+   * @return the boolean
+   */
+  public boolean isRunning() {
+    return running && thread.isAlive();
+  }
+
+  /**
+   * Stops the subscription and waits for the batch being delivered.
+   */
+  public void close() {
+    running = false;
+    journal.unsubscribe(this);
+    LockSupport.unpark(thread);
+    if (Thread.currentThread() == thread) {
+      return;
+    }
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    try {
+      cursor.seek(fromSequenceId);
+      List<DomainEvent> batch = new ArrayList<>(maxBatchSize);
+      while (running) {
+        DomainEvent domainEvent = cursor.next();
+        if (domainEvent == null) {
+          waiting = true;
+          // the writer checks the flag after publishing, so checking again cannot miss an append
+          domainEvent = cursor.next();
+          if (domainEvent == null) {
+            if (!batch.isEmpty()) {
+              deliver(batch);
+              batch = new ArrayList<>(maxBatchSize);
+            }
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+          }
+          waiting = false;
+          if (domainEvent == null) {
+            continue;
+          }
+        }
+        if (domainEvent.getSequenceId() < fromSequenceId) {
+          continue;
+        }
+        batch.add(domainEvent);
+        if (batch.size() >= maxBatchSize) {
+          deliver(batch);
+          batch = new ArrayList<>(maxBatchSize);
+        }
+      }
+    } catch (RuntimeException e) {
+      LOGGER.error("Journal subscription stopped", e);
+    } finally {
+      running = false;
+      journal.unsubscribe(this);
+    }
+  }
+
+  private void deliver(List<DomainEvent> batch) {
+    consumer.accept(batch);
+    long last = batch.get(batch.size() - 1).getSequenceId();
+    lastSequenceId = last;
+    if (checkpoint != null) {
+      checkpoint.putLong(0, last + 1);
+    }
+  }
+}
@@ -0,0 +1,309 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.File;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * This is the binary implementation of event journal.
+ * The events are encoded with a {@link BinaryEventCodec} and appended to memory mapped segment
+ * files in a directory. Every record is framed by its length and the CRC32 of its payload, so a
+ * torn write at the end of the journal is detected and discarded when the journal is opened. When
+ * a record does not fit into the current segment, the segment is sealed and a new one is started.
+ *
+ * <p>Each segment keeps a sparse index of the sequence ids of its records, that allows to
+ * {@link #seek(long)} to an event without decoding the events before it. Opening the journal only
+ * scans the last segment, the events are decoded lazily by {@link #readNext()}.
+ *
+ * <p>The journal has a single writer. It can be read by {@link #readNext()} on the writer thread
+ * and by any number of subscriptions, which tail the journal on their own threads.
+ */
+public class MappedFileJournal implements EventJournal {
+
+  /**
+   * The default size of a segment file, 64 MiB.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  /**
+   * The default number of bytes between the entries of the sparse index.
+   */
+  public static final int DEFAULT_INDEX_INTERVAL = 4096;
+
+  static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private final File directory;
+  private final int segmentSize;
+  private final int indexInterval;
+  private final BinaryEventCodec codec;
+  private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+  private final List<JournalSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final CRC32 crc = new CRC32();
+  private ByteBuffer scratch = ByteBuffer.allocate(256);
+  private JournalSegment active;
+  private JournalCursor cursor;
+
+  /**
+   * Instantiates a new mapped file journal with the default settings.
+   *
+   * @param directory the directory of the segment files
+   */
+  public MappedFileJournal(File directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_INDEX_INTERVAL, BinaryEventCodec.defaultCodec());
+  }
+
+  /**
+   * Instantiates a new mapped file journal.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentSize the size of a segment file in bytes
+   * @param indexInterval the number of bytes between the entries of the sparse index
+   * @param codec the codec of the events
+   */
+  public MappedFileJournal(File directory, int segmentSize, int indexInterval,
+      BinaryEventCodec codec) {
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("segmentSize: " + segmentSize);
+    }
+    if (indexInterval < 0) {
+      throw new IllegalArgumentException("indexInterval: " + indexInterval);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.indexInterval = indexInterval;
+    this.codec = codec;
+    open();
+  }
+
+  private void open() {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new RuntimeException("Could not create journal directory " + directory);
+    }
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(JournalSegment.SEGMENT_SUFFIX));
+    Arrays.sort(files);
+    for (File file : files) {
+      String name = file.getName();
+      long number = Long.parseLong(
+          name.substring(0, name.length() - JournalSegment.SEGMENT_SUFFIX.length()));
+      segments.add(new JournalSegment(directory, number));
+    }
+    if (segments.isEmpty()) {
+      segments.add(new JournalSegment(directory, 0));
+    }
+    for (int i = 0; i < segments.size() - 1; i++) {
+      JournalSegment segment = segments.get(i);
+      if (!segment.loadIndex()) {
+        scan(segment);
+      }
+    }
+    active = segments.get(segments.size() - 1);
+    active.openForWrite(segmentSize);
+    recoverTail(active);
+    cursor = new JournalCursor(segments, codec);
+  }
+
+  /**
+   * Walks the valid records of the segment, rebuilding its index.
+   *
+   * @return the position after the last valid record
+   */
+  private int scan(JournalSegment segment) {
+    MappedByteBuffer buffer = segment.buffer();
+    int position = 0;
+    int length;
+    while ((length = JournalCursor.validRecordLength(buffer, position, buffer.capacity(), crc))
+        > 0) {
+      segment.index(JournalCursor.sequenceIdAt(buffer, position), position, indexInterval);
+      position += HEADER_SIZE + length;
+    }
+    return position;
+  }
+
+  private void recoverTail(JournalSegment segment) {
+    int end = scan(segment);
+    MappedByteBuffer buffer = segment.buffer();
+    if (end + Integer.BYTES <= buffer.capacity() && buffer.getInt(end) != 0) {
+      // a torn write, clear it so that the next records are not followed by garbage
+      for (int i = end; i < buffer.capacity(); i++) {
+        buffer.put(i, (byte) 0);
+      }
+      buffer.force();
+    }
+    segment.setWritePosition(end);
+  }
+
+  @Override
+  public void write(DomainEvent domainEvent) {
+    ByteBuffer payload = encode(domainEvent);
+    int length = payload.remaining();
+    if (HEADER_SIZE + length > segmentSize) {
+      throw new IllegalArgumentException("Event of " + length + " bytes does not fit a segment");
+    }
+    int position = active.getWritePosition();
+    MappedByteBuffer buffer = active.buffer();
+    if (position + HEADER_SIZE + length > buffer.capacity()) {
+      roll();
+      position = 0;
+      buffer = active.buffer();
+    }
+    crc.reset();
+    crc.update(payload);
+    payload.flip();
+    ByteBuffer target = buffer.duplicate();
+    target.position(position + HEADER_SIZE);
+    target.put(payload);
+    buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+    // the length is written last, a reader never sees a record whose payload is not there
+    buffer.putInt(position, length);
+    active.index(domainEvent.getSequenceId(), position, indexInterval);
+    active.setWritePosition(position + HEADER_SIZE + length);
+    for (JournalSubscription subscription : subscriptions) {
+      subscription.appended();
+    }
+  }
+
+  private ByteBuffer encode(DomainEvent domainEvent) {
+    while (true) {
+      scratch.clear();
+      try {
+        codec.encode(domainEvent, scratch);
+        scratch.flip();
+        return scratch;
+      } catch (BufferOverflowException e) {
+        scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+      }
+    }
+  }
+
+  private void roll() {
+    active.force();
+    active.saveIndex();
+    active = new JournalSegment(directory, active.getNumber() + 1);
+    active.openForWrite(segmentSize);
+    active.setWritePosition(0);
+    segments.add(active);
+  }
+
+  /**
+   * Deletes all the events. The subscriptions are closed.
+   */
+  @Override
+  public void reset() {
+    closeSubscriptions();
+    for (JournalSegment segment : segments) {
+      segment.delete();
+    }
+    segments.clear();
+    open();
+  }
+
+  @Override
+  public DomainEvent readNext() {
+    return cursor.next();
+  }
+
+  /**
+   * Positions the reader on the first event whose sequence id is greater than or equal to the
+   * given one, using the sparse index to skip the segments and the records before it. The
+   * sequence ids are expected to increase in the journal.
+   *
+   * @param sequenceId the sequence id
+   */
+  @Override
+  public void seek(long sequenceId) {
+    cursor.seek(sequenceId);
+  }
+
+  /**
+   * Subscribes to the events of the journal. The consumer is called on a dedicated thread, first
+   * with the events already in the journal and then with the events as they are written.
+   *
+   * @param fromSequenceId the sequence id of the first event to deliver
+   * @param consumer the consumer of the batches of events
+   * @return the subscription
+   */
+  public JournalSubscription subscribe(long fromSequenceId, Consumer<List<DomainEvent>> consumer) {
+    return subscribe(null, fromSequenceId, JournalSubscription.DEFAULT_BATCH_SIZE, consumer);
+  }
+
+  /**
+   * Subscribes to the events of the journal, resuming after the last event delivered to the named
+   * subscriber. The sequence id of the last event of every batch is saved in a checkpoint file
+   * once the consumer returns, so the events are delivered at least once across restarts.
+   *
+   * @param subscriberId the name of the subscriber, or null to not keep a checkpoint
+   * @param fromSequenceId the sequence id of the first event to deliver if there is no checkpoint
+   *     past it
+   * @param maxBatchSize the maximum number of events passed to the consumer at once
+   * @param consumer the consumer of the batches of events
+   * @return the subscription
+   */
+  public JournalSubscription subscribe(String subscriberId, long fromSequenceId, int maxBatchSize,
+      Consumer<List<DomainEvent>> consumer) {
+    File checkpoint = subscriberId == null ? null
+        : new File(directory, subscriberId + JournalSubscription.CHECKPOINT_SUFFIX);
+    JournalSubscription subscription = new JournalSubscription(this,
+        new JournalCursor(segments, codec), checkpoint, fromSequenceId, maxBatchSize, consumer);
+    subscriptions.add(subscription);
+    subscription.start();
+    return subscription;
+  }
+
+  void unsubscribe(JournalSubscription subscription) {
+    subscriptions.remove(subscription);
+  }
+
+  /**
+   * Gets the number of segment files of the journal.
+   *
+   * @return the number of segments
+   */
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public void force() {
+    active.force();
+  }
+
+  @Override
+  public void close() {
+    closeSubscriptions();
+    active.force();
+  }
+
+  private void closeSubscriptions() {
+    for (JournalSubscription subscription : subscriptions) {
+      subscription.close();
+    }
+  }
+}
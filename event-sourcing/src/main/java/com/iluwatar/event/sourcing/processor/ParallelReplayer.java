@@ -0,0 +1,274 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This is the parallel replayer of a journal.
+ * The events are read in journal order and partitioned by account number across worker threads,
+ * so the events of an account are applied in journal order by a single worker. An event that
+ * touches accounts of several partitions, a transfer or an unknown type of event, is handed to
+ * the workers of all those partitions and applied once every one of them has reached it. Every
+ * account therefore sees exactly the events it sees in a sequential replay, in the same order,
+ * which makes the resulting state identical.
+ *
+ * <p>Such a rendezvous cannot deadlock: the workers wait for each other only on events they all
+ * hold, and all of them receive those events in journal order.
+ */
+public class ParallelReplayer {
+
+  private static final int BATCH_SIZE = 256;
+  private static final int QUEUE_CAPACITY = 64;
+  private static final List<Object> END = new ArrayList<>();
+
+  private final int parallelism;
+
+  /**
+   * Instantiates a new Parallel replayer.
+   *
+   * @param parallelism the number of worker threads
+   */
+  public ParallelReplayer(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism: " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Replays the remaining events of the journal.
+   *
+   * @param journal the journal to read
+   * @param afterSequenceId the events up to this sequence id are skipped
+   * @return the greatest sequence id replayed, or afterSequenceId if no event was replayed
+   */
+  public long replay(EventJournal journal, long afterSequenceId) {
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    List<BlockingQueue<List<Object>>> queues = new ArrayList<>(parallelism);
+    List<List<Object>> batches = new ArrayList<>(parallelism);
+    List<Thread> workers = new ArrayList<>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      BlockingQueue<List<Object>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      queues.add(queue);
+      batches.add(new ArrayList<>(BATCH_SIZE));
+      Thread worker = new Thread(() -> work(queue, failure), "replay-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+
+    long recovered = afterSequenceId;
+    try {
+      DomainEvent domainEvent;
+      while (failure.get() == null && (domainEvent = journal.readNext()) != null) {
+        if (domainEvent.getSequenceId() <= afterSequenceId) {
+          continue;
+        }
+        recovered = Math.max(recovered, domainEvent.getSequenceId());
+        dispatch(domainEvent, queues, batches, failure);
+      }
+    } finally {
+      for (int i = 0; i < parallelism; i++) {
+        flush(i, queues, batches, failure);
+        put(queues.get(i), END, failure);
+      }
+      join(workers);
+    }
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    return recovered;
+  }
+
+  private void dispatch(DomainEvent domainEvent, List<BlockingQueue<List<Object>>> queues,
+      List<List<Object>> batches, AtomicReference<RuntimeException> failure) {
+    int[] partitions = partitionsOf(domainEvent);
+    if (partitions.length == 1) {
+      List<Object> batch = batches.get(partitions[0]);
+      batch.add(domainEvent);
+      if (batch.size() >= BATCH_SIZE) {
+        flush(partitions[0], queues, batches, failure);
+      }
+      return;
+    }
+    Rendezvous rendezvous = new Rendezvous(domainEvent, partitions.length, failure);
+    for (int partition : partitions) {
+      batches.get(partition).add(rendezvous);
+      // the others wait at the rendezvous, the events before it must reach them
+      flush(partition, queues, batches, failure);
+    }
+  }
+
+  /**
+   * Gets the distinct partitions of the accounts touched by the event, all the partitions if the
+   * event is unknown.
+   */
+  private int[] partitionsOf(DomainEvent domainEvent) {
+    if (domainEvent instanceof AccountCreateEvent) {
+      return new int[] {partitionOf(((AccountCreateEvent) domainEvent).getAccountNo())};
+    } else if (domainEvent instanceof MoneyDepositEvent) {
+      return new int[] {partitionOf(((MoneyDepositEvent) domainEvent).getAccountNo())};
+    } else if (domainEvent instanceof MoneyTransferEvent) {
+      MoneyTransferEvent transfer = (MoneyTransferEvent) domainEvent;
+      int from = partitionOf(transfer.getAccountNoFrom());
+      int to = partitionOf(transfer.getAccountNoTo());
+      return from == to ? new int[] {from} : new int[] {from, to};
+    }
+    int[] all = new int[parallelism];
+    for (int i = 0; i < parallelism; i++) {
+      all[i] = i;
+    }
+    return all;
+  }
+
+  private int partitionOf(int accountNo) {
+    return Math.floorMod(accountNo, parallelism);
+  }
+
+  private static void flush(int partition, List<BlockingQueue<List<Object>>> queues,
+      List<List<Object>> batches, AtomicReference<RuntimeException> failure) {
+    List<Object> batch = batches.get(partition);
+    if (!batch.isEmpty()) {
+      put(queues.get(partition), batch, failure);
+      batches.set(partition, new ArrayList<>(BATCH_SIZE));
+    }
+  }
+
+  private static void put(BlockingQueue<List<Object>> queue, List<Object> batch,
+      AtomicReference<RuntimeException> failure) {
+    try {
+      while (!queue.offer(batch, 10, TimeUnit.MILLISECONDS)) {
+        if (failure.get() != null) {
+          // the workers are stopping, nobody is going to take it
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, new RuntimeException("Replay interrupted", e));
+    }
+  }
+
+  private static void work(BlockingQueue<List<Object>> queue,
+      AtomicReference<RuntimeException> failure) {
+    while (true) {
+      List<Object> batch;
+      try {
+        batch = queue.poll(10, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        failure.compareAndSet(null, new RuntimeException("Replay interrupted", e));
+        return;
+      }
+      if (batch == END || failure.get() != null) {
+        return;
+      }
+      if (batch == null) {
+        continue;
+      }
+      for (Object item : batch) {
+        if (failure.get() != null) {
+          return;
+        }
+        try {
+          if (item instanceof Rendezvous) {
+            ((Rendezvous) item).arrive();
+          } else {
+            ((DomainEvent) item).process();
+          }
+        } catch (RuntimeException e) {
+          failure.compareAndSet(null, e);
+          return;
+        }
+      }
+    }
+  }
+
+  private static void join(List<Thread> workers) {
+    boolean interrupted = false;
+    for (Thread worker : workers) {
+      while (worker.isAlive()) {
+        try {
+          worker.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * An event shared by several partitions. The last worker to arrive applies it, the others wait
+   * until it is applied.
+   */
+  private static class Rendezvous {
+
+    private final DomainEvent domainEvent;
+    private final AtomicInteger remaining;
+    private final CountDownLatch applied = new CountDownLatch(1);
+    private final AtomicReference<RuntimeException> failure;
+
+    Rendezvous(DomainEvent domainEvent, int parties,
+        AtomicReference<RuntimeException> failure) {
+      this.domainEvent = domainEvent;
+      this.remaining = new AtomicInteger(parties);
+      this.failure = failure;
+    }
+
+    void arrive() {
+      if (remaining.decrementAndGet() == 0) {
+        try {
+          domainEvent.process();
+        } finally {
+          applied.countDown();
+        }
+        return;
+      }
+      try {
+        while (!applied.await(10, TimeUnit.MILLISECONDS)) {
+          if (failure.get() != null) {
+            // the other worker stopped, it will never arrive
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure.compareAndSet(null, new RuntimeException("Replay interrupted", e));
+      }
+    }
+  }
+}
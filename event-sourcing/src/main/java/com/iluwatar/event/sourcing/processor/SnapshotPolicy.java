@@ -0,0 +1,69 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the cadence of the snapshots taken by the {@link DomainEventProcessor}.
+ * A snapshot is taken after the given number of events, or when the given time elapsed and at
+ * least one event was processed since the last snapshot, whichever comes first.
+ */
+public class SnapshotPolicy {
+
+  private final long eventCount;
+  private final long intervalMillis;
+
+  /**
+   * Instantiates a new Snapshot policy.
+   *
+   * @param eventCount the number of events between snapshots, 0 to not count events
+   * @param interval the time between snapshots, 0 to not take timed snapshots
+   * @param unit the unit of the interval
+   */
+  public SnapshotPolicy(long eventCount, long interval, TimeUnit unit) {
+    if (eventCount < 0 || interval < 0 || eventCount == 0 && interval == 0) {
+      throw new IllegalArgumentException("eventCount: " + eventCount + ", interval: " + interval);
+    }
+    this.eventCount = eventCount;
+    this.intervalMillis = unit.toMillis(interval);
+  }
+
+  /**
+   * Gets the number of events between snapshots, 0 if events are not counted.
+   *
+   * @return the event count
+   */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Gets the time between snapshots in milliseconds, 0 if there are no timed snapshots.
+   *
+   * @return the interval
+   */
+  public long getIntervalMillis() {
+    return intervalMillis;
+  }
+}
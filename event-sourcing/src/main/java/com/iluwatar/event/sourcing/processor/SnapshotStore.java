@@ -0,0 +1,190 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This is the store of the account snapshots.
+ * A snapshot is written in a binary, versioned format to a file named after its last sequence id
+ * and ends with the CRC32 of its content. It is written to a temporary file that is synced and
+ * then renamed, so a snapshot file is either complete or missing. Only the latest snapshots are
+ * kept.
+ */
+public class SnapshotStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
+
+  private static final int MAGIC = 0x45534e50;
+  private static final int VERSION = 1;
+  private static final String PREFIX = "snapshot-";
+  private static final String SUFFIX = ".bin";
+  private static final int RETAINED = 2;
+
+  private final File directory;
+
+  /**
+   * Instantiates a new Snapshot store.
+   *
+   * @param directory the directory of the snapshot files
+   */
+  public SnapshotStore(File directory) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new RuntimeException("Could not create snapshot directory " + directory);
+    }
+    this.directory = directory;
+  }
+
+  /**
+   * Saves the snapshot and deletes the old ones.
+   *
+   * @param snapshot the snapshot
+   */
+  public void save(AccountSnapshot snapshot) {
+    File file = new File(directory, String.format("%s%020d%s", PREFIX,
+        snapshot.getLastSequenceId(), SUFFIX));
+    File temporary = new File(directory, file.getName() + ".tmp");
+    try (FileOutputStream fileOutput = new FileOutputStream(temporary)) {
+      CheckedOutputStream checked =
+          new CheckedOutputStream(new BufferedOutputStream(fileOutput), new CRC32());
+      DataOutputStream output = new DataOutputStream(checked);
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeLong(snapshot.getLastSequenceId());
+      output.writeInt(snapshot.getAccounts().size());
+      for (Account account : snapshot.getAccounts()) {
+        output.writeInt(account.getAccountNo());
+        output.writeUTF(account.getOwner());
+        byte[] unscaled = account.getMoney().unscaledValue().toByteArray();
+        output.writeInt(account.getMoney().scale());
+        output.writeInt(unscaled.length);
+        output.write(unscaled);
+      }
+      output.flush();
+      output.writeInt((int) checked.getChecksum().getValue());
+      output.flush();
+      fileOutput.getFD().sync();
+    } catch (IOException e) {
+      temporary.delete();
+      throw new RuntimeException(e);
+    }
+    try {
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    File[] snapshots = snapshotFiles();
+    for (int i = 0; i < snapshots.length - RETAINED; i++) {
+      snapshots[i].delete();
+    }
+  }
+
+  /**
+   * Loads the latest valid snapshot, skipping the snapshots that cannot be read.
+   *
+   * @return the snapshot or null if there is none
+   */
+  public AccountSnapshot loadLatest() {
+    File[] snapshots = snapshotFiles();
+    for (int i = snapshots.length - 1; i >= 0; i--) {
+      try {
+        return load(snapshots[i]);
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("Skipping unreadable snapshot " + snapshots[i], e);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Deletes all the snapshots.
+   */
+  public void reset() {
+    for (File file : snapshotFiles()) {
+      file.delete();
+    }
+  }
+
+  private static AccountSnapshot load(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    int length = bytes.length - Integer.BYTES;
+    if (length < Integer.BYTES) {
+      throw new IOException("Truncated snapshot");
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, length);
+    if ((int) crc.getValue() != ByteBuffer.wrap(bytes, length, Integer.BYTES).getInt()) {
+      throw new IOException("Checksum mismatch");
+    }
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Not a snapshot");
+    }
+    int version = input.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported snapshot version " + version);
+    }
+    long lastSequenceId = input.readLong();
+    int count = input.readInt();
+    List<Account> accounts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Account account = new Account(input.readInt(), input.readUTF());
+      int scale = input.readInt();
+      byte[] unscaled = new byte[input.readInt()];
+      input.readFully(unscaled);
+      account.setMoney(new BigDecimal(new BigInteger(unscaled), scale));
+      accounts.add(account);
+    }
+    return new AccountSnapshot(lastSequenceId, accounts);
+  }
+
+  private File[] snapshotFiles() {
+    File[] files = directory.listFiles(
+        (dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files);
+    return files;
+  }
+}
@@ -23,49 +23,90 @@
 package com.iluwatar.event.sourcing.state;
 
 import com.iluwatar.event.sourcing.domain.Account;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * This is the static accounts map holder class.
- * This class holds the state of the accounts.
+ * This class holds the state of the accounts in an {@link AccountStore}, which is thread-safe.
+ * The accounts are read only and they are not copied on read.
  *
  * Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class AccountAggregate {
 
-  private static Map<Integer, Account> accounts = new HashMap<>();
+  private static volatile AccountStore accounts = new AccountStore();
 
   private AccountAggregate() {
   }
 
   /**
-   * Put account.
+   * Put account. The account becomes read only.
    *
    * @param account the account
    */
   public static void putAccount(Account account) {
-    accounts.put(account.getAccountNo(), account);
+    accounts.put(account);
   }
 
   /**
    * Gets account.
    *
    * @param accountNo the account no
-   * @return the copy of the account or null if not found
+   * @return the read only account or null if not found, {@link Account#copy()} it to modify it
    */
   public static Account getAccount(int accountNo) {
-    Account account = accounts.get(accountNo);
-    if (account == null) {
-      return null;
+    return accounts.get(accountNo);
+  }
+
+  /**
+   * Runs the action holding the lock of the account, so that the account does not change while
+   * the action reads and replaces it.
+   *
+   * @param accountNo the account no
+   * @param action the action
+   */
+  public static void withLock(int accountNo, Runnable action) {
+    accounts.withLock(accountNo, action);
+  }
+
+  /**
+   * Runs the action holding the locks of both accounts.
+   *
+   * @param accountNo one account no
+   * @param otherAccountNo the other account no
+   * @param action the action
+   */
+  public static void withLock(int accountNo, int otherAccountNo, Runnable action) {
+    accounts.withLock(accountNo, otherAccountNo, action);
+  }
+
+  /**
+   * Gets all the accounts.
+   *
+   * @return the read only accounts
+   */
+  public static List<Account> getAccounts() {
+    return accounts.getAll();
+  }
+
+  /**
+   * Replaces the state with the given accounts.
+   *
+   * @param restored the accounts
+   */
+  public static void restoreState(Collection<Account> restored) {
+    AccountStore state = new AccountStore();
+    for (Account account : restored) {
+      state.put(account);
     }
-    return account.copy();
+    accounts = state;
   }
 
   /**
    * Reset state.
    */
   public static void resetState() {
-    accounts = new HashMap<>();
+    accounts = new AccountStore();
   }
 }
@@ -0,0 +1,67 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is a snapshot of the accounts state.
+ * It holds the accounts after the event with the last sequence id was applied, so recovery only
+ * needs to replay the events after it.
+ */
+public class AccountSnapshot {
+
+  private final long lastSequenceId;
+  private final List<Account> accounts;
+
+  /**
+   * Instantiates a new Account snapshot.
+   *
+   * @param lastSequenceId the sequence id of the last applied event
+   * @param accounts the accounts
+   */
+  public AccountSnapshot(long lastSequenceId, List<Account> accounts) {
+    this.lastSequenceId = lastSequenceId;
+    this.accounts = Collections.unmodifiableList(accounts);
+  }
+
+  /**
+   * Gets the sequence id of the last applied event.
+   *
+   * @return the last sequence id
+   */
+  public long getLastSequenceId() {
+    return lastSequenceId;
+  }
+
+  /**
+   * Gets the accounts.
+   *
+   * @return the accounts
+   */
+  public List<Account> getAccounts() {
+    return accounts;
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the thread-safe store of the accounts.
+ * The accounts are spread over shards by account number, every shard is an int keyed map guarded
+ * by its own monitor, so that threads working on different accounts rarely contend. Each account
+ * has its own lock for the events that read and then replace it. The stored accounts are read
+ * only, they are returned to the readers without copying and replaced by a new instance when
+ * they change.
+ */
+public class AccountStore {
+
+  private static final int DEFAULT_SHARDS = 64;
+
+  private final IntObjectMap<Entry>[] shards;
+  private final int shardShift;
+
+  /**
+   * Instantiates a new Account store with the default number of shards.
+   */
+  public AccountStore() {
+    this(DEFAULT_SHARDS);
+  }
+
+  /**
+   * Instantiates a new Account store.
+   *
+   * @param shardCount the number of shards, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  public AccountStore(int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shardCount: " + shardCount);
+    }
+    int shardBits = 32 - Integer.numberOfLeadingZeros(shardCount - 1);
+    shards = new IntObjectMap[1 << shardBits];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new IntObjectMap<>(16);
+    }
+    // the high bits pick the shard, the map of the shard uses the low bits
+    shardShift = 32 - shardBits;
+  }
+
+  /**
+   * Gets the account.
+   *
+   * @param accountNo the account no
+   * @return the read only account or null if not found
+   */
+  public Account get(int accountNo) {
+    Entry entry = entry(accountNo, false);
+    return entry == null ? null : entry.account;
+  }
+
+  /**
+   * Puts the account, making it read only.
+   *
+   * @param account the account
+   */
+  public void put(Account account) {
+    account.freeze();
+    entry(account.getAccountNo(), true).account = account;
+  }
+
+  /**
+   * Runs the action holding the lock of the account.
+   *
+   * @param accountNo the account no
+   * @param action the action
+   */
+  public void withLock(int accountNo, Runnable action) {
+    ReentrantLock lock = entry(accountNo, true).lock;
+    lock.lock();
+    try {
+      action.run();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Runs the action holding the locks of both accounts. The locks are taken in account number
+   * order, so two actions locking the same accounts cannot deadlock.
+   *
+   * @param accountNo one account no
+   * @param otherAccountNo the other account no
+   * @param action the action
+   */
+  public void withLock(int accountNo, int otherAccountNo, Runnable action) {
+    if (accountNo == otherAccountNo) {
+      withLock(accountNo, action);
+      return;
+    }
+    ReentrantLock first = entry(Math.min(accountNo, otherAccountNo), true).lock;
+    ReentrantLock second = entry(Math.max(accountNo, otherAccountNo), true).lock;
+    first.lock();
+    try {
+      second.lock();
+      try {
+        action.run();
+      } finally {
+        second.unlock();
+      }
+    } finally {
+      first.unlock();
+    }
+  }
+
+  /**
+   * Gets all the accounts.
+   *
+   * @return the read only accounts
+   */
+  public List<Account> getAll() {
+    List<Account> accounts = new ArrayList<>();
+    for (IntObjectMap<Entry> shard : shards) {
+      synchronized (shard) {
+        shard.forEach(entry -> {
+          Account account = entry.account;
+          if (account != null) {
+            accounts.add(account);
+          }
+        });
+      }
+    }
+    return accounts;
+  }
+
+  private Entry entry(int accountNo, boolean create) {
+    int index = (IntObjectMap.mix(accountNo) >>> shardShift) & (shards.length - 1);
+    IntObjectMap<Entry> shard = shards[index];
+    synchronized (shard) {
+      return create ? shard.computeIfAbsent(accountNo, key -> new Entry()) : shard.get(accountNo);
+    }
+  }
+
+  /**
+   * The slot of an account, created on first use and never removed.
+   */
+  private static class Entry {
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Account account;
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link GroupCommitWriter}.
+ */
+public class GroupCommitWriterTest {
+
+  private final RecordingJournal journal = new RecordingJournal();
+
+  /**
+   * Clears the accounts.
+   */
+  @AfterEach
+  public void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  public void testEventsAreForcedBeforeWritersAreReleased() throws Exception {
+    GroupCommitWriter writer = new GroupCommitWriter(journal, FsyncPolicy.everyBatch());
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 500; i++) {
+          DomainEvent event = deposit(i);
+          writer.write(event);
+          synchronized (journal) {
+            assertTrue(journal.forced.contains(event));
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+    writer.close();
+
+    assertEquals(4000, journal.written.size());
+    assertEquals(writer.getBatchCount(), writer.getForceCount());
+    assertTrue(writer.getBatchCount() <= 4000);
+  }
+
+  @Test
+  public void testIntervalPolicyForcesAfterTheInterval() throws Exception {
+    GroupCommitWriter writer = new GroupCommitWriter(journal,
+        FsyncPolicy.interval(50, TimeUnit.MILLISECONDS));
+    for (int i = 0; i < 100; i++) {
+      writer.write(deposit(i));
+    }
+    long deadline = System.currentTimeMillis() + 5000;
+    while (writer.getForceCount() == 0 || journal.forced.size() < 100) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+    assertTrue(writer.getForceCount() < writer.getBatchCount() || writer.getBatchCount() == 1);
+    writer.close();
+  }
+
+  @Test
+  public void testOsManagedPolicyNeverForces() {
+    GroupCommitWriter writer = new GroupCommitWriter(journal, FsyncPolicy.osManaged());
+    for (int i = 0; i < 100; i++) {
+      writer.write(deposit(i));
+    }
+    writer.close();
+
+    assertEquals(100, journal.written.size());
+    assertEquals(0, writer.getForceCount());
+  }
+
+  @Test
+  public void testJournalFailureFailsTheWriters() {
+    journal.failure.set(3);
+    GroupCommitWriter writer = new GroupCommitWriter(journal, FsyncPolicy.everyBatch());
+    writer.write(deposit(0));
+    writer.write(deposit(1));
+
+    assertThrows(RuntimeException.class, () -> writer.write(deposit(2)));
+    assertThrows(RuntimeException.class, () -> writer.append(deposit(3)));
+    writer.close();
+  }
+
+  @Test
+  public void testProcessorJournalsEventsInTheOrderTheyAreApplied() throws Exception {
+    DomainEventProcessor processor = new DomainEventProcessor(journal, FsyncPolicy.everyBatch());
+    processor.process(new AccountCreateEvent(0, 0, 1, "Jon Snow"));
+    AtomicLong sequence = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 250; i++) {
+          // sequence ids are taken under the processor lock, like a real command handler would
+          synchronized (processor) {
+            processor.process(deposit(sequence.incrementAndGet()));
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+    processor.close();
+
+    assertEquals(1001, journal.written.size());
+    for (int i = 0; i < journal.written.size(); i++) {
+      assertEquals(i, journal.written.get(i).getSequenceId());
+    }
+    assertEquals(new BigDecimal("1000"), AccountAggregate.getAccount(1).getMoney());
+  }
+
+  private static DomainEvent deposit(long sequenceId) {
+    return new MoneyDepositEvent(sequenceId, 0, 1, BigDecimal.ONE);
+  }
+
+  /**
+   * A journal that records the written and forced events, and fails the n-th write if asked.
+   */
+  private static class RecordingJournal implements EventJournal {
+
+    private final List<DomainEvent> written = new ArrayList<>();
+    private final List<DomainEvent> forced = new ArrayList<>();
+    private final AtomicLong failure = new AtomicLong(-1);
+
+    @Override
+    public synchronized void write(DomainEvent domainEvent) {
+      if (failure.decrementAndGet() == 0) {
+        throw new IllegalStateException("disk full");
+      }
+      written.add(domainEvent);
+    }
+
+    @Override
+    public synchronized void force() {
+      forced.clear();
+      forced.addAll(written);
+    }
+
+    @Override
+    public void reset() {
+      written.clear();
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link JournalSubscription}.
+ */
+public class JournalSubscriptionTest {
+
+  private File directory;
+  private MappedFileJournal journal;
+  private final List<Long> received = new CopyOnWriteArrayList<>();
+  private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("subscriptions").toFile();
+    journal = new MappedFileJournal(directory, 1024, 128, BinaryEventCodec.defaultCodec());
+  }
+
+  /**
+   * Closes the journal and deletes its files.
+   */
+  @AfterEach
+  public void tearDown() {
+    journal.close();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void testExistingEventsAreStreamedThenNewOnesTailed() throws InterruptedException {
+    write(0, 100);
+    JournalSubscription subscription = journal.subscribe(null, 30, 16, this::record);
+    awaitUntil(() -> subscription.getLastSequenceId() == 99);
+
+    write(100, 300);
+    awaitUntil(() -> subscription.getLastSequenceId() == 299);
+
+    assertTrue(journal.getSegmentCount() > 1);
+    assertEquals(270, received.size());
+    for (int i = 0; i < received.size(); i++) {
+      assertEquals(30 + i, (long) received.get(i));
+    }
+    for (int size : batchSizes) {
+      assertTrue(size <= 16);
+    }
+    subscription.close();
+    assertFalse(subscription.isRunning());
+  }
+
+  @Test
+  public void testNamedSubscriptionResumesFromItsCheckpoint() throws InterruptedException {
+    write(0, 10);
+    JournalSubscription subscription = journal.subscribe("projection", 0, 4, this::record);
+    awaitUntil(() -> subscription.getLastSequenceId() == 9);
+    subscription.close();
+
+    write(10, 15);
+    received.clear();
+    JournalSubscription resumed = journal.subscribe("projection", 0, 4, this::record);
+    awaitUntil(() -> resumed.getLastSequenceId() == 14);
+
+    assertEquals(5, received.size());
+    assertEquals(10, (long) received.get(0));
+    resumed.close();
+  }
+
+  @Test
+  public void testFailingConsumerStopsTheSubscription() throws InterruptedException {
+    write(0, 10);
+    JournalSubscription subscription = journal.subscribe(0, batch -> {
+      throw new IllegalStateException("projection failed");
+    });
+
+    awaitUntil(() -> !subscription.isRunning());
+  }
+
+  private void record(List<DomainEvent> batch) {
+    batchSizes.add(batch.size());
+    for (DomainEvent domainEvent : batch) {
+      received.add(domainEvent.getSequenceId());
+    }
+  }
+
+  private void write(long from, long to) {
+    for (long sequenceId = from; sequenceId < to; sequenceId++) {
+      journal.write(new MoneyDepositEvent(sequenceId, 0, 1, BigDecimal.ONE));
+    }
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link MappedFileJournal}.
+ */
+public class MappedFileJournalTest {
+
+  private File directory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("journal").toFile();
+  }
+
+  /**
+   * Deletes the segment files and clears the accounts.
+   */
+  @AfterEach
+  public void tearDown() {
+    AccountAggregate.resetState();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void testEventsAreReadBackInOrder() {
+    MappedFileJournal journal = new MappedFileJournal(directory);
+    journal.write(new AccountCreateEvent(0, 10, 1, "Daenerys Targaryen"));
+    journal.write(new MoneyDepositEvent(1, 11, 1, new BigDecimal("100000.25")));
+    journal.write(new MoneyTransferEvent(2, 12, new BigDecimal("-3E+5"), 1, 2));
+    journal.close();
+
+    MappedFileJournal reopened = new MappedFileJournal(directory);
+    AccountCreateEvent create = (AccountCreateEvent) reopened.readNext();
+    assertEquals(0, create.getSequenceId());
+    assertEquals(10, create.getCreatedTime());
+    assertEquals(1, create.getAccountNo());
+    assertEquals("Daenerys Targaryen", create.getOwner());
+    assertFalse(create.isRealTime());
+    MoneyDepositEvent deposit = (MoneyDepositEvent) reopened.readNext();
+    assertEquals(new BigDecimal("100000.25"), deposit.getMoney());
+    MoneyTransferEvent transfer = (MoneyTransferEvent) reopened.readNext();
+    assertEquals(new BigDecimal("-3E+5"), transfer.getMoney());
+    assertEquals(1, transfer.getAccountNoFrom());
+    assertEquals(2, transfer.getAccountNoTo());
+    assertNull(reopened.readNext());
+  }
+
+  @Test
+  public void testSegmentsRollAndAppendsContinueAfterReopen() {
+    MappedFileJournal journal = new MappedFileJournal(directory, 256, 64,
+        BinaryEventCodec.defaultCodec());
+    for (int i = 0; i < 100; i++) {
+      journal.write(deposit(i));
+    }
+    journal.close();
+    assertTrue(journal.getSegmentCount() > 1);
+
+    journal = new MappedFileJournal(directory, 256, 64, BinaryEventCodec.defaultCodec());
+    for (int i = 100; i < 150; i++) {
+      journal.write(deposit(i));
+    }
+    for (int i = 0; i < 150; i++) {
+      assertEquals(i, journal.readNext().getSequenceId());
+    }
+    assertNull(journal.readNext());
+  }
+
+  @Test
+  public void testSeekUsesTheSparseIndex() {
+    MappedFileJournal journal = new MappedFileJournal(directory, 512, 100,
+        BinaryEventCodec.defaultCodec());
+    for (int i = 0; i < 200; i++) {
+      journal.write(deposit(2 * i));
+    }
+    journal.close();
+    journal = new MappedFileJournal(directory, 512, 100, BinaryEventCodec.defaultCodec());
+
+    journal.seek(151);
+    assertEquals(152, journal.readNext().getSequenceId());
+    journal.seek(0);
+    assertEquals(0, journal.readNext().getSequenceId());
+    journal.seek(398);
+    assertEquals(398, journal.readNext().getSequenceId());
+    journal.seek(399);
+    assertNull(journal.readNext());
+  }
+
+  @Test
+  public void testTornWriteIsDiscarded() throws IOException {
+    MappedFileJournal journal = new MappedFileJournal(directory);
+    journal.write(deposit(0));
+    journal.write(deposit(1));
+    journal.close();
+    File segment = directory.listFiles((dir, name) -> name.endsWith(".seg"))[0];
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      // corrupt the last byte of the payload of the second record
+      int firstLength = file.readInt();
+      file.seek(MappedFileJournal.HEADER_SIZE + firstLength);
+      int secondLength = file.readInt();
+      file.seek(2L * MappedFileJournal.HEADER_SIZE + firstLength + secondLength - 1);
+      file.write(0x7F);
+    }
+
+    journal = new MappedFileJournal(directory);
+    journal.write(deposit(2));
+    assertEquals(0, journal.readNext().getSequenceId());
+    assertEquals(2, journal.readNext().getSequenceId());
+    assertNull(journal.readNext());
+  }
+
+  @Test
+  public void testStateRecoveryWithDomainEventProcessor() {
+    DomainEventProcessor eventProcessor =
+        new DomainEventProcessor(new MappedFileJournal(directory));
+    eventProcessor.reset();
+    AccountAggregate.resetState();
+    eventProcessor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+    eventProcessor.process(new AccountCreateEvent(1, 0, 2, "Jon Snow"));
+    eventProcessor.process(new MoneyDepositEvent(2, 0, 1, new BigDecimal("100000")));
+    eventProcessor.process(new MoneyTransferEvent(3, 0, new BigDecimal("10000"), 1, 2));
+    Account before = AccountAggregate.getAccount(2);
+
+    AccountAggregate.resetState();
+    new DomainEventProcessor(new MappedFileJournal(directory)).recover();
+
+    assertEquals(before.getMoney(), AccountAggregate.getAccount(2).getMoney());
+    assertEquals(new BigDecimal("90000"), AccountAggregate.getAccount(1).getMoney());
+  }
+
+  private static DomainEvent deposit(long sequenceId) {
+    return new MoneyDepositEvent(sequenceId, sequenceId, 1, BigDecimal.valueOf(sequenceId));
+  }
+}
@@ -0,0 +1,192 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link ParallelReplayer}.
+ */
+public class ParallelReplayerTest {
+
+  private static final int ACCOUNTS = 64;
+
+  /**
+   * Clears the accounts.
+   */
+  @AfterEach
+  public void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  public void testParallelReplayMatchesSequentialReplay() {
+    List<DomainEvent> events = randomEvents(new Random(42), 20000);
+    List<BigDecimal> sequentialTotals = new CopyOnWriteArrayList<>();
+    List<BigDecimal> parallelTotals = new CopyOnWriteArrayList<>();
+
+    events.add(new TotalEvent(events.size(), sequentialTotals));
+    new DomainEventProcessor(new ListJournal(events)).recover();
+    Map<Integer, BigDecimal> sequential = balances();
+
+    for (int parallelism : new int[] {2, 4, 7}) {
+      AccountAggregate.resetState();
+      parallelTotals.clear();
+      events.set(events.size() - 1, new TotalEvent(events.size() - 1, parallelTotals));
+      new DomainEventProcessor(new ListJournal(events)).recover(parallelism);
+      assertEquals(sequential, balances());
+      assertEquals(sequentialTotals, parallelTotals);
+    }
+  }
+
+  @Test
+  public void testEventsBeforeTheGivenSequenceIdAreSkipped() {
+    List<DomainEvent> events = new ArrayList<>();
+    events.add(new AccountCreateEvent(0, 0, 1, "Jon Snow"));
+    events.add(new MoneyDepositEvent(1, 0, 1, BigDecimal.TEN));
+    events.add(new MoneyDepositEvent(2, 0, 1, BigDecimal.ONE));
+    AccountAggregate.putAccount(new Account(1, "Jon Snow"));
+
+    long recovered = new ParallelReplayer(3).replay(new ListJournal(events), 1);
+
+    assertEquals(2, recovered);
+    assertEquals(BigDecimal.ONE, AccountAggregate.getAccount(1).getMoney());
+  }
+
+  @Test
+  public void testFailureIsRethrown() {
+    List<DomainEvent> events = randomEvents(new Random(7), 5000);
+    events.add(2500, new MoneyTransferEvent(-1, 0, BigDecimal.ONE, 1, ACCOUNTS + 1));
+
+    assertThrows(RuntimeException.class,
+        () -> new ParallelReplayer(4).replay(new ListJournal(events), Long.MIN_VALUE));
+  }
+
+  /**
+   * Creates a journal of valid events: accounts are created before they are used and transfers
+   * never overdraw.
+   */
+  private static List<DomainEvent> randomEvents(Random random, int count) {
+    List<DomainEvent> events = new ArrayList<>();
+    BigDecimal[] balances = new BigDecimal[ACCOUNTS];
+    for (long sequenceId = 0; sequenceId < count; sequenceId++) {
+      int accountNo = random.nextInt(ACCOUNTS);
+      int other = random.nextInt(ACCOUNTS);
+      BigDecimal amount = BigDecimal.valueOf(random.nextInt(10000), 2);
+      if (balances[accountNo] == null) {
+        events.add(new AccountCreateEvent(sequenceId, 0, accountNo, "Owner " + accountNo));
+        balances[accountNo] = BigDecimal.ZERO;
+      } else if (balances[other] == null || other == accountNo || random.nextBoolean()
+          || balances[accountNo].compareTo(amount) < 0) {
+        events.add(new MoneyDepositEvent(sequenceId, 0, accountNo, amount));
+        balances[accountNo] = balances[accountNo].add(amount);
+      } else {
+        events.add(new MoneyTransferEvent(sequenceId, 0, amount, accountNo, other));
+        balances[accountNo] = balances[accountNo].subtract(amount);
+        balances[other] = balances[other].add(amount);
+      }
+    }
+    return events;
+  }
+
+  private static Map<Integer, BigDecimal> balances() {
+    Map<Integer, BigDecimal> balances = new HashMap<>();
+    for (Account account : AccountAggregate.getAccounts()) {
+      balances.put(account.getAccountNo(), account.getMoney());
+    }
+    return balances;
+  }
+
+  /**
+   * An event that is not tied to an account, it records the total money of all the accounts.
+   */
+  private static class TotalEvent extends DomainEvent {
+
+    private final List<BigDecimal> totals;
+
+    TotalEvent(long sequenceId, List<BigDecimal> totals) {
+      super(sequenceId, 0, "TotalEvent");
+      this.totals = totals;
+    }
+
+    @Override
+    public void process() {
+      BigDecimal total = BigDecimal.ZERO;
+      for (Account account : AccountAggregate.getAccounts()) {
+        total = total.add(account.getMoney());
+      }
+      totals.add(total);
+    }
+  }
+
+  /**
+   * A read only journal over a list of events.
+   */
+  private static class ListJournal implements EventJournal {
+
+    private final List<DomainEvent> events;
+    private int index;
+
+    ListJournal(List<DomainEvent> events) {
+      this.events = events;
+    }
+
+    @Override
+    public void write(DomainEvent domainEvent) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void reset() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      if (index >= events.size()) {
+        return null;
+      }
+      DomainEvent domainEvent = events.get(index++);
+      domainEvent.setRealTime(false);
+      return domainEvent;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import com.iluwatar.event.sourcing.state.AccountSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the snapshots of the {@link DomainEventProcessor}.
+ */
+public class SnapshotTest {
+
+  private File directory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("snapshots").toFile();
+  }
+
+  /**
+   * Deletes the journal and snapshot files and clears the accounts.
+   */
+  @AfterEach
+  public void tearDown() {
+    AccountAggregate.resetState();
+    delete(directory);
+  }
+
+  @Test
+  public void testLatestValidSnapshotIsLoaded() throws IOException {
+    SnapshotStore store = new SnapshotStore(directory);
+    for (long sequenceId = 1; sequenceId <= 3; sequenceId++) {
+      Account account = new Account(1, "Jon Snow");
+      account.setMoney(new BigDecimal("10.5").multiply(BigDecimal.valueOf(sequenceId)));
+      store.save(new AccountSnapshot(sequenceId, Arrays.asList(account)));
+    }
+    assertEquals(2, directory.list().length);
+    assertEquals(3, store.loadLatest().getLastSequenceId());
+
+    File latest = new File(directory, String.format("snapshot-%020d.bin", 3));
+    try (RandomAccessFile file = new RandomAccessFile(latest, "rw")) {
+      file.seek(20);
+      file.write(0xFF);
+    }
+
+    AccountSnapshot snapshot = store.loadLatest();
+    assertEquals(2, snapshot.getLastSequenceId());
+    assertEquals("Jon Snow", snapshot.getAccounts().get(0).getOwner());
+    assertEquals(new BigDecimal("21.0"), snapshot.getAccounts().get(0).getMoney());
+  }
+
+  @Test
+  public void testRecoveryReplaysOnlyTheEventsAfterTheSnapshot() {
+    File journalDirectory = new File(directory, "journal");
+    SnapshotStore store = new SnapshotStore(new File(directory, "snapshots"));
+    SnapshotPolicy policy = new SnapshotPolicy(1000, 0, TimeUnit.MILLISECONDS);
+    DomainEventProcessor processor = new DomainEventProcessor(
+        new MappedFileJournal(journalDirectory), FsyncPolicy.everyBatch(), store, policy);
+    processor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+    processor.process(new AccountCreateEvent(1, 0, 2, "Jon Snow"));
+    processor.process(new MoneyDepositEvent(2, 0, 1, new BigDecimal("100000")));
+    processor.snapshot();
+    processor.process(new MoneyTransferEvent(3, 0, new BigDecimal("10000"), 1, 2));
+    processor.process(new MoneyDepositEvent(4, 0, 2, new BigDecimal("5")));
+    processor.close();
+    assertEquals(2, store.loadLatest().getLastSequenceId());
+
+    AccountAggregate.resetState();
+    CountingJournal journal = new CountingJournal(new MappedFileJournal(journalDirectory));
+    new DomainEventProcessor(journal, null, store, policy).recover();
+
+    assertEquals(2, journal.read);
+    assertEquals(new BigDecimal("90000"), AccountAggregate.getAccount(1).getMoney());
+    assertEquals(new BigDecimal("10005"), AccountAggregate.getAccount(2).getMoney());
+  }
+
+  @Test
+  public void testEventsMustHaveIncreasingSequenceIds() {
+    DomainEventProcessor processor = new DomainEventProcessor(
+        new MappedFileJournal(new File(directory, "journal")), null,
+        new SnapshotStore(new File(directory, "snapshots")),
+        new SnapshotPolicy(1000, 0, TimeUnit.MILLISECONDS));
+    processor.process(new AccountCreateEvent(5, 0, 1, "Jon Snow"));
+    processor.snapshot();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> processor.process(new MoneyDepositEvent(5, 0, 1, BigDecimal.ONE)));
+    assertThrows(IllegalArgumentException.class,
+        () -> processor.process(new MoneyDepositEvent(4, 0, 1, BigDecimal.ONE)));
+    assertEquals(BigDecimal.ZERO, AccountAggregate.getAccount(1).getMoney());
+    processor.process(new MoneyDepositEvent(6, 0, 1, BigDecimal.ONE));
+    processor.close();
+  }
+
+  @Test
+  public void testSnapshotsAreTakenByEventCountAndTime() throws InterruptedException {
+    SnapshotStore store = new SnapshotStore(new File(directory, "snapshots"));
+    DomainEventProcessor processor = new DomainEventProcessor(
+        new MappedFileJournal(new File(directory, "journal")), null, store,
+        new SnapshotPolicy(3, 50, TimeUnit.MILLISECONDS));
+    processor.process(new AccountCreateEvent(0, 0, 1, "Jon Snow"));
+    processor.process(new MoneyDepositEvent(1, 0, 1, BigDecimal.ONE));
+    processor.process(new MoneyDepositEvent(2, 0, 1, BigDecimal.ONE));
+    awaitSnapshot(store, 2);
+
+    processor.process(new MoneyDepositEvent(3, 0, 1, BigDecimal.ONE));
+    awaitSnapshot(store, 3);
+    processor.close();
+  }
+
+  private static void awaitSnapshot(SnapshotStore store, long sequenceId)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (store.loadLatest() == null || store.loadLatest().getLastSequenceId() < sequenceId) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+    assertNotNull(store.loadLatest());
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * A journal that counts the events read from the journal it delegates to.
+   */
+  private static class CountingJournal implements EventJournal {
+
+    private final EventJournal delegate;
+    private int read;
+
+    CountingJournal(EventJournal delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(DomainEvent domainEvent) {
+      delegate.write(domainEvent);
+    }
+
+    @Override
+    public void reset() {
+      delegate.reset();
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      DomainEvent domainEvent = delegate.readNext();
+      if (domainEvent != null) {
+        read++;
+      }
+      return domainEvent;
+    }
+
+    @Override
+    public void seek(long sequenceId) {
+      delegate.seek(sequenceId);
+    }
+  }
+}
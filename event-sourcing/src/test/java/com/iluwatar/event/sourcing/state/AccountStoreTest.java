@@ -0,0 +1,129 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link AccountStore} and {@link IntObjectMap}.
+ */
+public class AccountStoreTest {
+
+  /**
+   * Clears the accounts.
+   */
+  @AfterEach
+  public void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  public void testIntObjectMapGrows() {
+    IntObjectMap<String> map = new IntObjectMap<>(4);
+    for (int key = -5000; key < 5000; key += 3) {
+      assertEquals("v" + key, map.computeIfAbsent(key, k -> "v" + k));
+    }
+    for (int key = -5000; key < 5000; key++) {
+      assertEquals((key + 5000) % 3 == 0 ? "v" + key : null, map.get(key));
+    }
+    assertEquals(3334, map.size());
+    assertEquals("v1", map.computeIfAbsent(1, k -> "other"));
+  }
+
+  @Test
+  public void testAccountsAreReadWithoutCopying() {
+    AccountStore store = new AccountStore(3);
+    Account account = new Account(7, "Jon Snow");
+    store.put(account);
+
+    assertSame(account, store.get(7));
+    assertNull(store.get(8));
+    assertThrows(UnsupportedOperationException.class, () -> account.setMoney(BigDecimal.TEN));
+    Account copy = store.get(7).copy();
+    copy.setMoney(BigDecimal.TEN);
+    assertEquals(BigDecimal.ZERO, store.get(7).getMoney());
+    assertEquals(1, store.getAll().size());
+  }
+
+  @Test
+  public void testConcurrentTransfersKeepTheTotal() throws Exception {
+    int accounts = 16;
+    for (int i = 0; i < accounts; i++) {
+      process(new AccountCreateEvent(i, 0, i, "Owner " + i));
+      process(new MoneyDepositEvent(i, 0, i, new BigDecimal("1000")));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int seed = t;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 2000; i++) {
+          // opposite directions on the same pairs, which deadlocks without ordered locking
+          int from = (seed + i) % accounts;
+          int to = (seed % 2 == 0 ? from + 1 : from + accounts - 1) % accounts;
+          try {
+            process(new MoneyTransferEvent(i, 0, BigDecimal.ONE, from, to));
+          } catch (RuntimeException e) {
+            assertEquals("Insufficient Account Balance", e.getMessage());
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (Account account : AccountAggregate.getAccounts()) {
+      assertTrue(account.getMoney().signum() >= 0);
+      total = total.add(account.getMoney());
+    }
+    assertEquals(new BigDecimal("16000"), total);
+  }
+
+  private static void process(DomainEvent domainEvent) {
+    domainEvent.setRealTime(false);
+    domainEvent.process();
+  }
+}
@@ -0,0 +1,470 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded object pool without locks on the checkout path.
+ * <p>
+ * Every object is held by an entry whose state is claimed with a compare-and-set, so borrowers
+ * never serialize on a monitor. A checkout first tries the entry the current thread returned
+ * last, which is usually still available and warm in its cache, then scans the entries, then
+ * creates a new object if the pool has not reached its maximum size, and finally parks until
+ * an object is handed off by a check in or the timeout elapses. Objects are created outside of
+ * any lock; the size is reserved with a compare-and-set before the creation.
+ * <p>
+ * The {@link ObjectFactory} hooks manage the lifecycle of the objects: idle objects are validated
+ * before they are checked out, objects are reset when they are checked in, and the objects that
+ * fail either are destroyed. The pool is pre-warmed with minIdle objects, and an optional evictor
+ * periodically validates the idle objects, destroys the ones idle for too long while more than
+ * minIdle are idle, and creates objects to get back to minIdle.
+ *
+ * @param <T> Type T of Object in the Pool
+ */
+public class BoundedObjectPool<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BoundedObjectPool.class);
+
+  private static final long HANDOFF_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final ObjectFactory<T> factory;
+  private final int minIdle;
+  private final int maxSize;
+  private final long minEvictableIdleNanos;
+  private final List<PoolEntry<T>> entries = new CopyOnWriteArrayList<>();
+  private final Map<T, PoolEntry<T>> entriesByObject = new ConcurrentHashMap<>();
+  private final ThreadLocal<PoolEntry<T>> lastReturned = new ThreadLocal<>();
+  private final SynchronousQueue<PoolEntry<T>> handoff = new SynchronousQueue<>(true);
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final ScheduledExecutorService evictor;
+  private volatile boolean closed;
+
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder timeoutCount = new LongAdder();
+  private final LongAdder borrowWaitNanos = new LongAdder();
+  private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+  private final LongAdder createdCount = new LongAdder();
+  private final LongAdder destroyedCount = new LongAdder();
+
+  /**
+   * Creates the pool without evictor and pre-warms it with minIdle objects.
+   *
+   * @param factory the factory of the objects
+   * @param minIdle the number of objects created up front
+   * @param maxSize the maximum number of objects
+   */
+  public BoundedObjectPool(ObjectFactory<T> factory, int minIdle, int maxSize) {
+    this(factory, minIdle, maxSize, 0, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates the pool, pre-warms it with minIdle objects and starts the evictor.
+   *
+   * @param factory the factory of the objects
+   * @param minIdle the number of idle objects kept by the evictor
+   * @param maxSize the maximum number of objects
+   * @param minEvictableIdleTime the time an object must be idle before it can be evicted
+   * @param evictionInterval the time between two runs of the evictor, 0 to not start it
+   * @param unit the unit of the times
+   */
+  public BoundedObjectPool(ObjectFactory<T> factory, int minIdle, int maxSize,
+      long minEvictableIdleTime, long evictionInterval, TimeUnit unit) {
+    if (minIdle < 0 || maxSize < 1 || minIdle > maxSize) {
+      throw new IllegalArgumentException("minIdle=" + minIdle + " maxSize=" + maxSize);
+    }
+    this.factory = factory;
+    this.minIdle = minIdle;
+    this.maxSize = maxSize;
+    this.minEvictableIdleNanos = unit.toNanos(minEvictableIdleTime);
+    for (int i = 0; i < minIdle; i++) {
+      size.incrementAndGet();
+      create(PoolEntry.IDLE);
+    }
+    if (evictionInterval > 0) {
+      evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "object-pool-evictor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      evictor.scheduleWithFixedDelay(this::evict, evictionInterval, evictionInterval, unit);
+    } else {
+      evictor = null;
+    }
+  }
+
+  /**
+   * Checkout object from pool, waiting as long as necessary for one to be available.
+   *
+   * @return the object
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public T checkOut() throws InterruptedException {
+    return checkOut(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Checkout object from pool, waiting up to the timeout for one to be available.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return the object, or null if none became available in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public T checkOut(long timeout, TimeUnit unit) throws InterruptedException {
+    long start = System.nanoTime();
+    T object = doCheckOut(start, Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2));
+    if (object == null) {
+      timeoutCount.increment();
+      return null;
+    }
+    long waited = System.nanoTime() - start;
+    borrowCount.increment();
+    borrowWaitNanos.add(waited);
+    maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+    return object;
+  }
+
+  private T doCheckOut(long start, long timeoutNanos) throws InterruptedException {
+    if (closed) {
+      throw new IllegalStateException("Pool is closed");
+    }
+    PoolEntry<T> last = lastReturned.get();
+    if (last != null && last.claim() && validate(last)) {
+      return last.object;
+    }
+    long deadline = start + timeoutNanos;
+    while (true) {
+      T object = claimOrCreate();
+      if (object != null) {
+        return object;
+      }
+      waiters.incrementAndGet();
+      try {
+        // an object checked in before we registered as waiter is found by this scan
+        object = claimIdle();
+        if (object != null) {
+          return object;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        PoolEntry<T> entry = handoff.poll(remaining, TimeUnit.NANOSECONDS);
+        if (entry != null && entry.claim() && validate(entry)) {
+          return entry.object;
+        }
+      } finally {
+        waiters.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Checkin object to pool. The object is reset, or destroyed if the reset fails or the pool is
+   * closed.
+   *
+   * @param instance the object checked out before
+   */
+  public void checkIn(T instance) {
+    PoolEntry<T> entry = entriesByObject.get(instance);
+    if (entry == null || !entry.isInUse()) {
+      throw new IllegalArgumentException("Object is not checked out from this pool: " + instance);
+    }
+    try {
+      factory.reset(instance);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Destroying {} which failed to reset", instance, e);
+      destroy(entry);
+      replaceForWaiters();
+      return;
+    }
+    if (closed) {
+      destroy(entry);
+      return;
+    }
+    entry.release();
+    lastReturned.set(entry);
+    handOff(entry);
+  }
+
+  /**
+   * Gets the number of objects in the pool, in use or not.
+   *
+   * @return the size
+   */
+  public int getSize() {
+    return size.get();
+  }
+
+  /**
+   * Gets the maximum number of objects.
+   *
+   * @return the max size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Gets a snapshot of the metrics of the pool.
+   *
+   * @return the metrics
+   */
+  public PoolMetrics getMetrics() {
+    int idle = 0;
+    int active = 0;
+    for (PoolEntry<T> entry : entries) {
+      if (entry.isIdle()) {
+        idle++;
+      } else if (entry.isInUse()) {
+        active++;
+      }
+    }
+    return new PoolMetrics(active, idle, maxSize, borrowCount.sum(), timeoutCount.sum(),
+        borrowWaitNanos.sum(), maxBorrowWaitNanos.get(), createdCount.sum(),
+        destroyedCount.sum());
+  }
+
+  /**
+   * Stops the evictor and destroys the idle objects. The objects in use are destroyed when they
+   * are checked in.
+   */
+  public void close() {
+    closed = true;
+    if (evictor != null) {
+      evictor.shutdownNow();
+    }
+    for (PoolEntry<T> entry : entries) {
+      if (entry.claim()) {
+        destroy(entry);
+      }
+    }
+  }
+
+  /**
+   * One run of the evictor.
+   */
+  void evict() {
+    try {
+      long now = System.nanoTime();
+      int idle = 0;
+      for (PoolEntry<T> entry : entries) {
+        if (entry.isIdle()) {
+          idle++;
+        }
+      }
+      for (PoolEntry<T> entry : entries) {
+        if (!entry.claim()) {
+          continue;
+        }
+        boolean expired = now - entry.lastReturnedNanos >= minEvictableIdleNanos;
+        if (expired && idle > minIdle) {
+          idle--;
+          destroy(entry);
+        } else if (!isValid(entry)) {
+          idle--;
+          destroy(entry);
+        } else {
+          entry.release();
+          handOff(entry);
+        }
+      }
+      int current;
+      while (!closed && idle < minIdle && (current = size.get()) < maxSize) {
+        if (size.compareAndSet(current, current + 1)) {
+          handOff(create(PoolEntry.IDLE));
+          idle++;
+        }
+      }
+    } catch (RuntimeException e) {
+      LOGGER.error("Object pool eviction failed", e);
+    }
+  }
+
+  private T claimOrCreate() {
+    T object = claimIdle();
+    if (object != null) {
+      return object;
+    }
+    int current;
+    while ((current = size.get()) < maxSize) {
+      if (size.compareAndSet(current, current + 1)) {
+        return create(PoolEntry.IN_USE).object;
+      }
+    }
+    return null;
+  }
+
+  private T claimIdle() {
+    for (PoolEntry<T> entry : entries) {
+      if (entry.claim() && validate(entry)) {
+        return entry.object;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Validates a claimed entry, destroying it if it is invalid.
+   */
+  private boolean validate(PoolEntry<T> entry) {
+    if (isValid(entry)) {
+      return true;
+    }
+    destroy(entry);
+    return false;
+  }
+
+  private boolean isValid(PoolEntry<T> entry) {
+    try {
+      return factory.validate(entry.object);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Validation of {} failed", entry.object, e);
+      return false;
+    }
+  }
+
+  /**
+   * Creates an object in a slot already reserved in size.
+   */
+  private PoolEntry<T> create(int state) {
+    T object;
+    try {
+      object = factory.create();
+    } catch (RuntimeException | Error e) {
+      size.decrementAndGet();
+      throw e;
+    }
+    createdCount.increment();
+    PoolEntry<T> entry = new PoolEntry<>(object, state);
+    entriesByObject.put(object, entry);
+    entries.add(entry);
+    return entry;
+  }
+
+  /**
+   * Destroys a claimed entry and frees its slot.
+   */
+  private void destroy(PoolEntry<T> entry) {
+    entry.destroyed();
+    entries.remove(entry);
+    entriesByObject.remove(entry.object);
+    size.decrementAndGet();
+    destroyedCount.increment();
+    try {
+      factory.destroy(entry.object);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Destruction of {} failed", entry.object, e);
+    }
+  }
+
+  /**
+   * A parked borrower could create an object in a freed slot, but it only wakes up on a hand off.
+   */
+  private void replaceForWaiters() {
+    int current;
+    while (waiters.get() > 0 && !closed && (current = size.get()) < maxSize) {
+      if (size.compareAndSet(current, current + 1)) {
+        handOff(create(PoolEntry.IDLE));
+        return;
+      }
+    }
+  }
+
+  /**
+   * Hands an idle entry to a parked borrower, unless somebody else claims it first. A borrower
+   * still scanning when the entry was released has not reached the hand off yet, so the returning
+   * thread parks briefly for it rather than leaving it parked next to an idle object.
+   */
+  private void handOff(PoolEntry<T> entry) {
+    try {
+      while (waiters.get() > 0 && entry.isIdle()) {
+        if (handoff.offer(entry, HANDOFF_WAIT_NANOS, TimeUnit.NANOSECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    PoolMetrics metrics = getMetrics();
+    return String.format("Pool available=%d inUse=%d", metrics.getIdle(), metrics.getActive());
+  }
+
+  /**
+   * An object of the pool and its state.
+   */
+  private static class PoolEntry<T> {
+
+    static final int IDLE = 0;
+    static final int IN_USE = 1;
+    static final int DESTROYED = 2;
+
+    private final T object;
+    private final AtomicInteger state;
+    private volatile long lastReturnedNanos = System.nanoTime();
+
+    PoolEntry(T object, int state) {
+      this.object = object;
+      this.state = new AtomicInteger(state);
+    }
+
+    boolean claim() {
+      return state.get() == IDLE && state.compareAndSet(IDLE, IN_USE);
+    }
+
+    void release() {
+      lastReturnedNanos = System.nanoTime();
+      state.set(IDLE);
+    }
+
+    void destroyed() {
+      state.set(DESTROYED);
+    }
+
+    boolean isIdle() {
+      return state.get() == IDLE;
+    }
+
+    boolean isInUse() {
+      return state.get() == IN_USE;
+    }
+  }
+}
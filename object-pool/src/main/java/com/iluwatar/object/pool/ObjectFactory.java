@@ -0,0 +1,68 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+/**
+ * Creates the objects of a {@link BoundedObjectPool} and manages their lifecycle. Only
+ * {@link #create()} is mandatory, the other hooks do nothing by default.
+ *
+ * @param <T> Type T of Object in the Pool
+ */
+@FunctionalInterface
+public interface ObjectFactory<T> {
+
+  /**
+   * Creates a new object. It is called outside of any lock of the pool.
+   *
+   * @return the object
+   */
+  T create();
+
+  /**
+   * Checks that an idle object can still be used, before it is checked out and while it is idle.
+   * Invalid objects are destroyed.
+   *
+   * @param object the object
+   * @return false if the object is stale
+   */
+  default boolean validate(T object) {
+    return true;
+  }
+
+  /**
+   * Restores the initial state of an object when it is checked in. If it throws, the object is
+   * destroyed.
+   *
+   * @param object the object
+   */
+  default void reset(T object) {
+  }
+
+  /**
+   * Releases the resources of an object removed from the pool.
+   *
+   * @param object the object
+   */
+  default void destroy(T object) {
+  }
+}
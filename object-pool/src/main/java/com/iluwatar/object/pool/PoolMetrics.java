@@ -0,0 +1,128 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the metrics of a {@link BoundedObjectPool}. The counters only grow, rates are
+ * computed by the scraper from two snapshots.
+ */
+public class PoolMetrics {
+
+  private final int active;
+  private final int idle;
+  private final int maxSize;
+  private final long borrowCount;
+  private final long timeoutCount;
+  private final long totalBorrowWaitNanos;
+  private final long maxBorrowWaitNanos;
+  private final long createdCount;
+  private final long destroyedCount;
+
+  PoolMetrics(int active, int idle, int maxSize, long borrowCount, long timeoutCount,
+      long totalBorrowWaitNanos, long maxBorrowWaitNanos, long createdCount,
+      long destroyedCount) {
+    this.active = active;
+    this.idle = idle;
+    this.maxSize = maxSize;
+    this.borrowCount = borrowCount;
+    this.timeoutCount = timeoutCount;
+    this.totalBorrowWaitNanos = totalBorrowWaitNanos;
+    this.maxBorrowWaitNanos = maxBorrowWaitNanos;
+    this.createdCount = createdCount;
+    this.destroyedCount = destroyedCount;
+  }
+
+  /**
+   * Number of objects checked out.
+   */
+  public int getActive() {
+    return active;
+  }
+
+  /**
+   * Number of objects available in the pool.
+   */
+  public int getIdle() {
+    return idle;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Number of successful checkouts.
+   */
+  public long getBorrowCount() {
+    return borrowCount;
+  }
+
+  /**
+   * Number of checkouts that timed out.
+   */
+  public long getTimeoutCount() {
+    return timeoutCount;
+  }
+
+  /**
+   * Time spent in successful checkouts, including the creation of new objects.
+   */
+  public long getTotalBorrowWaitNanos() {
+    return totalBorrowWaitNanos;
+  }
+
+  public long getMaxBorrowWaitNanos() {
+    return maxBorrowWaitNanos;
+  }
+
+  /**
+   * Mean time of a successful checkout in microseconds.
+   */
+  public double getMeanBorrowWaitMicros() {
+    return borrowCount == 0 ? 0
+        : (double) totalBorrowWaitNanos / borrowCount / TimeUnit.MICROSECONDS.toNanos(1);
+  }
+
+  /**
+   * Number of objects created since the pool was started, including the pre-warmed ones.
+   */
+  public long getCreatedCount() {
+    return createdCount;
+  }
+
+  /**
+   * Number of objects destroyed because they were invalid, failed to reset or were evicted.
+   */
+  public long getDestroyedCount() {
+    return destroyedCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("PoolMetrics active=%d idle=%d borrowed=%d timeouts=%d meanWait=%.1fus"
+        + " created=%d destroyed=%d", active, idle, borrowCount, timeoutCount,
+        getMeanBorrowWaitMicros(), createdCount, destroyedCount);
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PoolMonitorMBean} implementation reading fresh {@link PoolMetrics} from the pool on every
+ * attribute access.
+ */
+public class PoolMonitor implements PoolMonitorMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PoolMonitor.class);
+
+  private final BoundedObjectPool<?> pool;
+
+  public PoolMonitor(BoundedObjectPool<?> pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Registers a monitor of the pool with the platform MBean server under
+   * {@code com.iluwatar.object.pool:type=ObjectPool,name=<name>}, unless one is already registered.
+   *
+   * @param name the name of the pool
+   * @param pool the pool
+   */
+  public static void register(String name, BoundedObjectPool<?> pool) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName objectName =
+          new ObjectName("com.iluwatar.object.pool:type=ObjectPool,name=" + name);
+      if (!server.isRegistered(objectName)) {
+        server.registerMBean(new PoolMonitor(pool), objectName);
+      }
+    } catch (JMException e) {
+      LOGGER.warn("Unable to register object pool MBean", e);
+    }
+  }
+
+  @Override
+  public int getActive() {
+    return pool.getMetrics().getActive();
+  }
+
+  @Override
+  public int getIdle() {
+    return pool.getMetrics().getIdle();
+  }
+
+  @Override
+  public int getMaxSize() {
+    return pool.getMaxSize();
+  }
+
+  @Override
+  public long getBorrowCount() {
+    return pool.getMetrics().getBorrowCount();
+  }
+
+  @Override
+  public long getTimeoutCount() {
+    return pool.getMetrics().getTimeoutCount();
+  }
+
+  @Override
+  public double getMeanBorrowWaitMicros() {
+    return pool.getMetrics().getMeanBorrowWaitMicros();
+  }
+
+  @Override
+  public long getMaxBorrowWaitNanos() {
+    return pool.getMetrics().getMaxBorrowWaitNanos();
+  }
+
+  @Override
+  public long getCreatedCount() {
+    return pool.getMetrics().getCreatedCount();
+  }
+
+  @Override
+  public long getDestroyedCount() {
+    return pool.getMetrics().getDestroyedCount();
+  }
+}
@@ -0,0 +1,251 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link BoundedObjectPool}.
+ */
+public class BoundedObjectPoolTest {
+
+  private final AtomicInteger created = new AtomicInteger();
+
+  @Test
+  public void testMinSizeIsCreatedUpFrontAndReused() throws InterruptedException {
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(this::create, 2, 4);
+    assertEquals(2, created.get());
+    assertEquals("Pool available=2 inUse=0", pool.toString());
+
+    Object object = pool.checkOut();
+    pool.checkIn(object);
+    for (int i = 0; i < 100; i++) {
+      Object again = pool.checkOut();
+      assertSame(object, again);
+      pool.checkIn(again);
+    }
+    assertEquals(2, created.get());
+  }
+
+  @Test
+  public void testCheckOutTimesOutWhenExhausted() throws InterruptedException {
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(this::create, 0, 2);
+    pool.checkOut();
+    pool.checkOut();
+
+    long start = System.nanoTime();
+    assertNull(pool.checkOut(50, TimeUnit.MILLISECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(2, created.get());
+  }
+
+  @Test
+  public void testParkedBorrowerGetsTheCheckedInObject() throws Exception {
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(this::create, 0, 1);
+    Object object = pool.checkOut();
+    CountDownLatch started = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Object> borrowed = executor.submit(() -> {
+      started.countDown();
+      return pool.checkOut(5, TimeUnit.SECONDS);
+    });
+    started.await();
+    Thread.sleep(20);
+
+    pool.checkIn(object);
+
+    assertSame(object, borrowed.get(5, TimeUnit.SECONDS));
+    executor.shutdown();
+  }
+
+  @Test
+  public void testConcurrentBorrowersNeverShareAnObjectOrExceedMaxSize() throws Exception {
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(this::create, 0, 4);
+    Set<Object> inUse = Collections.synchronizedSet(
+        Collections.newSetFromMap(new IdentityHashMap<>()));
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 16; t++) {
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 2000; i++) {
+          Object object = pool.checkOut(5, TimeUnit.SECONDS);
+          assertTrue(inUse.add(object));
+          assertTrue(inUse.remove(object));
+          pool.checkIn(object);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertTrue(created.get() <= 4);
+    assertEquals(created.get(), pool.getSize());
+    assertFalse(pool.toString().contains("inUse=1"));
+  }
+
+  @Test
+  public void testForeignObjectIsRejected() {
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(this::create, 1, 1);
+    assertThrows(IllegalArgumentException.class, () -> pool.checkIn(new Object()));
+  }
+
+  @Test
+  public void testInvalidObjectsAreDestroyedOnCheckOut() throws InterruptedException {
+    Set<Object> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<Object> destroyed = new ArrayList<>();
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(new TestFactory() {
+      @Override
+      public boolean validate(Object object) {
+        return !stale.contains(object);
+      }
+
+      @Override
+      public void destroy(Object object) {
+        destroyed.add(object);
+      }
+    }, 1, 1);
+    Object first = pool.checkOut();
+    pool.checkIn(first);
+    stale.add(first);
+
+    Object second = pool.checkOut();
+
+    assertFalse(first == second);
+    assertEquals(Collections.singletonList(first), destroyed);
+    assertEquals(1, pool.getSize());
+    assertEquals(2, pool.getMetrics().getCreatedCount());
+    assertEquals(1, pool.getMetrics().getDestroyedCount());
+  }
+
+  @Test
+  public void testObjectsAreResetOnCheckInAndDestroyedIfTheResetFails() throws Exception {
+    List<Object> reset = new ArrayList<>();
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(new TestFactory() {
+      @Override
+      public void reset(Object object) {
+        reset.add(object);
+        if (reset.size() > 1) {
+          throw new IllegalStateException("broken");
+        }
+      }
+    }, 0, 1);
+    Object object = pool.checkOut();
+    pool.checkIn(object);
+    assertEquals(Collections.singletonList(object), reset);
+
+    Object same = pool.checkOut();
+    pool.checkIn(same);
+    assertEquals(0, pool.getSize());
+    assertFalse(object == pool.checkOut(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testEvictorTrimsIdleObjectsDownToMinIdle() throws InterruptedException {
+    BoundedObjectPool<Object> pool =
+        new BoundedObjectPool<>(this::create, 2, 8, 0, 0, TimeUnit.MILLISECONDS);
+    List<Object> objects = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      objects.add(pool.checkOut());
+    }
+    for (Object object : objects) {
+      pool.checkIn(object);
+    }
+    assertEquals("Pool available=6 inUse=0", pool.toString());
+
+    pool.evict();
+
+    assertEquals("Pool available=2 inUse=0", pool.toString());
+    assertEquals(4, pool.getMetrics().getDestroyedCount());
+  }
+
+  @Test
+  public void testEvictorRefillsToMinIdle() throws InterruptedException {
+    BoundedObjectPool<Object> pool =
+        new BoundedObjectPool<>(this::create, 2, 4, 1, 10, TimeUnit.MILLISECONDS);
+    assertEquals(2, created.get());
+    pool.checkOut();
+    pool.checkOut();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (pool.getMetrics().getIdle() < 2) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+    assertEquals(4, pool.getSize());
+    pool.close();
+  }
+
+  @Test
+  public void testMetricsCountBorrowsAndTimeouts() throws InterruptedException {
+    BoundedObjectPool<Object> pool = new BoundedObjectPool<>(this::create, 1, 1);
+    Object object = pool.checkOut();
+    assertNull(pool.checkOut(10, TimeUnit.MILLISECONDS));
+    pool.checkIn(object);
+    pool.checkIn(pool.checkOut());
+
+    PoolMetrics metrics = pool.getMetrics();
+    assertEquals(2, metrics.getBorrowCount());
+    assertEquals(1, metrics.getTimeoutCount());
+    assertEquals(1, metrics.getIdle());
+    assertEquals(0, metrics.getActive());
+    assertEquals(1, metrics.getCreatedCount());
+    assertTrue(metrics.getTotalBorrowWaitNanos() >= metrics.getMaxBorrowWaitNanos());
+  }
+
+  private Object create() {
+    created.incrementAndGet();
+    return new Object();
+  }
+
+  /**
+   * Factory counting the created objects, for the tests overriding the lifecycle hooks.
+   */
+  private class TestFactory implements ObjectFactory<Object> {
+    @Override
+    public Object create() {
+      return BoundedObjectPoolTest.this.create();
+    }
+  }
+}
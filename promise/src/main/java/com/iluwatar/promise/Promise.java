@@ -25,6 +25,10 @@ package com.iluwatar.promise;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -34,20 +38,66 @@ import java.util.function.Function;
  * failure reason. This lets asynchronous methods return values like synchronous methods: instead 
  * of the final value, the asynchronous method returns a promise of having a value at some point 
  * in the future.
+ *
+ * <p>Any number of dependents can be chained on a promise. Each stage runs in the thread that
+ * fulfills its source, or in the calling thread if the source is already fulfilled, unless an
+ * executor is given for it. A failure skips the dependent actions and fails the dependent
+ * promises with the same exception. Only the first fulfillment of a promise takes effect.
  * 
  * @param <T> type of result.
  */
 public class Promise<T> extends PromiseSupport<T> {
 
-  private Runnable fulfillmentAction;
-  private Consumer<? super Throwable> exceptionHandler;
-
   /**
    * Creates a promise that will be fulfilled in future.
    */
   public Promise() {
   }
 
+  /**
+   * Returns a new promise that is fulfilled once all the given promises are fulfilled, or fails
+   * as soon as any of them fails.
+   * @param promises the promises to wait for.
+   * @return a new promise.
+   */
+  public static Promise<Void> allOf(Promise<?>... promises) {
+    Promise<Void> dest = new Promise<>();
+    AtomicInteger remaining = new AtomicInteger(promises.length);
+    if (promises.length == 0) {
+      dest.fulfill(null);
+    }
+    for (Promise<?> promise : promises) {
+      promise.whenDone((value, exception) -> {
+        if (exception != null) {
+          dest.fulfillExceptionally(exception);
+        } else if (remaining.decrementAndGet() == 0) {
+          dest.fulfill(null);
+        }
+      });
+    }
+    return dest;
+  }
+
+  /**
+   * Returns a new promise that is fulfilled the same way as the first of the given promises to be
+   * fulfilled. With no promises given it is never fulfilled.
+   * @param promises the promises to wait for.
+   * @return a new promise.
+   */
+  public static Promise<Object> anyOf(Promise<?>... promises) {
+    Promise<Object> dest = new Promise<>();
+    for (Promise<?> promise : promises) {
+      promise.whenDone((value, exception) -> {
+        if (exception != null) {
+          dest.fulfillExceptionally(exception);
+        } else {
+          dest.fulfill(value);
+        }
+      });
+    }
+    return dest;
+  }
+
   /**
    * Fulfills the promise with the provided value.
    * @param value the fulfilled value that can be accessed using {@link #get()}.
@@ -55,7 +105,6 @@ public class Promise<T> extends PromiseSupport<T> {
   @Override
   public void fulfill(T value) {
     super.fulfill(value);
-    postFulfillment();
   }
 
   /**
@@ -66,22 +115,6 @@ public class Promise<T> extends PromiseSupport<T> {
   @Override
   public void fulfillExceptionally(Exception exception) {
     super.fulfillExceptionally(exception);
-    handleException(exception);
-    postFulfillment();
-  }
-
-  private void handleException(Exception exception) {
-    if (exceptionHandler == null) {
-      return;
-    }
-    exceptionHandler.accept(exception);
-  }
-
-  private void postFulfillment() {
-    if (fulfillmentAction == null) {
-      return;
-    }
-    fulfillmentAction.run();
   }
 
   /**
@@ -110,19 +143,34 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a new promise.
    */
   public Promise<Void> thenAccept(Consumer<? super T> action) {
-    Promise<Void> dest = new Promise<>();
-    fulfillmentAction = new ConsumeAction(this, dest, action);
-    return dest;
+    return thenAccept(action, null);
+  }
+
+  /**
+   * Same as {@link #thenAccept(Consumer)}, running the action in the executor provided.
+   * @param action action to be executed.
+   * @param executor the executor in which the action should be run.
+   * @return a new promise.
+   */
+  public Promise<Void> thenAccept(Consumer<? super T> action, Executor executor) {
+    return then(executor, (value, dest) -> {
+      action.accept(value);
+      dest.fulfill(null);
+    });
   }
   
   /**
-   * Set the exception handler on this promise.
+   * Adds an exception handler on this promise.
    * @param exceptionHandler a consumer that will handle the exception occurred while fulfilling
    *            the promise.
    * @return this
    */
   public Promise<T> onError(Consumer<? super Throwable> exceptionHandler) {
-    this.exceptionHandler = exceptionHandler;
+    whenDone((value, exception) -> {
+      if (exception != null) {
+        exceptionHandler.accept(exception);
+      }
+    });
     return this;
   }
 
@@ -133,61 +181,99 @@ public class Promise<T> extends PromiseSupport<T> {
    * @return a new promise.
    */
   public <V> Promise<V> thenApply(Function<? super T, V> func) {
-    Promise<V> dest = new Promise<>();
-    fulfillmentAction = new TransformAction<V>(this, dest, func);
-    return dest;
+    return thenApply(func, null);
   }
 
   /**
-   * Accesses the value from source promise and calls the consumer, then fulfills the
-   * destination promise.
+   * Same as {@link #thenApply(Function)}, running the function in the executor provided.
+   * @param func function to be executed.
+   * @param executor the executor in which the function should be run.
+   * @return a new promise.
    */
-  private class ConsumeAction implements Runnable {
-
-    private final Promise<T> src;
-    private final Promise<Void> dest;
-    private final Consumer<? super T> action;
+  public <V> Promise<V> thenApply(Function<? super T, V> func, Executor executor) {
+    return then(executor, (value, dest) -> dest.fulfill(func.apply(value)));
+  }
 
-    private ConsumeAction(Promise<T> src, Promise<Void> dest, Consumer<? super T> action) {
-      this.src = src;
-      this.dest = dest;
-      this.action = action;
-    }
+  /**
+   * Returns a new promise that, when this promise is fulfilled normally, is fulfilled the same way
+   * as the promise returned by the function provided.
+   * @param func function returning the next promise.
+   * @return a new promise.
+   */
+  public <V> Promise<V> thenCompose(Function<? super T, Promise<V>> func) {
+    return thenCompose(func, null);
+  }
 
-    @Override
-    public void run() {
-      try {
-        action.accept(src.get());
-        dest.fulfill(null);
-      } catch (Throwable throwable) {
-        dest.fulfillExceptionally((Exception) throwable.getCause());
+  /**
+   * Same as {@link #thenCompose(Function)}, running the function in the executor provided.
+   * @param func function returning the next promise.
+   * @param executor the executor in which the function should be run.
+   * @return a new promise.
+   */
+  public <V> Promise<V> thenCompose(Function<? super T, Promise<V>> func, Executor executor) {
+    return then(executor, (value, dest) -> func.apply(value).whenDone((result, exception) -> {
+      if (exception != null) {
+        dest.fulfillExceptionally(exception);
+      } else {
+        dest.fulfill(result);
       }
-    }
+    }));
   }
 
   /**
-   * Accesses the value from source promise, then fulfills the destination promise using the
-   * transformed value. The source value is transformed using the transformation function.
+   * Returns a new promise that, when both this and the other promise are fulfilled normally, is
+   * fulfilled with their results as arguments to the function provided.
+   * @param other the other promise.
+   * @param func function to be executed.
+   * @return a new promise.
    */
-  private class TransformAction<V> implements Runnable {
-
-    private final Promise<T> src;
-    private final Promise<V> dest;
-    private final Function<? super T, V> func;
+  public <U, V> Promise<V> thenCombine(Promise<U> other,
+      BiFunction<? super T, ? super U, V> func) {
+    return thenCombine(other, func, null);
+  }
 
-    private TransformAction(Promise<T> src, Promise<V> dest, Function<? super T, V> func) {
-      this.src = src;
-      this.dest = dest;
-      this.func = func;
-    }
+  /**
+   * Same as {@link #thenCombine(Promise, BiFunction)}, running the function in the executor
+   * provided.
+   * @param other the other promise.
+   * @param func function to be executed.
+   * @param executor the executor in which the function should be run.
+   * @return a new promise.
+   */
+  public <U, V> Promise<V> thenCombine(Promise<U> other,
+      BiFunction<? super T, ? super U, V> func, Executor executor) {
+    return thenCompose(value -> other.thenApply(otherValue -> func.apply(value, otherValue),
+        executor));
+  }
 
-    @Override
-    public void run() {
+  /**
+   * Chains a new promise that the step provided fulfills from the value of this promise, in the
+   * executor if one is given. The new promise fails if this one does, or if the step throws.
+   */
+  private <V> Promise<V> then(Executor executor, BiConsumer<? super T, Promise<V>> step) {
+    Promise<V> dest = new Promise<>();
+    whenDone((value, exception) -> {
+      if (exception != null) {
+        dest.fulfillExceptionally(exception);
+        return;
+      }
+      Runnable action = () -> {
+        try {
+          step.accept(value, dest);
+        } catch (Exception ex) {
+          dest.fulfillExceptionally(ex);
+        }
+      };
+      if (executor == null) {
+        action.run();
+        return;
+      }
       try {
-        dest.fulfill(func.apply(src.get()));
-      } catch (Throwable throwable) {
-        dest.fulfillExceptionally((Exception) throwable.getCause());
+        executor.execute(action);
+      } catch (RejectedExecutionException ex) {
+        dest.fulfillExceptionally(ex);
       }
-    }
+    });
+    return dest;
   }
-}
\ No newline at end of file
+}
@@ -26,6 +26,9 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,41 +36,94 @@ import org.slf4j.LoggerFactory;
 /**
  * A really simplified implementation of future that allows completing it successfully with a value 
  * or exceptionally with an exception.
+ *
+ * <p>The future is lock free. Completion is a single CAS of the outcome, and everything waiting on
+ * it, be it a blocked thread or a completion callback, is pushed onto a Treiber stack. The
+ * completing thread swaps the stack for a closed marker and fires the popped nodes in the order
+ * they were registered, while a push that finds the marker runs its node directly.
  */
 class PromiseSupport<T> implements Future<T> {
   
   private static final Logger LOGGER = LoggerFactory.getLogger(PromiseSupport.class);
 
-  private static final int RUNNING = 1;
-  private static final int FAILED = 2;
-  private static final int COMPLETED = 3;
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<PromiseSupport, Outcome> OUTCOME =
+      AtomicReferenceFieldUpdater.newUpdater(PromiseSupport.class, Outcome.class, "outcome");
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<PromiseSupport, Node> STACK =
+      AtomicReferenceFieldUpdater.newUpdater(PromiseSupport.class, Node.class, "stack");
 
-  private final Object lock;
+  private static final Node CLOSED = new Node() {
+    @Override
+    void fire(Outcome outcome) {
+      // marks a completed promise, never fired
+    }
+  };
 
-  private volatile int state = RUNNING;
-  private T value;
-  private Exception exception;
+  private volatile Outcome outcome;
+  private volatile Node stack;
 
   PromiseSupport() {
-    this.lock = new Object();
   }
 
+  /**
+   * Completes this future with the value unless it has already been completed.
+   */
   void fulfill(T value) {
-    this.value = value;
-    this.state = COMPLETED;
-    synchronized (lock) {
-      lock.notifyAll();
-    }
+    complete(new Outcome(value, null));
   }
 
+  /**
+   * Completes this future with the exception unless it has already been completed.
+   */
   void fulfillExceptionally(Exception exception) {
-    this.exception = exception;
-    this.state = FAILED;
-    synchronized (lock) {
-      lock.notifyAll();
+    complete(new Outcome(null, exception));
+  }
+
+  /**
+   * Registers an action that receives the value, or the exception, once this future completes. The
+   * action runs in the completing thread, or right away in the calling thread if already done.
+   */
+  void whenDone(BiConsumer<? super T, ? super Exception> action) {
+    Callback<T> callback = new Callback<>(action);
+    if (!push(callback)) {
+      callback.fire(outcome);
     }
   }
 
+  private void complete(Outcome result) {
+    if (!OUTCOME.compareAndSet(this, null, result)) {
+      return;
+    }
+    Node head = STACK.getAndSet(this, CLOSED);
+    Node registered = null;
+    while (head != null) {
+      Node next = head.next;
+      head.next = registered;
+      registered = head;
+      head = next;
+    }
+    for (Node node = registered; node != null; node = node.next) {
+      try {
+        node.fire(result);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Completion callback failed", e);
+      }
+    }
+  }
+
+  private boolean push(Node node) {
+    Node head;
+    do {
+      head = stack;
+      if (head == CLOSED) {
+        return false;
+      }
+      node.next = head;
+    } while (!STACK.compareAndSet(this, head, node));
+    return true;
+  }
+
   @Override
   public boolean cancel(boolean mayInterruptIfRunning) {
     return false;
@@ -80,39 +136,137 @@ class PromiseSupport<T> implements Future<T> {
 
   @Override
   public boolean isDone() {
-    return state > RUNNING;
+    return outcome != null;
   }
 
   @Override
   public T get() throws InterruptedException, ExecutionException {
-    synchronized (lock) {
-      while (state == RUNNING) {
-        lock.wait();
-      }
+    Outcome result = outcome;
+    if (result == null) {
+      result = awaitDone(false, 0L);
     }
-    if (state == COMPLETED) {
-      return value;
-    } 
-    throw new ExecutionException(exception);
+    return report(result);
   }
 
   @Override
   public T get(long timeout, TimeUnit unit)
-      throws  ExecutionException, TimeoutException {
-    synchronized (lock) {
-      while (state == RUNNING) {
-        try {
-          lock.wait(unit.toMillis(timeout));
-        } catch (InterruptedException e) {
-          LOGGER.warn("Interrupted!", e);
-          Thread.currentThread().interrupt();
+      throws InterruptedException, ExecutionException, TimeoutException {
+    Outcome result = outcome;
+    if (result == null) {
+      result = awaitDone(true, unit.toNanos(timeout));
+      if (result == null) {
+        throw new TimeoutException();
+      }
+    }
+    return report(result);
+  }
+
+  /**
+   * Parks the calling thread until this future completes, returning null if the timed wait
+   * elapses first. A waiter given up on stays on the stack, with its thread cleared, until the
+   * future completes.
+   */
+  private Outcome awaitDone(boolean timed, long nanos) throws InterruptedException {
+    long deadline = timed ? System.nanoTime() + nanos : 0L;
+    Waiter waiter = null;
+    Outcome result;
+    while ((result = outcome) == null) {
+      if (Thread.interrupted()) {
+        release(waiter);
+        throw new InterruptedException();
+      }
+      if (waiter == null) {
+        waiter = new Waiter(Thread.currentThread());
+        push(waiter);
+      } else if (timed) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0L) {
+          release(waiter);
+          return null;
         }
+        LockSupport.parkNanos(this, remaining);
+      } else {
+        LockSupport.park(this);
+      }
+    }
+    release(waiter);
+    return result;
+  }
+
+  private static void release(Waiter waiter) {
+    if (waiter != null) {
+      waiter.thread = null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T report(Outcome result) throws ExecutionException {
+    if (result.exception == null) {
+      return (T) result.value;
+    }
+    throw new ExecutionException(result.exception);
+  }
+
+  /**
+   * The immutable result of a completed future.
+   */
+  private static final class Outcome {
+
+    private final Object value;
+    private final Exception exception;
+
+    private Outcome(Object value, Exception exception) {
+      this.value = value;
+      this.exception = exception;
+    }
+  }
+
+  /**
+   * An entry of the stack of things waiting on completion.
+   */
+  private abstract static class Node {
+
+    private Node next;
+
+    abstract void fire(Outcome outcome);
+  }
+
+  /**
+   * A thread blocked in one of the get methods.
+   */
+  private static final class Waiter extends Node {
+
+    private volatile Thread thread;
+
+    private Waiter(Thread thread) {
+      this.thread = thread;
+    }
+
+    @Override
+    void fire(Outcome outcome) {
+      Thread parked = thread;
+      if (parked != null) {
+        thread = null;
+        LockSupport.unpark(parked);
       }
     }
-    
-    if (state == COMPLETED) {
-      return value;
-    } 
-    throw new ExecutionException(exception);
   }
-}
\ No newline at end of file
+
+  /**
+   * An action registered through {@link #whenDone(BiConsumer)}.
+   */
+  private static final class Callback<T> extends Node {
+
+    private final BiConsumer<? super T, ? super Exception> action;
+
+    private Callback(BiConsumer<? super T, ? super Exception> action) {
+      this.action = action;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void fire(Outcome outcome) {
+      action.accept((T) outcome.value, outcome.exception);
+    }
+  }
+}
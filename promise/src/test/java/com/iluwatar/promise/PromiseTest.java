@@ -25,9 +25,12 @@ package com.iluwatar.promise;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -36,6 +39,7 @@ import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Matchers.eq;
@@ -231,6 +235,119 @@ public class PromiseTest {
     verify(exceptionHandler).accept(eq(exception));
   }
 
+  @Test
+  public void timedGetThrowsTimeoutExceptionIfPromiseIsNotFulfilledInTime()
+      throws InterruptedException, ExecutionException {
+    Promise<Integer> promise = new Promise<>();
+    try {
+      promise.get(50, TimeUnit.MILLISECONDS);
+      fail("Fetching an unfulfilled promise should time out");
+    } catch (TimeoutException ex) {
+      assertFalse(promise.isDone());
+    }
+  }
+
+  @Test
+  public void everyDependentPromiseIsFulfilled() throws InterruptedException, ExecutionException {
+    List<Promise<Integer>> dependents = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      int offset = i;
+      dependents.add(promise.thenApply(value -> value - offset));
+    }
+    promise.fulfillInAsync(new NumberCrunchingTask(), executor);
+
+    for (int i = 0; i < dependents.size(); i++) {
+      assertEquals(Integer.valueOf(NumberCrunchingTask.CRUNCHED_NUMBER - i),
+          dependents.get(i).get());
+    }
+  }
+
+  @Test
+  public void dependentPromiseChainedOnFulfilledPromiseIsFulfilledImmediately()
+      throws InterruptedException, ExecutionException {
+    promise.fulfill(1);
+
+    Promise<Integer> dependentPromise = promise.thenApply(value -> value + 1);
+
+    assertTrue(dependentPromise.isDone());
+    assertEquals(Integer.valueOf(2), dependentPromise.get());
+  }
+
+  @Test
+  public void dependentPromiseFailsWithTheExceptionOfThisPromise() throws InterruptedException {
+    Exception exception = new Exception("barf!");
+    Promise<String> dependentPromise = promise.thenApply(String::valueOf);
+    promise.fulfillExceptionally(exception);
+
+    try {
+      dependentPromise.get();
+      fail("Fetching dependent promise should result in exception if this promise failed");
+    } catch (ExecutionException ex) {
+      assertSame(exception, ex.getCause());
+    }
+  }
+
+  @Test
+  public void composedPromiseIsFulfilledWithTheResultOfTheReturnedPromise()
+      throws InterruptedException, ExecutionException {
+    Promise<String> composedPromise = promise
+        .fulfillInAsync(new NumberCrunchingTask(), executor)
+        .thenCompose(value -> new Promise<String>()
+            .fulfillInAsync(() -> String.valueOf(value), executor));
+
+    assertEquals(String.valueOf(NumberCrunchingTask.CRUNCHED_NUMBER), composedPromise.get());
+  }
+
+  @Test
+  public void combinedPromiseIsFulfilledWithTheResultsOfBothPromises()
+      throws InterruptedException, ExecutionException {
+    Promise<String> other = new Promise<String>().fulfillInAsync(() -> "crunched ", executor);
+    Promise<String> combinedPromise = promise
+        .fulfillInAsync(new NumberCrunchingTask(), executor)
+        .thenCombine(other, (value, prefix) -> prefix + value);
+
+    assertEquals("crunched " + NumberCrunchingTask.CRUNCHED_NUMBER, combinedPromise.get());
+  }
+
+  @Test
+  public void dependentActionRunsInTheExecutorOfItsStage()
+      throws InterruptedException, ExecutionException {
+    ExecutorService stageExecutor = Executors.newSingleThreadExecutor(
+        runnable -> new Thread(runnable, "stage"));
+    try {
+      promise.fulfill(1);
+      Promise<String> dependentPromise = promise
+          .thenApply(value -> Thread.currentThread().getName(), stageExecutor);
+
+      assertEquals("stage", dependentPromise.get());
+    } finally {
+      stageExecutor.shutdown();
+    }
+  }
+
+  @Test
+  public void allOfIsFulfilledOnceEveryPromiseIsFulfilled()
+      throws InterruptedException, ExecutionException {
+    Promise<String> other = new Promise<>();
+    Promise<Void> all = Promise.allOf(promise, other);
+
+    promise.fulfill(1);
+    assertFalse(all.isDone());
+    other.fulfill("one");
+    all.get();
+    assertTrue(all.isDone());
+  }
+
+  @Test
+  public void anyOfIsFulfilledWithTheFirstResult() throws InterruptedException, ExecutionException {
+    Promise<String> other = new Promise<>();
+    Promise<Object> any = Promise.anyOf(promise, other);
+
+    other.fulfill("one");
+    promise.fulfill(1);
+    assertEquals("one", any.get());
+  }
+
   private static class NumberCrunchingTask implements Callable<Integer> {
 
     private static final Integer CRUNCHED_NUMBER = Integer.MAX_VALUE;
@@ -25,10 +25,13 @@ package com.iluwatar.reactor.app;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.iluwatar.reactor.framework.AbstractNioChannel;
 import com.iluwatar.reactor.framework.ChannelHandler;
 import com.iluwatar.reactor.framework.Dispatcher;
+import com.iluwatar.reactor.framework.IdleStateHandler;
+import com.iluwatar.reactor.framework.LineFrameDecoder;
 import com.iluwatar.reactor.framework.NioDatagramChannel;
 import com.iluwatar.reactor.framework.NioReactor;
 import com.iluwatar.reactor.framework.NioServerSocketChannel;
@@ -92,9 +95,13 @@ import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
  */
 public class App {
 
+  private static final int MAX_LOG_REQUEST_LENGTH = 4096;
+  private static final long IDLE_TIMEOUT_SECONDS = 60;
+
   private NioReactor reactor;
   private List<AbstractNioChannel> channels = new ArrayList<>();
   private Dispatcher dispatcher;
+  private int workerCount;
 
   /**
    * Creates an instance of App which will use provided dispatcher for dispatching events on
@@ -103,7 +110,19 @@ public class App {
    * @param dispatcher the dispatcher that will be used to dispatch events.
    */
   public App(Dispatcher dispatcher) {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates an instance of App which runs the reactor in multi-reactor mode, with an acceptor loop
+   * handing TCP connections to {@code workerCount} worker loops.
+   * 
+   * @param dispatcher the dispatcher that will be used to dispatch events.
+   * @param workerCount the number of worker event loops, zero for a single reactor.
+   */
+  public App(Dispatcher dispatcher, int workerCount) {
     this.dispatcher = dispatcher;
+    this.workerCount = workerCount;
   }
 
   /**
@@ -122,7 +141,7 @@ public class App {
     /*
      * The application can customize its event dispatching mechanism.
      */
-    reactor = new NioReactor(dispatcher);
+    reactor = new NioReactor(dispatcher, workerCount);
 
     /*
      * This represents application specific business logic that dispatcher will call on appropriate
@@ -155,6 +174,14 @@ public class App {
 
   private AbstractNioChannel tcpChannel(int port, ChannelHandler handler) throws IOException {
     NioServerSocketChannel channel = new NioServerSocketChannel(port, handler);
+    /*
+     * TCP is a stream, so a read may carry several log requests or part of one. The clients send one
+     * request per line, which the decoder turns into one read event per request.
+     */
+    channel.getPipeline()
+        .addInbound(new LineFrameDecoder(MAX_LOG_REQUEST_LENGTH))
+        // clients which stopped sending, or vanished without closing, are disconnected
+        .addInbound(new IdleStateHandler(IDLE_TIMEOUT_SECONDS, 0, TimeUnit.SECONDS, true));
     channel.bind();
     channels.add(channel);
     return channel;
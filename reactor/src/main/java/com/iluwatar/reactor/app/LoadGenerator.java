@@ -0,0 +1,366 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator for the logging service of {@link App}. Each connection, TCP or UDP, sends log
+ * requests at a fixed rate and waits for the acknowledgement before sending the next one, so the
+ * load is closed-loop and the server is never flooded beyond what it acknowledges.
+ *
+ * <p>
+ * Latency is measured from the time a request was <i>scheduled</i> to be sent, not from the time
+ * it was actually sent. When the server stalls, the requests which should have been sent meanwhile
+ * are late and their waiting time is recorded too, which corrects for coordinated omission: a slow
+ * response is not hidden by the generator politely waiting for it. Latencies go into an
+ * HdrHistogram, so high percentiles are exact to three significant digits.
+ *
+ * <p>
+ * The allocation rate of the server is measured over all threads of the JVM except the load
+ * generator's own, which assumes the server runs in the same JVM, as in {@link ReactorBenchmark}.
+ */
+public class LoadGenerator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+  private static final int TCP_PORT = 6666;
+  private static final int UDP_PORT = 6668;
+  private static final int ACK_LENGTH = "Data logged successfully".length();
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final int UDP_TIMEOUT_MILLIS = 1000;
+
+  private final int tcpConnections;
+  private final int udpConnections;
+  private final int requestsPerSecond;
+  private final long warmupMillis;
+  private final long durationMillis;
+
+  /**
+   * Creates a load generator.
+   *
+   * @param tcpConnections number of TCP connections.
+   * @param udpConnections number of UDP clients.
+   * @param requestsPerSecond the target rate, spread evenly over all connections.
+   * @param warmupMillis time during which requests are sent but not measured.
+   * @param durationMillis time during which requests are measured.
+   */
+  public LoadGenerator(int tcpConnections, int udpConnections, int requestsPerSecond,
+      long warmupMillis, long durationMillis) {
+    if (tcpConnections + udpConnections <= 0 || requestsPerSecond <= 0) {
+      throw new IllegalArgumentException("need at least one connection and a positive rate");
+    }
+    this.tcpConnections = tcpConnections;
+    this.udpConnections = udpConnections;
+    this.requestsPerSecond = requestsPerSecond;
+    this.warmupMillis = warmupMillis;
+    this.durationMillis = durationMillis;
+  }
+
+  /**
+   * Runs the load against the server, blocking until done.
+   *
+   * @return the measurements.
+   * @throws InterruptedException if interrupted while waiting for the connections.
+   */
+  public LoadReport run() throws InterruptedException {
+    int connections = tcpConnections + udpConnections;
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) * connections / requestsPerSecond;
+    long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+    long measureStart = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+    long end = measureStart + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+    Histogram latencies = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+    AtomicLong errors = new AtomicLong();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < connections; i++) {
+      boolean tcp = i < tcpConnections;
+      // spread the connections over the interval so that they do not send in lockstep
+      long firstSend = start + intervalNanos * i / connections;
+      Connection connection = new Connection(tcp, firstSend, intervalNanos, measureStart, end);
+      Thread thread = new Thread(() -> {
+        connection.run(errors);
+        synchronized (latencies) {
+          latencies.add(connection.latencies);
+        }
+      }, "load-generator-" + i);
+      threads.add(thread);
+      thread.start();
+    }
+
+    Set<Long> generatorThreads = new HashSet<>();
+    for (Thread thread : threads) {
+      generatorThreads.add(thread.getId());
+    }
+    generatorThreads.add(Thread.currentThread().getId());
+    sleepUntil(measureStart);
+    Map<Long, Long> allocatedAtStart = allocatedBytes(generatorThreads);
+    long measuredFrom = System.nanoTime();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long measuredNanos = System.nanoTime() - measuredFrom;
+    long allocated = allocatedSince(allocatedAtStart, generatorThreads);
+    return new LoadReport(latencies, errors.get(), measuredNanos, allocated);
+  }
+
+  private static void sleepUntil(long deadline) {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  /*
+   * Returns the bytes allocated per thread, or null if the JVM does not support measuring it.
+   */
+  private static Map<Long, Long> allocatedBytes(Set<Long> excludedThreads) {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+    if (!allocationBean.isThreadAllocatedMemorySupported()) {
+      return null;
+    }
+    Map<Long, Long> allocated = new HashMap<>();
+    for (long id : allocationBean.getAllThreadIds()) {
+      if (!excludedThreads.contains(id)) {
+        long bytes = allocationBean.getThreadAllocatedBytes(id);
+        if (bytes >= 0) {
+          allocated.put(id, bytes);
+        }
+      }
+    }
+    return allocated;
+  }
+
+  private static long allocatedSince(Map<Long, Long> atStart, Set<Long> excludedThreads) {
+    if (atStart == null) {
+      return -1;
+    }
+    long total = 0;
+    for (Map.Entry<Long, Long> entry : allocatedBytes(excludedThreads).entrySet()) {
+      // threads started during the measurement count from zero, threads which died are lost
+      total += entry.getValue() - atStart.getOrDefault(entry.getKey(), 0L);
+    }
+    return total;
+  }
+
+  /**
+   * One client sending requests at a fixed rate and recording latency against the schedule.
+   */
+  private static final class Connection {
+    private final boolean tcp;
+    private final long firstSend;
+    private final long intervalNanos;
+    private final long measureStart;
+    private final long end;
+    private final Histogram latencies = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+
+    private Connection(boolean tcp, long firstSend, long intervalNanos, long measureStart,
+        long end) {
+      this.tcp = tcp;
+      this.firstSend = firstSend;
+      this.intervalNanos = intervalNanos;
+      this.measureStart = measureStart;
+      this.end = end;
+    }
+
+    void run(AtomicLong errors) {
+      try {
+        if (tcp) {
+          runTcp();
+        } else {
+          runUdp(errors);
+        }
+      } catch (IOException e) {
+        LOGGER.error("connection failed", e);
+        errors.incrementAndGet();
+      }
+    }
+
+    private void runTcp() throws IOException {
+      try (Socket socket = new Socket(InetAddress.getLocalHost(), TCP_PORT)) {
+        socket.setTcpNoDelay(true);
+        OutputStream out = socket.getOutputStream();
+        InputStream in = socket.getInputStream();
+        byte[] reply = new byte[ACK_LENGTH];
+        int sequence = 0;
+        for (long intended = firstSend; intended < end; intended += intervalNanos) {
+          sleepUntil(intended);
+          out.write(request(sequence++, true));
+          out.flush();
+          int read = 0;
+          while (read < reply.length) {
+            int n = in.read(reply, read, reply.length - read);
+            if (n < 0) {
+              throw new IOException("connection closed by server");
+            }
+            read += n;
+          }
+          record(intended);
+        }
+      }
+    }
+
+    private void runUdp(AtomicLong errors) throws IOException {
+      InetSocketAddress server = new InetSocketAddress(InetAddress.getLocalHost(), UDP_PORT);
+      DatagramPacket reply = new DatagramPacket(new byte[1024], 1024);
+      DatagramSocket socket = newUdpSocket();
+      try {
+        int sequence = 0;
+        for (long intended = firstSend; intended < end; intended += intervalNanos) {
+          sleepUntil(intended);
+          byte[] request = request(sequence++, false);
+          socket.send(new DatagramPacket(request, request.length, server));
+          try {
+            socket.receive(reply);
+            record(intended);
+          } catch (SocketTimeoutException e) {
+            // the request or its reply was lost
+            errors.incrementAndGet();
+            /*
+             * A reply arriving late would be taken for the reply to the next request, as all replies
+             * carry the same acknowledgement, so the next request goes out from a new port.
+             */
+            socket.close();
+            socket = newUdpSocket();
+          }
+        }
+      } finally {
+        socket.close();
+      }
+    }
+
+    private static DatagramSocket newUdpSocket() throws IOException {
+      DatagramSocket socket = new DatagramSocket();
+      socket.setSoTimeout(UDP_TIMEOUT_MILLIS);
+      return socket;
+    }
+
+    private void record(long intended) {
+      if (intended >= measureStart) {
+        latencies.recordValue(Math.min(System.nanoTime() - intended, HIGHEST_TRACKABLE_NANOS));
+      }
+    }
+
+    private byte[] request(int sequence, boolean lineDelimited) {
+      String request = "Load generator - Log request: " + sequence;
+      return (lineDelimited ? request + "\n" : request).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * The measurements of a run.
+   */
+  public static final class LoadReport {
+    private final Histogram latencies;
+    private final long errors;
+    private final long measuredNanos;
+    private final long allocatedBytes;
+
+    LoadReport(Histogram latencies, long errors, long measuredNanos, long allocatedBytes) {
+      this.latencies = latencies;
+      this.errors = errors;
+      this.measuredNanos = measuredNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * @return the latency histogram in nanoseconds.
+     */
+    public Histogram getLatencies() {
+      return latencies;
+    }
+
+    /**
+     * @return the number of measured requests which were acknowledged.
+     */
+    public long getCompletedRequests() {
+      return latencies.getTotalCount();
+    }
+
+    /**
+     * @return the number of lost UDP requests and failed connections.
+     */
+    public long getErrors() {
+      return errors;
+    }
+
+    /**
+     * @return acknowledged requests per second during the measurement.
+     */
+    public double getThroughput() {
+      return getCompletedRequests() * 1e9 / measuredNanos;
+    }
+
+    /**
+     * @param percentile the percentile, such as 99.9.
+     * @return the latency at the percentile in microseconds.
+     */
+    public double getLatencyMicros(double percentile) {
+      return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * @return bytes allocated per second by the server threads, or a negative value if the JVM
+     *     cannot measure it.
+     */
+    public double getAllocationRate() {
+      return allocatedBytes < 0 ? -1 : allocatedBytes * 1e9 / measuredNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("throughput %.0f req/s, latency p50 %.0f us, p99 %.0f us, "
+          + "p99.9 %.0f us, max %.0f us, errors %d, allocation %.1f MB/s", getThroughput(),
+          getLatencyMicros(50), getLatencyMicros(99), getLatencyMicros(99.9),
+          latencies.getMaxValue() / 1000.0, errors, getAllocationRate() / (1024 * 1024));
+    }
+  }
+}
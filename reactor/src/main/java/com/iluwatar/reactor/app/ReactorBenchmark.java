@@ -0,0 +1,117 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import com.iluwatar.reactor.framework.Dispatcher;
+import com.iluwatar.reactor.framework.SameThreadDispatcher;
+import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
+import com.iluwatar.reactor.framework.VirtualThreadDispatcher;
+import com.iluwatar.reactor.app.LoadGenerator.LoadReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs the {@link LoadGenerator} against the logging service of {@link App} once for every
+ * {@link Dispatcher} implementation, in single reactor and multi-reactor mode, and prints
+ * throughput, latency percentiles and allocation rate of each, to help pick a dispatcher and pool
+ * size and to spot regressions.
+ *
+ * <p>
+ * Usage: {@code ReactorBenchmark [tcpConnections] [udpConnections] [requestsPerSecond] [seconds]
+ * [poolSize]}. The defaults are 16 TCP and 4 UDP connections at 20000 requests per second for 10
+ * seconds after a 3 second warmup, with a pool of 4 threads. Note that the logging handler logs
+ * every request, so the logging configuration affects the results.
+ */
+public class ReactorBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactorBenchmark.class);
+
+  private static final long WARMUP_MILLIS = 3000;
+
+  /**
+   * Benchmark entry.
+   *
+   * @param args optional tcpConnections, udpConnections, requestsPerSecond, seconds, poolSize.
+   * @throws Exception if the server fails to start or stop.
+   */
+  public static void main(String[] args) throws Exception {
+    int tcpConnections = intArg(args, 0, 16);
+    int udpConnections = intArg(args, 1, 4);
+    int requestsPerSecond = intArg(args, 2, 20000);
+    int seconds = intArg(args, 3, 10);
+    int poolSize = intArg(args, 4, 4);
+    int cores = Runtime.getRuntime().availableProcessors();
+
+    Map<String, Supplier<Dispatcher>> dispatchers = new LinkedHashMap<>();
+    dispatchers.put("SameThreadDispatcher", SameThreadDispatcher::new);
+    dispatchers.put("ThreadPoolDispatcher(" + poolSize + ")",
+        () -> new ThreadPoolDispatcher(poolSize));
+    dispatchers.put("VirtualThreadDispatcher", VirtualThreadDispatcher::new);
+
+    Map<String, LoadReport> reports = new LinkedHashMap<>();
+    for (Map.Entry<String, Supplier<Dispatcher>> dispatcher : dispatchers.entrySet()) {
+      for (int workers : new int[] {0, cores}) {
+        String name = dispatcher.getKey() + ", " + (workers == 0 ? "single reactor"
+            : workers + " worker reactors");
+        LOGGER.info("Benchmarking {}", name);
+        LoadGenerator generator = new LoadGenerator(tcpConnections, udpConnections,
+            requestsPerSecond, WARMUP_MILLIS, seconds * 1000L);
+        reports.put(name, run(new App(dispatcher.getValue().get(), workers), generator));
+      }
+    }
+
+    LOGGER.info("{} TCP and {} UDP connections at {} requests per second", tcpConnections,
+        udpConnections, requestsPerSecond);
+    for (Map.Entry<String, LoadReport> report : reports.entrySet()) {
+      LOGGER.info("{}: {}", report.getKey(), report.getValue());
+    }
+  }
+
+  /**
+   * Starts the application, runs the load against it and stops it.
+   *
+   * @param app the application to be benchmarked.
+   * @param generator the load to be run.
+   * @return the measurements.
+   * @throws IOException if the application fails to start or stop.
+   * @throws InterruptedException if interrupted while running.
+   */
+  public static LoadReport run(App app, LoadGenerator generator)
+      throws IOException, InterruptedException {
+    app.start();
+    try {
+      return generator.run();
+    } finally {
+      app.stop();
+    }
+  }
+
+  private static int intArg(String[] args, int index, int defaultValue) {
+    return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+  }
+}
@@ -23,13 +23,16 @@
 package com.iluwatar.reactor.framework;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This represents the <i>Handle</i> of Reactor pattern. These are resources managed by OS which can
@@ -41,14 +44,33 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * concrete implementation. It provides a block writing mechanism wherein when any
  * {@link ChannelHandler} wants to write data back, it queues the data in pending write queue and
  * clears it in block manner. This provides better throughput.
+ *
+ * <p>
+ * Read buffers are taken from a {@link BufferPool} and handed to the {@link Dispatcher} as
+ * {@link ReferenceCounted} objects. Pending writes which are reference counted are released once
+ * they have been written or discarded.
+ *
+ * <p>
+ * The pending writes of every connection are bounded by byte based watermarks. Once they exceed the
+ * high watermark the connection turns unwritable, the handler is notified through
+ * {@link ChannelHandler#handleWritabilityChanged(AbstractNioChannel, SelectionKey, boolean)} and
+ * the reactor stops reading from the connection, so a peer which does not read its replies cannot
+ * make the server buffer without limit. Reading resumes when the pending writes drain to the low
+ * watermark.
  */
 public abstract class AbstractNioChannel {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractNioChannel.class);
+
   private final SelectableChannel channel;
   private final ChannelHandler handler;
-  private final Map<SelectableChannel, Queue<Object>> channelToPendingWrites =
+  private final Map<SelectableChannel, OutboundBuffer> channelToPendingWrites =
       new ConcurrentHashMap<>();
   private NioReactor reactor;
+  private BufferPool bufferPool = BufferPool.DEFAULT;
+  private final ChannelPipeline pipeline = new ChannelPipeline();
+  private volatile int lowWaterMark = 32 * 1024;
+  private volatile int highWaterMark = 64 * 1024;
 
   /**
    * Creates a new channel.
@@ -68,6 +90,87 @@ public abstract class AbstractNioChannel {
     this.reactor = reactor;
   }
 
+  /**
+   * Closes the connection of the {@code key}, discarding its pending writes. The connection is
+   * closed by its event loop, this method returns immediately.
+   *
+   * @param key the key of the connection.
+   */
+  public void close(SelectionKey key) {
+    NioReactor eventLoop = reactor.eventLoopOf(key);
+    if (eventLoop.inEventLoop()) {
+      NioReactor.closeChannel(key);
+    } else {
+      eventLoop.execute(() -> NioReactor.closeChannel(key));
+    }
+  }
+
+  /*
+   * Returns the reactor whose event loop owns the connection of the key.
+   */
+  NioReactor eventLoopOf(SelectionKey key) {
+    return reactor.eventLoopOf(key);
+  }
+
+  /**
+   * @return the pipeline of stages between this channel and its handler.
+   */
+  public ChannelPipeline getPipeline() {
+    return pipeline;
+  }
+
+  /**
+   * @return the pool from which read buffers are allocated.
+   */
+  public BufferPool getBufferPool() {
+    return bufferPool;
+  }
+
+  /**
+   * Sets the pool from which read buffers are allocated, {@link BufferPool#DEFAULT} by default.
+   *
+   * @param bufferPool the pool to be used.
+   */
+  public void setBufferPool(BufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+  }
+
+  /**
+   * Sets the watermarks of the pending writes of each connection, 32 KiB and 64 KiB by default.
+   *
+   * @param lowWaterMark number of pending bytes at which an unwritable connection becomes writable.
+   * @param highWaterMark number of pending bytes above which a connection becomes unwritable.
+   */
+  public void setWriteBufferWaterMarks(int lowWaterMark, int highWaterMark) {
+    if (lowWaterMark < 0 || highWaterMark < lowWaterMark) {
+      throw new IllegalArgumentException("invalid watermarks: " + lowWaterMark + ", " + highWaterMark);
+    }
+    this.lowWaterMark = lowWaterMark;
+    this.highWaterMark = highWaterMark;
+  }
+
+  /**
+   * Tells whether the connection of the {@code key} accepts more writes without exceeding the high
+   * watermark. Handlers producing a lot of data should stop writing while this returns false and
+   * resume when notified of the change.
+   *
+   * @param key the key of the connection.
+   * @return false if the pending writes are above the watermarks.
+   */
+  public boolean isWritable(SelectionKey key) {
+    OutboundBuffer outbound = channelToPendingWrites.get(key.channel());
+    return outbound == null || outbound.isWritable();
+  }
+
+  /**
+   * @param key the key of the connection.
+   * @return the number of bytes written to the connection but not yet flushed.
+   */
+  public long getPendingWriteBytes(SelectionKey key) {
+    OutboundBuffer outbound = channelToPendingWrites.get(key.channel());
+    return outbound == null ? 0 : outbound.getPendingBytes();
+  }
+
   /**
    * @return the wrapped NIO channel.
    */
@@ -110,23 +213,58 @@ public abstract class AbstractNioChannel {
 
   /*
    * Called from the context of reactor thread when the key becomes writable. The channel writes the
-   * whole pending block of data at once.
+   * whole pending block of data at once, or as much of it as the socket accepts.
    */
   void flush(SelectionKey key) throws IOException {
-    Queue<Object> pendingWrites = channelToPendingWrites.get(key.channel());
-    while (true) {
-      Object pendingWrite = pendingWrites.poll();
-      if (pendingWrite == null) {
-        // We don't have anything more to write so channel is interested in reading more data
-        reactor.changeOps(key, SelectionKey.OP_READ);
+    OutboundBuffer pendingWrites = channelToPendingWrites.get(key.channel());
+    if (pendingWrites == null) {
+      key.interestOps(SelectionKey.OP_READ);
+      return;
+    }
+    while (!pendingWrites.isEmpty()) {
+      // ask the concrete channel to make sense of data and write it to java channel
+      if (!doWrite(pendingWrites, key)) {
+        // the socket is full, stay interested in writing and continue when it drains
         break;
       }
+    }
+    updateInterestOps(key, pendingWrites);
+  }
 
-      // ask the concrete channel to make sense of data and write it to java channel
-      doWrite(pendingWrite, key);
+  /*
+   * Called from the context of reactor thread. Notifies the handler if the writability changed and
+   * derives the interest operations from the state of the pending writes: reading is suspended while
+   * the connection is unwritable and writing is of interest while anything is pending.
+   */
+  private void updateInterestOps(SelectionKey key, OutboundBuffer pendingWrites) {
+    if (pendingWrites.checkWritability(lowWaterMark)) {
+      try {
+        handler.handleWritabilityChanged(this, key, pendingWrites.isWritable());
+      } catch (RuntimeException e) {
+        LOGGER.error("error handling writability change", e);
+      }
+    }
+    if (key.isValid()) {
+      int ops = pendingWrites.isWritable() ? SelectionKey.OP_READ : 0;
+      if (!pendingWrites.isEmpty()) {
+        ops |= SelectionKey.OP_WRITE;
+      }
+      key.interestOps(ops);
     }
   }
 
+  /*
+   * Called by the reactor when a connection is closed, so that pending data and state kept by the
+   * pipeline is not kept forever.
+   */
+  void channelClosed(SelectableChannel javaChannel) {
+    OutboundBuffer pendingWrites = channelToPendingWrites.remove(javaChannel);
+    if (pendingWrites != null) {
+      pendingWrites.discard();
+    }
+    pipeline.fireClosed(javaChannel);
+  }
+
   /**
    * Writes the data to the channel.
    * 
@@ -136,6 +274,40 @@ public abstract class AbstractNioChannel {
    */
   protected abstract void doWrite(Object pendingWrite, SelectionKey key) throws IOException;
 
+  /**
+   * Writes data from the head of the pending writes to the channel, removing what was written
+   * completely. By default one pending write is written using
+   * {@link #doWrite(Object, SelectionKey)}, channels can override this to write several pending
+   * writes in one go.
+   *
+   * @param pendingWrites the pending writes of the connection, non-empty.
+   * @param key the key which is writable.
+   * @return false if the channel could not take all the data and the rest has to wait for the
+   *     next writable event.
+   * @throws IOException if any I/O error occurs.
+   */
+  protected boolean doWrite(OutboundBuffer pendingWrites, SelectionKey key) throws IOException {
+    doWrite(pendingWrites.current(), key);
+    pendingWrites.remove();
+    return true;
+  }
+
+  /**
+   * Returns the number of bytes a pending write occupies, used for the watermarks.
+   *
+   * @param pendingWrite the data to be written on channel.
+   * @return the size in bytes.
+   */
+  protected long sizeOf(Object pendingWrite) {
+    if (pendingWrite instanceof PooledBuffer) {
+      return ((PooledBuffer) pendingWrite).readableBytes();
+    }
+    if (pendingWrite instanceof ByteBuffer) {
+      return ((ByteBuffer) pendingWrite).remaining();
+    }
+    return 0;
+  }
+
   /**
    * Queues the data for writing. The data is not guaranteed to be written on underlying channel
    * when this method returns. It will be written when the channel is flushed.
@@ -148,28 +320,52 @@ public abstract class AbstractNioChannel {
    * <code>
    * {@literal @}Override
    * public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
-   *   byte[] data = ((ByteBuffer)readObject).array();
+   *   byte[] data = ((PooledBuffer) readObject).toByteArray();
    *   ByteBuffer buffer = ByteBuffer.wrap("Server reply".getBytes());
    *   channel.write(buffer, key);
    * }
    * </code>
    * </pre>
    * 
+   * <p>
+   * The data passes through the outbound stages of the {@link #getPipeline() pipeline} first. A
+   * {@link ReferenceCounted} {@code data} is owned by the channel from now on and released once
+   * written, so retain it before writing if it is still needed.
+   *
    * @param data the data to be written on underlying channel.
    * @param key the key which is writable.
    */
   public void write(Object data, SelectionKey key) {
-    Queue<Object> pendingWrites = this.channelToPendingWrites.get(key.channel());
-    if (pendingWrites == null) {
-      synchronized (this.channelToPendingWrites) {
-        pendingWrites = this.channelToPendingWrites.get(key.channel());
-        if (pendingWrites == null) {
-          pendingWrites = new ConcurrentLinkedQueue<>();
-          this.channelToPendingWrites.put(key.channel(), pendingWrites);
-        }
-      }
+    if (!key.isValid()) {
+      // the connection has been closed, nothing will ever flush the data
+      ReferenceCounted.release(data);
+      return;
+    }
+    OutboundBuffer pendingWrites =
+        channelToPendingWrites.computeIfAbsent(key.channel(), javaChannel -> new OutboundBuffer());
+    NioReactor eventLoop = reactor.eventLoopOf(key);
+    List<Object> messages = pipeline.fireWrite(key, data);
+    long[] sizes = new long[messages.size()];
+    for (int i = 0; i < sizes.length; i++) {
+      sizes[i] = sizeOf(messages.get(i));
+    }
+    boolean turnedUnwritable = pendingWrites.add(messages, sizes, highWaterMark);
+    if (!key.isValid()) {
+      // closed meanwhile, the buffer may have been created after the close discarded the old one
+      channelToPendingWrites.remove(key.channel(), pendingWrites);
+      pendingWrites.discard();
+      return;
+    }
+    if (turnedUnwritable) {
+      // always report the transition, a coalesced update may already be running
+      eventLoop.execute(() -> updateInterestOps(key, pendingWrites));
+    }
+    // one interest update is enough for any number of writes queued before it runs
+    if (pendingWrites.scheduleUpdate()) {
+      eventLoop.execute(() -> {
+        pendingWrites.updateStarted();
+        updateInterestOps(key, pendingWrites);
+      });
     }
-    pendingWrites.add(data);
-    reactor.changeOps(key, SelectionKey.OP_WRITE);
   }
 }
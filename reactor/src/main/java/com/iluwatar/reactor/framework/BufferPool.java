@@ -0,0 +1,153 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A size-classed pool of direct {@link ByteBuffer}s. Requests are rounded up to the next power of
+ * two between the minimum and maximum size class and served from a free list of that class, so the
+ * channels do not produce garbage, nor pay for direct allocation, on every read event. Requests
+ * larger than the maximum size class are allocated unpooled and left to the garbage collector.
+ *
+ * <p>
+ * Buffers are handed out wrapped in a reference counted {@link PooledBuffer} and return to their
+ * free list when released. Each free list keeps at most {@code maxPooledPerClass} buffers, surplus
+ * buffers are dropped so that a burst does not pin memory forever.
+ */
+public class BufferPool {
+
+  /**
+   * The pool used by channels unless configured otherwise, with size classes from 512 bytes to
+   * 64 KiB.
+   */
+  public static final BufferPool DEFAULT = new BufferPool(512, 64 * 1024, 64);
+
+  private final int minShift;
+  private final int maxSize;
+  private final int maxPooledPerClass;
+  private final Queue<ByteBuffer>[] freeLists;
+  private final AtomicInteger[] freeCounts;
+
+  /**
+   * Creates a pool.
+   *
+   * @param minSize the smallest size class, rounded up to a power of two.
+   * @param maxSize the largest size class, rounded up to a power of two.
+   * @param maxPooledPerClass the maximum number of free buffers kept per size class.
+   */
+  @SuppressWarnings("unchecked")
+  public BufferPool(int minSize, int maxSize, int maxPooledPerClass) {
+    if (minSize <= 0 || maxSize < minSize || maxPooledPerClass < 0) {
+      throw new IllegalArgumentException("invalid pool configuration");
+    }
+    this.minShift = log2Ceil(minSize);
+    this.maxSize = 1 << log2Ceil(maxSize);
+    this.maxPooledPerClass = maxPooledPerClass;
+    int classes = log2Ceil(maxSize) - minShift + 1;
+    this.freeLists = new Queue[classes];
+    this.freeCounts = new AtomicInteger[classes];
+    for (int i = 0; i < classes; i++) {
+      freeLists[i] = new ConcurrentLinkedQueue<>();
+      freeCounts[i] = new AtomicInteger();
+    }
+  }
+
+  /**
+   * Allocates a cleared buffer with at least {@code capacity} bytes.
+   *
+   * @param capacity the minimum capacity.
+   * @return a buffer with a reference count of one.
+   */
+  public PooledBuffer allocate(int capacity) {
+    if (capacity > maxSize) {
+      return new PooledBuffer(this, ByteBuffer.allocateDirect(capacity));
+    }
+    int sizeClass = sizeClass(capacity);
+    ByteBuffer buffer = freeLists[sizeClass].poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(1 << (sizeClass + minShift));
+    } else {
+      freeCounts[sizeClass].decrementAndGet();
+      buffer.clear();
+    }
+    return new PooledBuffer(this, buffer);
+  }
+
+  /**
+   * Allocates a buffer twice the capacity of {@code buffer}, copies its written bytes over and
+   * releases it. The returned buffer is positioned after the copied bytes, ready for more writes.
+   *
+   * @param buffer a buffer in write mode that ran out of space.
+   * @return the grown buffer.
+   */
+  public PooledBuffer grow(PooledBuffer buffer) {
+    PooledBuffer grown = allocate(buffer.buffer().capacity() * 2);
+    buffer.buffer().flip();
+    grown.buffer().put(buffer.buffer());
+    buffer.release();
+    return grown;
+  }
+
+  /**
+   * @return the largest pooled size class.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return the number of free buffers currently held by the pool.
+   */
+  public int getPooledCount() {
+    int count = 0;
+    for (AtomicInteger freeCount : freeCounts) {
+      count += freeCount.get();
+    }
+    return count;
+  }
+
+  void recycle(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    if (capacity > maxSize || Integer.bitCount(capacity) != 1 || capacity < 1 << minShift) {
+      return;
+    }
+    int sizeClass = sizeClass(capacity);
+    if (freeCounts[sizeClass].incrementAndGet() > maxPooledPerClass) {
+      freeCounts[sizeClass].decrementAndGet();
+      return;
+    }
+    freeLists[sizeClass].offer(buffer);
+  }
+
+  private int sizeClass(int capacity) {
+    return Math.max(0, log2Ceil(capacity) - minShift);
+  }
+
+  private static int log2Ceil(int value) {
+    return 32 - Integer.numberOfLeadingZeros(Math.max(1, value) - 1);
+  }
+}
@@ -0,0 +1,115 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An inbound stage decoding frames from the {@link PooledBuffer}s read from a stream. Bytes which
+ * do not form a complete frame yet are kept per connection and the next read is appended to them,
+ * so that decoding continues where it stopped.
+ *
+ * <p>
+ * A read is decoded in place when nothing is left over from the previous read. Otherwise the new
+ * bytes are appended behind the left over bytes when the buffer has room, and only when it has not
+ * are both copied into a new buffer, so copying is limited to frames that straddle reads.
+ * Subclasses should emit frames using {@link PooledBuffer#retainedSlice(int)}, which does not copy.
+ * Other messages, such as datagrams, are passed on unchanged.
+ */
+public abstract class ByteToMessageDecoder implements ChannelInboundStage {
+
+  private final Map<SelectableChannel, PooledBuffer> cumulations = new ConcurrentHashMap<>();
+
+  @Override
+  public final void read(SelectionKey key, Object message, List<Object> out) throws IOException {
+    if (!(message instanceof PooledBuffer)) {
+      out.add(message);
+      return;
+    }
+    PooledBuffer cumulation = cumulations.remove(key.channel());
+    cumulation = cumulation == null ? (PooledBuffer) message
+        : append(key, cumulation, (PooledBuffer) message);
+    try {
+      decode(key, cumulation, out);
+    } catch (IOException | RuntimeException e) {
+      cumulation.release();
+      throw e;
+    }
+    if (cumulation.readableBytes() == 0) {
+      cumulation.release();
+    } else {
+      cumulations.put(key.channel(), cumulation);
+    }
+  }
+
+  @Override
+  public void closed(SelectableChannel javaChannel) {
+    PooledBuffer cumulation = cumulations.remove(javaChannel);
+    if (cumulation != null) {
+      cumulation.release();
+    }
+  }
+
+  /**
+   * Decodes as many frames as are complete in {@code in}, consuming their bytes by advancing its
+   * position. Bytes left readable are kept for the next read.
+   *
+   * @param key the key of the connection.
+   * @param in the bytes received and not decoded yet.
+   * @param out the decoded frames.
+   * @throws IOException if the data is corrupt, which closes the connection.
+   */
+  protected abstract void decode(SelectionKey key, PooledBuffer in, List<Object> out)
+      throws IOException;
+
+  private static PooledBuffer append(SelectionKey key, PooledBuffer cumulation, PooledBuffer in) {
+    ByteBuffer buffer = cumulation.buffer();
+    int readable = in.readableBytes();
+    if (cumulation.refCnt() == 1 && buffer.capacity() - buffer.limit() < readable
+        && buffer.capacity() - buffer.remaining() >= readable) {
+      // no slice is outstanding, so the consumed bytes can be reclaimed
+      buffer.compact().flip();
+    }
+    if (buffer.capacity() - buffer.limit() >= readable) {
+      // slices handed out so far only cover bytes before the position, appending is safe
+      int position = buffer.position();
+      buffer.position(buffer.limit()).limit(buffer.capacity());
+      buffer.put(in.buffer());
+      buffer.limit(buffer.position()).position(position);
+      in.release();
+      return cumulation;
+    }
+    BufferPool pool = ((AbstractNioChannel) key.attachment()).getBufferPool();
+    PooledBuffer merged = pool.allocate(cumulation.readableBytes() + readable);
+    merged.buffer().put(buffer).put(in.buffer()).flip();
+    cumulation.release();
+    in.release();
+    return merged;
+  }
+}
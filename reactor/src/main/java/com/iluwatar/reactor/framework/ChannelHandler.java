@@ -35,11 +35,40 @@ import java.nio.channels.SelectionKey;
 public interface ChannelHandler {
 
   /**
-   * Called when the {@code channel} receives some data from remote peer.
+   * Called when the {@code channel} receives some data from remote peer. A
+   * {@link ReferenceCounted} {@code readObject} is released after this method returns, so it has to
+   * be retained if the handler keeps it or writes it back.
    * 
    * @param channel the channel from which the data was received.
    * @param readObject the data read.
    * @param key the key on which read event occurred.
    */
   void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key);
+
+  /**
+   * Called from the event loop of the connection when it turns unwritable because its pending
+   * writes exceeded the high watermark, and again when they drained to the low watermark. While a
+   * connection is unwritable the reactor does not read from it. The default does nothing.
+   *
+   * @param channel the channel of the connection.
+   * @param key the key of the connection.
+   * @param writable the new writability.
+   */
+  default void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+      boolean writable) {
+    // no-op
+  }
+
+  /**
+   * Called from the event loop of the connection when an {@link IdleStateHandler} in the pipeline
+   * detects that nothing has been read from or written to the connection for the configured time.
+   * The default does nothing.
+   *
+   * @param channel the channel of the connection.
+   * @param key the key of the connection.
+   * @param state the kind of idleness detected.
+   */
+  default void handleIdle(AbstractNioChannel channel, SelectionKey key, IdleState state) {
+    // no-op
+  }
 }
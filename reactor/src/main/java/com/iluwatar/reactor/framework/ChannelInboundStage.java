@@ -0,0 +1,69 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.List;
+
+/**
+ * A stage of a {@link ChannelPipeline} transforming the data read from a channel before it is
+ * dispatched to the {@link ChannelHandler}, such as a frame decoder. Inbound stages are called from
+ * the event loop owning the connection, one read at a time, so stages keeping state per connection
+ * need no further synchronization for a given connection.
+ */
+public interface ChannelInboundStage {
+
+  /**
+   * Transforms a message read from the connection of {@code key} into zero or more messages for
+   * the next stage. The stage owns {@code message} and has to release it if it is
+   * {@link ReferenceCounted} and not passed on, also when it fails.
+   *
+   * @param key the key of the connection.
+   * @param message the message from the previous stage.
+   * @param out the messages for the next stage.
+   * @throws IOException if the data is corrupt, which closes the connection.
+   */
+  void read(SelectionKey key, Object message, List<Object> out) throws IOException;
+
+  /**
+   * Called from the event loop owning a connection when it has been accepted and registered. The
+   * default does nothing.
+   *
+   * @param key the key of the new connection.
+   */
+  default void active(SelectionKey key) {
+    // no-op
+  }
+
+  /**
+   * Called when a connection is closed, so that state kept for it can be freed. The default does
+   * nothing.
+   *
+   * @param javaChannel the closed connection.
+   */
+  default void closed(SelectableChannel javaChannel) {
+    // no-op
+  }
+}
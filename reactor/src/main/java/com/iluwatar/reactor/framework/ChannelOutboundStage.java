@@ -0,0 +1,45 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.List;
+
+/**
+ * A stage of a {@link ChannelPipeline} transforming the data written to a channel before it is
+ * queued for writing, such as an encoder. Outbound stages are called from the thread writing to the
+ * channel, which may be any thread, so they should be stateless.
+ */
+public interface ChannelOutboundStage {
+
+  /**
+   * Transforms a message written to the connection of {@code key} into zero or more messages for
+   * the next stage. The stage owns {@code message} and has to release it if it is
+   * {@link ReferenceCounted} and not passed on, also when it fails.
+   *
+   * @param key the key of the connection.
+   * @param message the message from the previous stage.
+   * @param out the messages for the next stage.
+   */
+  void write(SelectionKey key, Object message, List<Object> out);
+}
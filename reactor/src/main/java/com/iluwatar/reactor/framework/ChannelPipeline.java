@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An ordered chain of stages between an {@link AbstractNioChannel} and its {@link ChannelHandler}.
+ * Inbound stages run in the order they were added, from the data read towards the handler, and
+ * outbound stages run in the order they were added, from the data written by the handler towards
+ * the wire. An empty pipeline passes data through unchanged.
+ *
+ * <p>
+ * Example, a server exchanging length prefixed messages:
+ *
+ * <pre>
+ * <code>
+ * channel.getPipeline()
+ *     .addInbound(new LengthFieldFrameDecoder(4, 1024 * 1024))
+ *     .addOutbound(new LengthFieldPrepender(4));
+ * </code>
+ * </pre>
+ */
+public class ChannelPipeline {
+
+  private final List<ChannelInboundStage> inboundStages = new CopyOnWriteArrayList<>();
+  private final List<ChannelOutboundStage> outboundStages = new CopyOnWriteArrayList<>();
+
+  /**
+   * Appends an inbound stage.
+   *
+   * @param stage the stage to be added.
+   * @return this
+   */
+  public ChannelPipeline addInbound(ChannelInboundStage stage) {
+    inboundStages.add(stage);
+    return this;
+  }
+
+  /**
+   * Appends an outbound stage.
+   *
+   * @param stage the stage to be added.
+   * @return this
+   */
+  public ChannelPipeline addOutbound(ChannelOutboundStage stage) {
+    outboundStages.add(stage);
+    return this;
+  }
+
+  /*
+   * Passes the data read through the inbound stages and returns the messages to be dispatched.
+   */
+  List<Object> fireRead(SelectionKey key, Object readObject) throws IOException {
+    if (inboundStages.isEmpty()) {
+      return Collections.singletonList(readObject);
+    }
+    List<Object> messages = new ArrayList<>(1);
+    messages.add(readObject);
+    for (ChannelInboundStage stage : inboundStages) {
+      List<Object> out = new ArrayList<>();
+      try {
+        for (int i = 0; i < messages.size(); i++) {
+          Object message = messages.get(i);
+          messages.set(i, null);
+          stage.read(key, message, out);
+        }
+      } catch (IOException | RuntimeException e) {
+        // the failing stage released its message, the ones not processed yet are still ours
+        releaseAll(messages);
+        releaseAll(out);
+        throw e;
+      }
+      messages = out;
+    }
+    return messages;
+  }
+
+  /*
+   * Passes the data written through the outbound stages and returns the messages to be queued.
+   */
+  List<Object> fireWrite(SelectionKey key, Object data) {
+    if (outboundStages.isEmpty()) {
+      return Collections.singletonList(data);
+    }
+    List<Object> messages = new ArrayList<>(1);
+    messages.add(data);
+    for (ChannelOutboundStage stage : outboundStages) {
+      List<Object> out = new ArrayList<>();
+      try {
+        for (int i = 0; i < messages.size(); i++) {
+          Object message = messages.get(i);
+          messages.set(i, null);
+          stage.write(key, message, out);
+        }
+      } catch (RuntimeException e) {
+        releaseAll(messages);
+        releaseAll(out);
+        throw e;
+      }
+      messages = out;
+    }
+    return messages;
+  }
+
+  void fireActive(SelectionKey key) {
+    for (ChannelInboundStage stage : inboundStages) {
+      stage.active(key);
+    }
+  }
+
+  void fireClosed(SelectableChannel javaChannel) {
+    for (ChannelInboundStage stage : inboundStages) {
+      stage.closed(javaChannel);
+    }
+  }
+
+  private static void releaseAll(List<Object> messages) {
+    for (Object message : messages) {
+      if (message != null) {
+        ReferenceCounted.release(message);
+      }
+    }
+  }
+}
@@ -38,6 +38,7 @@ import java.nio.channels.SelectionKey;
  * 
  * @see SameThreadDispatcher
  * @see ThreadPoolDispatcher
+ * @see VirtualThreadDispatcher
  */
 public interface Dispatcher {
   /**
@@ -47,6 +48,8 @@ public interface Dispatcher {
    * 
    * <p>
    * The type of <code>readObject</code> depends on the channel on which data was received.
+   * A {@link ReferenceCounted} <code>readObject</code> must be released by the dispatcher once the
+   * handler has returned.
    * 
    * @param channel on which read event occurred
    * @param readObject object read by channel
@@ -0,0 +1,250 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timing wheel driven by the event loop of a {@link NioReactor}. Time is divided into
+ * ticks and a task is put into the bucket of the tick its deadline falls in, modulo the wheel size,
+ * together with the number of full rotations left. Scheduling and cancelling cost constant time
+ * regardless of the number of tasks, which is what per connection timeouts need, and tasks run at
+ * most one tick late.
+ *
+ * <p>
+ * The wheel is not thread safe, it is only ever touched by the event loop. Other threads schedule
+ * through {@link NioReactor#schedule(Runnable, long, java.util.concurrent.TimeUnit)}, which hands
+ * the task over to the loop, and cancellation only flags the task.
+ */
+final class HashedWheelTimer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+  private static final int PENDING = 0;
+  private static final int CANCELLED = 1;
+  private static final int EXPIRED = 2;
+
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final long startTime;
+  /**
+   * The next tick to be processed, counted from the start time.
+   */
+  private long tick;
+  private int pendingTasks;
+  /**
+   * Tasks scheduled by expiring tasks, which go into the wheel once the bucket has been walked so
+   * that they cannot land in the bucket being expired.
+   */
+  private final Queue<Timeout> addedWhileExpiring = new ArrayDeque<>();
+  private boolean expiring;
+
+  HashedWheelTimer(long tickNanos, int wheelSize, long now) {
+    if (Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("wheel size must be a power of two: " + wheelSize);
+    }
+    this.tickNanos = tickNanos;
+    this.wheel = new Bucket[wheelSize];
+    for (int i = 0; i < wheelSize; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = wheelSize - 1;
+    this.startTime = now;
+    this.tick = 1;
+  }
+
+  /*
+   * Creates a task which is not in the wheel yet, so that other threads can get a handle before the
+   * loop adds it.
+   */
+  static Timeout newTimeout(Runnable task, long deadline) {
+    return new Timeout(task, deadline);
+  }
+
+  void add(Timeout timeout, long now) {
+    if (timeout.state.get() != PENDING) {
+      return;
+    }
+    if (expiring) {
+      addedWhileExpiring.add(timeout);
+      return;
+    }
+    if (pendingTasks == 0) {
+      // nothing was due while the wheel was empty, skip the ticks which passed meanwhile
+      tick = Math.max(tick, elapsedTicks(now) + 1);
+    }
+    long deadlineTick = Math.max(tick, ceilDiv(timeout.deadline - startTime, tickNanos));
+    timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+    wheel[(int) (deadlineTick & mask)].add(timeout);
+    pendingTasks++;
+  }
+
+  /*
+   * Runs the tasks which are due and returns the nanoseconds until the next tick having tasks, or
+   * -1 if there are none.
+   */
+  long advance(long now) {
+    long currentTick = elapsedTicks(now);
+    while (tick <= currentTick && pendingTasks > 0) {
+      // move on first, so that tasks scheduled by expiring tasks go at least into the next tick
+      Bucket bucket = wheel[(int) (tick & mask)];
+      tick++;
+      expiring = true;
+      try {
+        expire(bucket);
+      } finally {
+        expiring = false;
+      }
+      Timeout added;
+      while ((added = addedWhileExpiring.poll()) != null) {
+        add(added, now);
+      }
+    }
+    if (pendingTasks == 0) {
+      tick = Math.max(tick, currentTick + 1);
+      return -1;
+    }
+    for (long t = tick; t < tick + wheel.length; t++) {
+      if (!wheel[(int) (t & mask)].isEmpty()) {
+        return Math.max(0, startTime + t * tickNanos - now);
+      }
+    }
+    return -1;
+  }
+
+  int getPendingTasks() {
+    return pendingTasks;
+  }
+
+  private void expire(Bucket bucket) {
+    Timeout timeout = bucket.head;
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      if (timeout.state.get() == CANCELLED) {
+        bucket.remove(timeout);
+        pendingTasks--;
+      } else if (timeout.remainingRounds <= 0) {
+        bucket.remove(timeout);
+        pendingTasks--;
+        timeout.expire();
+      } else {
+        timeout.remainingRounds--;
+      }
+      timeout = next;
+    }
+  }
+
+  private long elapsedTicks(long now) {
+    return (now - startTime) / tickNanos;
+  }
+
+  private static long ceilDiv(long value, long divisor) {
+    return value <= 0 ? 0 : (value + divisor - 1) / divisor;
+  }
+
+  /**
+   * A task in the wheel, linked into the list of its bucket.
+   */
+  static final class Timeout implements ScheduledTask {
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private long remainingRounds;
+    private Timeout prev;
+    private Timeout next;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public boolean cancel() {
+      return state.compareAndSet(PENDING, CANCELLED);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    @Override
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    private void expire() {
+      if (!state.compareAndSet(PENDING, EXPIRED)) {
+        return;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("error running scheduled task", e);
+      }
+    }
+  }
+
+  /**
+   * A doubly linked list of the tasks of one tick.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+      if (head == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+      }
+      tail = timeout;
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.prev == null) {
+        head = timeout.next;
+      } else {
+        timeout.prev.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        tail = timeout.prev;
+      } else {
+        timeout.next.prev = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+    }
+
+    boolean isEmpty() {
+      return head == null;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pipeline stage detecting connections on which nothing has been read or written for a while,
+ * such as idle or half-open TCP connections. When a connection is idle the
+ * {@link ChannelHandler#handleIdle(AbstractNioChannel, SelectionKey, IdleState)} callback is
+ * called and, if configured to, the connection is closed.
+ *
+ * <p>
+ * The stage has to be added both as inbound and outbound stage when writer idleness is of interest:
+ *
+ * <pre>
+ * <code>
+ * IdleStateHandler idle = new IdleStateHandler(60, 0, TimeUnit.SECONDS, true);
+ * channel.getPipeline().addInbound(idle).addOutbound(idle);
+ * </code>
+ * </pre>
+ *
+ * <p>
+ * Each connection has one timer per kind of idleness on the {@link NioReactor} timer wheel. Reads
+ * and writes only record a timestamp; when the timer fires it either reports the connection idle or
+ * schedules itself again for the remaining time, so the cost per connection is constant.
+ */
+public class IdleStateHandler implements ChannelInboundStage, ChannelOutboundStage {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdleStateHandler.class);
+
+  private final long readerIdleNanos;
+  private final long writerIdleNanos;
+  private final boolean closeOnIdle;
+  private final Map<SelectableChannel, ConnectionState> states = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an idle state handler.
+   *
+   * @param readerIdleTime time without reads after which the connection is idle, zero to disable.
+   * @param writerIdleTime time without writes after which the connection is idle, zero to disable.
+   * @param unit the unit of the idle times.
+   * @param closeOnIdle whether an idle connection is closed after the handler is notified.
+   */
+  public IdleStateHandler(long readerIdleTime, long writerIdleTime, TimeUnit unit,
+      boolean closeOnIdle) {
+    this.readerIdleNanos = unit.toNanos(readerIdleTime);
+    this.writerIdleNanos = unit.toNanos(writerIdleTime);
+    this.closeOnIdle = closeOnIdle;
+  }
+
+  @Override
+  public void active(SelectionKey key) {
+    ConnectionState state = new ConnectionState(System.nanoTime());
+    states.put(key.channel(), state);
+    if (readerIdleNanos > 0) {
+      scheduleReaderCheck(key, state, readerIdleNanos);
+    }
+    if (writerIdleNanos > 0) {
+      scheduleWriterCheck(key, state, writerIdleNanos);
+    }
+  }
+
+  @Override
+  public void read(SelectionKey key, Object message, List<Object> out) {
+    ConnectionState state = states.get(key.channel());
+    if (state != null) {
+      state.lastRead = System.nanoTime();
+    }
+    out.add(message);
+  }
+
+  @Override
+  public void write(SelectionKey key, Object message, List<Object> out) {
+    ConnectionState state = states.get(key.channel());
+    if (state != null) {
+      state.lastWrite = System.nanoTime();
+    }
+    out.add(message);
+  }
+
+  @Override
+  public void closed(SelectableChannel javaChannel) {
+    ConnectionState state = states.remove(javaChannel);
+    if (state != null) {
+      state.cancel();
+    }
+  }
+
+  private void scheduleReaderCheck(SelectionKey key, ConnectionState state, long delayNanos) {
+    state.readerCheck = eventLoop(key).schedule(() -> {
+      long remaining = state.lastRead + readerIdleNanos - System.nanoTime();
+      if (remaining > 0) {
+        scheduleReaderCheck(key, state, remaining);
+      } else if (idle(key, IdleState.READER_IDLE)) {
+        scheduleReaderCheck(key, state, readerIdleNanos);
+      }
+    }, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void scheduleWriterCheck(SelectionKey key, ConnectionState state, long delayNanos) {
+    state.writerCheck = eventLoop(key).schedule(() -> {
+      long remaining = state.lastWrite + writerIdleNanos - System.nanoTime();
+      if (remaining > 0) {
+        scheduleWriterCheck(key, state, remaining);
+      } else if (idle(key, IdleState.WRITER_IDLE)) {
+        scheduleWriterCheck(key, state, writerIdleNanos);
+      }
+    }, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /*
+   * Reports the idleness and returns true if the connection stays open.
+   */
+  private boolean idle(SelectionKey key, IdleState idleState) {
+    if (!key.isValid()) {
+      return false;
+    }
+    AbstractNioChannel channel = (AbstractNioChannel) key.attachment();
+    try {
+      channel.getHandler().handleIdle(channel, key, idleState);
+    } catch (RuntimeException e) {
+      LOGGER.error("error handling idle connection", e);
+    }
+    if (closeOnIdle) {
+      channel.close(key);
+      return false;
+    }
+    return key.isValid();
+  }
+
+  private static NioReactor eventLoop(SelectionKey key) {
+    return ((AbstractNioChannel) key.attachment()).eventLoopOf(key);
+  }
+
+  /**
+   * Timestamps and timers of one connection.
+   */
+  private static final class ConnectionState {
+    private volatile long lastRead;
+    private volatile long lastWrite;
+    private volatile ScheduledTask readerCheck;
+    private volatile ScheduledTask writerCheck;
+
+    private ConnectionState(long now) {
+      this.lastRead = now;
+      this.lastWrite = now;
+    }
+
+    private void cancel() {
+      if (readerCheck != null) {
+        readerCheck.cancel();
+      }
+      if (writerCheck != null) {
+        writerCheck.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.List;
+
+/**
+ * Splits a stream into frames prefixed by a big-endian length field of 1, 2 or 4 bytes holding the
+ * number of bytes following it. The length field is stripped from the decoded frames, which are
+ * {@link PooledBuffer} slices of the received data.
+ *
+ * @see LengthFieldPrepender
+ */
+public class LengthFieldFrameDecoder extends ByteToMessageDecoder {
+
+  private final int lengthFieldLength;
+  private final int maxFrameLength;
+
+  /**
+   * Creates a decoder.
+   *
+   * @param lengthFieldLength the length of the length field, 1, 2 or 4 bytes.
+   * @param maxFrameLength the maximum length of a frame, longer frames close the connection.
+   */
+  public LengthFieldFrameDecoder(int lengthFieldLength, int maxFrameLength) {
+    if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 4) {
+      throw new IllegalArgumentException("lengthFieldLength must be 1, 2 or 4: " + lengthFieldLength);
+    }
+    this.lengthFieldLength = lengthFieldLength;
+    this.maxFrameLength = maxFrameLength;
+  }
+
+  @Override
+  protected void decode(SelectionKey key, PooledBuffer in, List<Object> out) throws IOException {
+    ByteBuffer buffer = in.buffer();
+    while (buffer.remaining() >= lengthFieldLength) {
+      long length = frameLength(buffer, buffer.position());
+      if (length < 0 || length > maxFrameLength) {
+        throw new IOException("frame length " + length + " exceeds " + maxFrameLength);
+      }
+      if (buffer.remaining() < lengthFieldLength + length) {
+        break;
+      }
+      buffer.position(buffer.position() + lengthFieldLength);
+      out.add(in.retainedSlice((int) length));
+    }
+  }
+
+  private long frameLength(ByteBuffer buffer, int index) {
+    switch (lengthFieldLength) {
+      case 1:
+        return buffer.get(index) & 0xFF;
+      case 2:
+        return buffer.getShort(index) & 0xFFFF;
+      default:
+        return buffer.getInt(index) & 0xFFFFFFFFL;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.List;
+
+/**
+ * An encoder prepending a big-endian length field of 1, 2 or 4 bytes to each {@link ByteBuffer} or
+ * {@link PooledBuffer} written. The length field is emitted as a separate buffer in front of the
+ * message, which the channel sends together with it using a gathering write, so the message itself
+ * is not copied.
+ *
+ * @see LengthFieldFrameDecoder
+ */
+public class LengthFieldPrepender implements ChannelOutboundStage {
+
+  private final int lengthFieldLength;
+
+  /**
+   * Creates an encoder.
+   *
+   * @param lengthFieldLength the length of the length field, 1, 2 or 4 bytes.
+   */
+  public LengthFieldPrepender(int lengthFieldLength) {
+    if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 4) {
+      throw new IllegalArgumentException("lengthFieldLength must be 1, 2 or 4: " + lengthFieldLength);
+    }
+    this.lengthFieldLength = lengthFieldLength;
+  }
+
+  @Override
+  public void write(SelectionKey key, Object message, List<Object> out) {
+    long length;
+    if (message instanceof PooledBuffer) {
+      length = ((PooledBuffer) message).readableBytes();
+    } else if (message instanceof ByteBuffer) {
+      length = ((ByteBuffer) message).remaining();
+    } else {
+      length = -1;
+    }
+    long maxLength = lengthFieldLength == 4 ? Integer.MAX_VALUE : (1L << (8 * lengthFieldLength)) - 1;
+    if (length < 0 || length > maxLength) {
+      ReferenceCounted.release(message);
+      throw new IllegalArgumentException("cannot encode " + message + " in " + lengthFieldLength
+          + " length bytes");
+    }
+    ByteBuffer header = ByteBuffer.allocate(lengthFieldLength);
+    switch (lengthFieldLength) {
+      case 1:
+        header.put((byte) length);
+        break;
+      case 2:
+        header.putShort((short) length);
+        break;
+      default:
+        header.putInt((int) length);
+        break;
+    }
+    header.flip();
+    out.add(header);
+    out.add(message);
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.List;
+
+/**
+ * Splits a stream into lines ending with {@code "\n"} or {@code "\r\n"}. The delimiter is stripped
+ * from the decoded lines, which are {@link PooledBuffer} slices of the received data.
+ */
+public class LineFrameDecoder extends ByteToMessageDecoder {
+
+  private final int maxLineLength;
+
+  /**
+   * Creates a decoder.
+   *
+   * @param maxLineLength the maximum length of a line, longer lines close the connection.
+   */
+  public LineFrameDecoder(int maxLineLength) {
+    this.maxLineLength = maxLineLength;
+  }
+
+  @Override
+  protected void decode(SelectionKey key, PooledBuffer in, List<Object> out) throws IOException {
+    ByteBuffer buffer = in.buffer();
+    int index = buffer.position();
+    while (index < buffer.limit()) {
+      if (buffer.get(index) != '\n') {
+        index++;
+        continue;
+      }
+      int length = index - buffer.position();
+      int delimiterLength = 1;
+      if (length > 0 && buffer.get(index - 1) == '\r') {
+        length--;
+        delimiterLength++;
+      }
+      checkLength(length);
+      out.add(in.retainedSlice(length));
+      buffer.position(buffer.position() + delimiterLength);
+      index = buffer.position();
+    }
+    checkLength(buffer.remaining());
+  }
+
+  private void checkLength(int length) throws IOException {
+    if (length > maxLineLength) {
+      throw new IOException("line length " + length + " exceeds " + maxLineLength);
+    }
+  }
+}
@@ -40,7 +40,14 @@ public class NioDatagramChannel extends AbstractNioChannel {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NioDatagramChannel.class);
 
+  private static final int MAX_DATAGRAM_SIZE = 65535;
+
   private final int port;
+  /**
+   * Datagrams are received here and copied into a pooled buffer of the right size, the channel is
+   * only ever read by the event loop it is registered with.
+   */
+  private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
 
   /**
    * Creates a {@link DatagramChannel} which will bind at provided port and use <code>handler</code>
@@ -67,20 +74,23 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns a {@link DatagramPacket} from the underlying channel.
+   * Reads and returns a {@link DatagramPacket} from the underlying channel. The data of the packet
+   * is held by a {@link PooledBuffer} sized to the datagram.
    * 
    * @return the datagram packet read having the sender address.
    */
   @Override
   public DatagramPacket read(SelectionKey key) throws IOException {
-    ByteBuffer buffer = ByteBuffer.allocate(1024);
-    SocketAddress sender = ((DatagramChannel) key.channel()).receive(buffer);
+    receiveBuffer.clear();
+    SocketAddress sender = ((DatagramChannel) key.channel()).receive(receiveBuffer);
+    receiveBuffer.flip();
+    PooledBuffer buffer = getBufferPool().allocate(receiveBuffer.remaining());
+    buffer.buffer().put(receiveBuffer).flip();
 
     /*
      * It is required to create a DatagramPacket because we need to preserve which socket address
      * acts as destination for sending reply packets.
      */
-    buffer.flip();
     DatagramPacket packet = new DatagramPacket(buffer);
     packet.setSender(sender);
 
@@ -117,6 +127,17 @@ public class NioDatagramChannel extends AbstractNioChannel {
     getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
   }
 
+  /**
+   * @return the size of the data of a {@link DatagramPacket}.
+   */
+  @Override
+  protected long sizeOf(Object pendingWrite) {
+    if (pendingWrite instanceof DatagramPacket) {
+      return ((DatagramPacket) pendingWrite).getData().remaining();
+    }
+    return super.sizeOf(pendingWrite);
+  }
+
   /**
    * Writes the outgoing {@link DatagramPacket} to the channel. The intended receiver of the
    * datagram packet must be set in the <code>data</code> using
@@ -128,11 +149,14 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer.
+   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer. A packet
+   * created from a {@link PooledBuffer} is reference counted through it, other packets are not
+   * pooled and ignore {@link #retain()} and {@link #release()}.
    */
-  public static class DatagramPacket {
+  public static class DatagramPacket implements ReferenceCounted {
     private SocketAddress sender;
     private ByteBuffer data;
+    private PooledBuffer pooledData;
     private SocketAddress receiver;
 
     /**
@@ -144,6 +168,16 @@ public class NioDatagramChannel extends AbstractNioChannel {
       this.data = data;
     }
 
+    /**
+     * Creates a container owning a pooled buffer, which is released together with the packet.
+     * 
+     * @param data the underlying message to be written on channel.
+     */
+    public DatagramPacket(PooledBuffer data) {
+      this.data = data.buffer();
+      this.pooledData = data;
+    }
+
     /**
      * @return the sender address.
      */
@@ -182,5 +216,23 @@ public class NioDatagramChannel extends AbstractNioChannel {
     public ByteBuffer getData() {
       return data;
     }
+
+    @Override
+    public int refCnt() {
+      return pooledData == null ? 1 : pooledData.refCnt();
+    }
+
+    @Override
+    public DatagramPacket retain() {
+      if (pooledData != null) {
+        pooledData.retain();
+      }
+      return this;
+    }
+
+    @Override
+    public boolean release() {
+      return pooledData != null && pooledData.release();
+    }
   }
 }
@@ -37,6 +37,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class acts as Synchronous Event De-multiplexer and Initiation Dispatcher of Reactor pattern. Multiple handles
@@ -48,6 +49,13 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * Implementation: A NIO reactor runs in its own thread when it is started using {@link #start()} method.
  * {@link NioReactor} uses {@link Selector} for realizing Synchronous Event De-multiplexing.
+ *
+ * <p>
+ * Multi-reactor mode: A reactor created using {@link #NioReactor(Dispatcher, int)} acts as the acceptor (boss) loop
+ * and owns a fixed number of worker reactors, each with its own {@link Selector} and thread. Accepted
+ * {@link SocketChannel}s are handed to the workers in round-robin order, so reads and writes of a connection are
+ * always performed by the worker loop it was assigned to. Datagram channels have no accept step and stay on the
+ * acceptor loop.
  * 
  * <p>
  * NOTE: This is one of the ways to implement NIO reactor and it does not take care of all possible edge cases which are
@@ -58,6 +66,9 @@ public class NioReactor {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NioReactor.class);
 
+  private static final long TIMER_TICK_MILLIS = 10;
+  private static final int TIMER_WHEEL_SIZE = 512;
+
   private final Selector selector;
   private final Dispatcher dispatcher;
   /**
@@ -66,7 +77,23 @@ public class NioReactor {
    * in the command queue and then the event loop picks up the command and executes it in next iteration.
    */
   private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
+  /**
+   * Set when a wakeup of the selector has been issued and the loop has not yet started processing the pending
+   * commands, so that commands queued in a burst cost a single wakeup.
+   */
+  private final AtomicBoolean wakeupPending = new AtomicBoolean();
   private final ExecutorService reactorMain = Executors.newSingleThreadExecutor();
+  private final NioReactor[] workers;
+  /**
+   * Timer of the tasks scheduled on this loop, the select call blocks at most until its next tick having tasks.
+   */
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer(TimeUnit.MILLISECONDS.toNanos(TIMER_TICK_MILLIS), TIMER_WHEEL_SIZE, System.nanoTime());
+  private volatile Thread eventLoopThread;
+  /**
+   * Index of the worker which will receive the next accepted connection. Only touched by the acceptor loop.
+   */
+  private int nextWorker;
 
   /**
    * Creates a reactor which will use provided {@code dispatcher} to dispatch events. The application can provide
@@ -78,14 +105,40 @@ public class NioReactor {
    *           if any I/O error occurs.
    */
   public NioReactor(Dispatcher dispatcher) throws IOException {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates a multi-reactor where this reactor only accepts connections and hands them to {@code workerCount} worker
+   * reactors in round-robin order. Each worker runs its own event loop and uses the same {@code dispatcher}. A
+   * {@code workerCount} of zero gives the classic single reactor.
+   * 
+   * @param dispatcher
+   *          a non-null dispatcher used to dispatch events on registered channels.
+   * @param workerCount
+   *          number of worker event loops, usually the number of available cores.
+   * @throws IOException
+   *           if any I/O error occurs.
+   */
+  public NioReactor(Dispatcher dispatcher, int workerCount) throws IOException {
+    if (workerCount < 0) {
+      throw new IllegalArgumentException("workerCount must not be negative: " + workerCount);
+    }
     this.dispatcher = dispatcher;
     this.selector = Selector.open();
+    this.workers = new NioReactor[workerCount];
+    for (int i = 0; i < workerCount; i++) {
+      workers[i] = new NioReactor(dispatcher);
+    }
   }
 
   /**
    * Starts the reactor event loop in a new thread.
    */
   public void start() {
+    for (NioReactor worker : workers) {
+      worker.start();
+    }
     reactorMain.execute(() -> {
       try {
         LOGGER.info("Reactor started, waiting for events...");
@@ -109,9 +162,19 @@ public class NioReactor {
     selector.wakeup();
     reactorMain.awaitTermination(4, TimeUnit.SECONDS);
     selector.close();
+    for (NioReactor worker : workers) {
+      worker.stop();
+    }
     LOGGER.info("Reactor stopped");
   }
 
+  /**
+   * @return the number of worker event loops, zero when running as a single reactor.
+   */
+  public int getWorkerCount() {
+    return workers.length;
+  }
+
   /**
    * Registers a new channel (handle) with this reactor. Reactor will start waiting for events on this channel and
    * notify of any events. While registering the channel the reactor uses {@link AbstractNioChannel#getInterestedOps()}
@@ -131,6 +194,7 @@ public class NioReactor {
   }
 
   private void eventLoop() throws IOException {
+    eventLoopThread = Thread.currentThread();
     while (true) {
 
       // honor interrupt request
@@ -138,14 +202,24 @@ public class NioReactor {
         break;
       }
 
-      // honor any pending commands first
+      // honor any pending commands first, commands queued from now on need a new wakeup
+      wakeupPending.set(false);
       processPendingCommands();
 
+      // run the scheduled tasks which are due and learn how long we may block
+      long nanosToNextTick = timer.advance(System.nanoTime());
+
       /*
        * Synchronous event de-multiplexing happens here, this is blocking call which returns when it is possible to
-       * initiate non-blocking operation on any of the registered channels.
+       * initiate non-blocking operation on any of the registered channels, or when the next scheduled task is due.
        */
-      selector.select();
+      if (nanosToNextTick < 0) {
+        selector.select();
+      } else if (nanosToNextTick == 0) {
+        selector.selectNow();
+      } else {
+        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanosToNextTick + 999_999)));
+      }
 
       /*
        * Represents the events that have occurred on registered handles.
@@ -170,8 +244,12 @@ public class NioReactor {
     Iterator<Runnable> iterator = pendingCommands.iterator();
     while (iterator.hasNext()) {
       Runnable command = iterator.next();
-      command.run();
       iterator.remove();
+      try {
+        command.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("error running command " + command, e);
+      }
     }
   }
 
@@ -189,24 +267,45 @@ public class NioReactor {
     }
   }
 
-  private static void onChannelWritable(SelectionKey key) throws IOException {
+  private static void onChannelWritable(SelectionKey key) {
     AbstractNioChannel channel = (AbstractNioChannel) key.attachment();
-    channel.flush(key);
+    try {
+      channel.flush(key);
+    } catch (IOException e) {
+      LOGGER.debug("error writing to channel, closing it", e);
+      closeChannel(key);
+    }
   }
 
   private void onChannelReadable(SelectionKey key) {
     try {
       // reads the incoming data in context of reactor main loop. Can this be improved?
-      Object readObject = ((AbstractNioChannel) key.attachment()).read(key);
+      AbstractNioChannel channel = (AbstractNioChannel) key.attachment();
+      Object readObject = channel.read(key);
 
-      dispatchReadEvent(key, readObject);
-    } catch (IOException e) {
-      try {
-        key.channel().close();
-      } catch (IOException e1) {
-        LOGGER.error("error closing channel", e1);
+      // decoding happens on the loop too, so the frames of a connection are dispatched in order
+      for (Object message : channel.getPipeline().fireRead(key, readObject)) {
+        dispatchReadEvent(key, message);
       }
+    } catch (IOException e) {
+      closeChannel(key);
+    }
+  }
+
+  /*
+   * Closes a connection, must be called from the event loop owning the key.
+   */
+  static void closeChannel(SelectionKey key) {
+    if (!key.channel().isOpen()) {
+      return;
     }
+    try {
+      key.channel().close();
+    } catch (IOException e1) {
+      LOGGER.error("error closing channel", e1);
+    }
+    // after closing, so that writers racing with the close find the key invalid
+    ((AbstractNioChannel) key.attachment()).channelClosed(key.channel());
   }
 
   /*
@@ -219,9 +318,102 @@ public class NioReactor {
   private void onChannelAcceptable(SelectionKey key) throws IOException {
     ServerSocketChannel serverSocketChannel = (ServerSocketChannel) key.channel();
     SocketChannel socketChannel = serverSocketChannel.accept();
+    if (socketChannel == null) {
+      return;
+    }
     socketChannel.configureBlocking(false);
-    SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-    readKey.attach(key.attachment());
+    AbstractNioChannel channel = (AbstractNioChannel) key.attachment();
+    if (workers.length == 0) {
+      SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+      readKey.attach(channel);
+      channel.getPipeline().fireActive(readKey);
+      return;
+    }
+    NioReactor worker = workers[nextWorker];
+    nextWorker = (nextWorker + 1) % workers.length;
+    worker.registerAccepted(socketChannel, channel);
+  }
+
+  /*
+   * Registering blocks while the selector is selecting, so the worker performs the registration in its own loop.
+   */
+  private void registerAccepted(SocketChannel socketChannel, AbstractNioChannel channel) {
+    execute(() -> {
+      try {
+        SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+        readKey.attach(channel);
+        channel.getPipeline().fireActive(readKey);
+      } catch (IOException e) {
+        LOGGER.error("error registering accepted channel", e);
+        try {
+          socketChannel.close();
+        } catch (IOException e1) {
+          LOGGER.error("error closing channel", e1);
+        }
+      }
+    });
+  }
+
+  /**
+   * Runs the {@code task} in the context of this reactor's event loop in its next iteration. Handlers can use it
+   * together with {@link #eventLoopOf(SelectionKey)} to pin work to the loop that owns a connection, which needs no
+   * further synchronization.
+   * 
+   * @param task
+   *          the task to be run on the event loop.
+   */
+  public void execute(Runnable task) {
+    pendingCommands.add(task);
+    if (wakeupPending.compareAndSet(false, true)) {
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Schedules the {@code task} to run on this reactor's event loop after {@code delay}. The task runs at most one
+   * timer tick (10 milliseconds) late, and scheduling as well as cancelling it costs constant time, so per connection
+   * timeouts scale to any number of connections.
+   * 
+   * @param task
+   *          the task to be run on the event loop.
+   * @param delay
+   *          the delay from now.
+   * @param unit
+   *          the unit of the delay.
+   * @return a handle to cancel the task.
+   */
+  public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+    HashedWheelTimer.Timeout timeout = HashedWheelTimer.newTimeout(task, System.nanoTime() + unit.toNanos(delay));
+    if (inEventLoop()) {
+      timer.add(timeout, System.nanoTime());
+    } else {
+      execute(() -> timer.add(timeout, System.nanoTime()));
+    }
+    return timeout;
+  }
+
+  /**
+   * @return true if called from this reactor's event loop thread.
+   */
+  public boolean inEventLoop() {
+    return Thread.currentThread() == eventLoopThread;
+  }
+
+  /**
+   * Returns the reactor whose event loop owns the {@code key}. In multi-reactor mode this is the worker the connection
+   * was assigned to, otherwise it is this reactor.
+   * 
+   * @param key
+   *          a key registered with this reactor or one of its workers.
+   * @return the reactor owning the key.
+   */
+  public NioReactor eventLoopOf(SelectionKey key) {
+    for (NioReactor worker : workers) {
+      if (key.selector() == worker.selector) {
+        return worker;
+      }
+    }
+    return this;
   }
 
   /**
@@ -236,8 +428,7 @@ public class NioReactor {
    *          the new interest operations.
    */
   public void changeOps(SelectionKey key, int interestedOps) {
-    pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
-    selector.wakeup();
+    eventLoopOf(key).execute(new ChangeKeyOpsCommand(key, interestedOps));
   }
 
   /**
@@ -253,7 +444,10 @@ public class NioReactor {
     }
 
     public void run() {
-      key.interestOps(interestedOps);
+      // the channel may have been closed since the command was queued
+      if (key.isValid()) {
+        key.interestOps(interestedOps);
+      }
     }
 
     @Override
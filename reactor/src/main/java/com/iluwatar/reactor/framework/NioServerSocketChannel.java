@@ -41,6 +41,9 @@ public class NioServerSocketChannel extends AbstractNioChannel {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NioServerSocketChannel.class);
 
+  private static final int INITIAL_READ_SIZE = 1024;
+  private static final int MAX_GATHERED_WRITES = 16;
+
   private final int port;
 
   /**
@@ -75,20 +78,40 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns {@link ByteBuffer} from the underlying {@link SocketChannel} represented by
-   * the <code>key</code>. Due to the fact that there is a dedicated channel for each client
+   * Reads and returns a {@link PooledBuffer} from the underlying {@link SocketChannel} represented
+   * by the <code>key</code>. Due to the fact that there is a dedicated channel for each client
    * connection we don't need to store the sender.
+   *
+   * <p>
+   * All the data available on the socket is accumulated into one buffer, growing it through the
+   * size classes of the pool, so messages larger than the initial buffer are not split. Only data
+   * beyond the largest size class is left for the next read event.
    */
   @Override
-  public ByteBuffer read(SelectionKey key) throws IOException {
+  public PooledBuffer read(SelectionKey key) throws IOException {
     SocketChannel socketChannel = (SocketChannel) key.channel();
-    ByteBuffer buffer = ByteBuffer.allocate(1024);
-    int read = socketChannel.read(buffer);
-    buffer.flip();
-    if (read == -1) {
+    BufferPool pool = getBufferPool();
+    PooledBuffer cumulation = pool.allocate(INITIAL_READ_SIZE);
+    int read;
+    try {
+      while ((read = socketChannel.read(cumulation.buffer())) > 0) {
+        if (!cumulation.buffer().hasRemaining()) {
+          if (cumulation.buffer().capacity() >= pool.getMaxSize()) {
+            break;
+          }
+          cumulation = pool.grow(cumulation);
+        }
+      }
+    } catch (IOException e) {
+      cumulation.release();
+      throw e;
+    }
+    cumulation.buffer().flip();
+    if (read == -1 && cumulation.readableBytes() == 0) {
+      cumulation.release();
       throw new IOException("Socket closed");
     }
-    return buffer;
+    return cumulation;
   }
 
   /**
@@ -105,12 +128,42 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Writes the pending {@link ByteBuffer} to the underlying channel sending data to the intended
-   * receiver of the packet.
+   * Writes the pending {@link ByteBuffer} or {@link PooledBuffer} to the underlying channel sending
+   * data to the intended receiver of the packet.
    */
   @Override
   protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
-    ByteBuffer pendingBuffer = (ByteBuffer) pendingWrite;
-    ((SocketChannel) key.channel()).write(pendingBuffer);
+    ((SocketChannel) key.channel()).write(toByteBuffer(pendingWrite));
+  }
+
+  /**
+   * Writes up to 16 pending buffers using a single gathering write. Buffers which were written
+   * completely are removed and released, a partially written buffer stays at the head of the queue.
+   */
+  @Override
+  protected boolean doWrite(OutboundBuffer pendingWrites, SelectionKey key) throws IOException {
+    ByteBuffer[] buffers = new ByteBuffer[MAX_GATHERED_WRITES];
+    int count = 0;
+    for (Object pendingWrite : pendingWrites) {
+      if (count == MAX_GATHERED_WRITES) {
+        break;
+      }
+      buffers[count++] = toByteBuffer(pendingWrite);
+    }
+    ((SocketChannel) key.channel()).write(buffers, 0, count);
+    for (int i = 0; i < count; i++) {
+      if (buffers[i].hasRemaining()) {
+        return false;
+      }
+      pendingWrites.remove();
+    }
+    return true;
+  }
+
+  private static ByteBuffer toByteBuffer(Object pendingWrite) {
+    if (pendingWrite instanceof PooledBuffer) {
+      return ((PooledBuffer) pendingWrite).buffer();
+    }
+    return (ByteBuffer) pendingWrite;
   }
 }
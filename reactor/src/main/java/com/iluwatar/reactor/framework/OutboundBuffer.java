@@ -0,0 +1,178 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pending writes of one connection of an {@link AbstractNioChannel}, together with the number
+ * of bytes they hold. Any thread may add writes, only the event loop owning the connection removes
+ * them, so the head of the buffer is stable while the loop is writing. The messages of one write
+ * are added as a unit and stay adjacent.
+ *
+ * <p>
+ * The buffer turns unwritable when the pending bytes exceed the high watermark of the channel and
+ * writable again once they drop to the low watermark.
+ */
+public final class OutboundBuffer implements Iterable<Object> {
+
+  private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+  private final Object addLock = new Object();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private final AtomicBoolean writable = new AtomicBoolean(true);
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+  /**
+   * The writability last reported to the handler, only accessed by the event loop.
+   */
+  private boolean notifiedWritable = true;
+
+  OutboundBuffer() {
+  }
+
+  /*
+   * Appends the messages one write turned into as a unit, so that a message split by the pipeline,
+   * like a length field and its body, is not interleaved with the messages of a concurrent write.
+   * Only adding threads take the lock, the event loop removes without it. Returns true if this write
+   * made the buffer unwritable.
+   */
+  boolean add(List<Object> messages, long[] sizes, long highWaterMark) {
+    long size = 0;
+    synchronized (addLock) {
+      for (int i = 0; i < messages.size(); i++) {
+        entries.add(new Entry(messages.get(i), sizes[i]));
+        size += sizes[i];
+      }
+    }
+    return pendingBytes.addAndGet(size) > highWaterMark && writable.compareAndSet(true, false);
+  }
+
+  /*
+   * Returns true if the caller has to schedule an update of the interest operations, the flag is
+   * reset by the event loop before it performs the update, so at most one update is queued.
+   */
+  boolean scheduleUpdate() {
+    return updateScheduled.compareAndSet(false, true);
+  }
+
+  void updateStarted() {
+    updateScheduled.set(false);
+  }
+
+  /*
+   * Returns true if the writability differs from what was last reported to the handler.
+   */
+  boolean checkWritability(long lowWaterMark) {
+    if (!writable.get() && pendingBytes.get() <= lowWaterMark) {
+      writable.compareAndSet(false, true);
+    }
+    boolean current = writable.get();
+    if (current != notifiedWritable) {
+      notifiedWritable = current;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the oldest pending write, or null if there is none.
+   */
+  public Object current() {
+    Entry entry = entries.peek();
+    return entry == null ? null : entry.data;
+  }
+
+  /**
+   * Removes the oldest pending write after it has been written completely, releasing it if it is
+   * {@link ReferenceCounted}.
+   */
+  public void remove() {
+    Entry entry = entries.poll();
+    if (entry != null) {
+      pendingBytes.addAndGet(-entry.size);
+      ReferenceCounted.release(entry.data);
+    }
+  }
+
+  /**
+   * Iterates the pending writes from oldest to newest.
+   */
+  @Override
+  public Iterator<Object> iterator() {
+    Iterator<Entry> iterator = entries.iterator();
+    return new Iterator<Object>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Object next() {
+        return iterator.next().data;
+      }
+    };
+  }
+
+  /**
+   * @return true if nothing is pending.
+   */
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * @return the number of bytes pending.
+   */
+  public long getPendingBytes() {
+    return pendingBytes.get();
+  }
+
+  /**
+   * @return false while the pending bytes are above the watermarks.
+   */
+  public boolean isWritable() {
+    return writable.get();
+  }
+
+  void discard() {
+    Entry entry;
+    while ((entry = entries.poll()) != null) {
+      pendingBytes.addAndGet(-entry.size);
+      ReferenceCounted.release(entry.data);
+    }
+  }
+
+  private static final class Entry {
+    private final Object data;
+    private final long size;
+
+    private Entry(Object data, long size) {
+      this.data = data;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A direct {@link ByteBuffer} allocated from a {@link BufferPool}. The buffer goes back to the pool
+ * when the last reference is released and must not be touched afterwards.
+ *
+ * <p>
+ * A slice created using {@link #retainedSlice(int)} shares memory and reference count with the
+ * buffer it was sliced from, so frames can be handed out without copying them.
+ */
+public final class PooledBuffer implements ReferenceCounted {
+
+  private final BufferPool pool;
+  private final ByteBuffer root;
+  private final ByteBuffer buffer;
+  private final AtomicInteger refCnt;
+
+  PooledBuffer(BufferPool pool, ByteBuffer buffer) {
+    this(pool, buffer, buffer, new AtomicInteger(1));
+  }
+
+  private PooledBuffer(BufferPool pool, ByteBuffer root, ByteBuffer buffer, AtomicInteger refCnt) {
+    this.pool = pool;
+    this.root = root;
+    this.buffer = buffer;
+    this.refCnt = refCnt;
+  }
+
+  /**
+   * @return the underlying buffer.
+   */
+  public ByteBuffer buffer() {
+    return buffer;
+  }
+
+  /**
+   * @return number of readable bytes between position and limit of the buffer.
+   */
+  public int readableBytes() {
+    return buffer.remaining();
+  }
+
+  /**
+   * Copies the readable bytes into a new array, leaving the buffer position untouched.
+   *
+   * @return the readable bytes.
+   */
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Returns the next {@code length} readable bytes as a slice sharing memory and reference count
+   * with this buffer, and advances the position of this buffer past them. The slice is retained,
+   * releasing it does not affect the bytes left in this buffer.
+   *
+   * @param length number of bytes of the slice.
+   * @return the retained slice.
+   */
+  public PooledBuffer retainedSlice(int length) {
+    if (length > buffer.remaining()) {
+      throw new IndexOutOfBoundsException("length " + length + " exceeds " + buffer.remaining());
+    }
+    retain();
+    ByteBuffer slice = buffer.slice();
+    slice.limit(length);
+    buffer.position(buffer.position() + length);
+    return new PooledBuffer(pool, root, slice, refCnt);
+  }
+
+  @Override
+  public int refCnt() {
+    return refCnt.get();
+  }
+
+  @Override
+  public PooledBuffer retain() {
+    int count;
+    do {
+      count = refCnt.get();
+      if (count == 0) {
+        throw new IllegalStateException("buffer already released");
+      }
+    } while (!refCnt.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    int count;
+    do {
+      count = refCnt.get();
+      if (count == 0) {
+        throw new IllegalStateException("buffer already released");
+      }
+    } while (!refCnt.compareAndSet(count, count - 1));
+    if (count == 1) {
+      pool.recycle(root);
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * An object holding pooled memory which is returned to its pool once every holder has released it.
+ * A newly allocated object has a reference count of one, owned by whoever allocated it.
+ *
+ * <p>
+ * Read objects dispatched to a {@link ChannelHandler} are released by the {@link Dispatcher} after
+ * the handler returns, so a handler that keeps the data or writes it back to a channel must
+ * {@link #retain()} it first. Pending writes are released by the channel once they are written.
+ */
+public interface ReferenceCounted {
+
+  /**
+   * @return the current reference count, zero once the object has been deallocated.
+   */
+  int refCnt();
+
+  /**
+   * Increments the reference count by one.
+   *
+   * @return this object.
+   */
+  ReferenceCounted retain();
+
+  /**
+   * Decrements the reference count by one and deallocates the object when it reaches zero.
+   *
+   * @return true if the object was deallocated.
+   * @throws IllegalStateException if the object has already been deallocated.
+   */
+  boolean release();
+
+  /**
+   * Releases {@code object} if it is reference counted, does nothing otherwise.
+   *
+   * @param object the object to be released.
+   */
+  static void release(Object object) {
+    if (object instanceof ReferenceCounted) {
+      ((ReferenceCounted) object).release();
+    }
+  }
+}
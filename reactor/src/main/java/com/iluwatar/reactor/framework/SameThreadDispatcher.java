@@ -47,7 +47,11 @@ public class SameThreadDispatcher implements Dispatcher {
      * Calls the associated handler to notify the read event where application specific code
      * resides.
      */
-    channel.getHandler().handleChannelRead(channel, readObject, key);
+    try {
+      channel.getHandler().handleChannelRead(channel, readObject, key);
+    } finally {
+      ReferenceCounted.release(readObject);
+    }
   }
 
   /**
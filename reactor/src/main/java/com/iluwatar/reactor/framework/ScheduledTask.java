@@ -0,0 +1,48 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * A handle of a task scheduled on the event loop of a {@link NioReactor} using
+ * {@link NioReactor#schedule(Runnable, long, java.util.concurrent.TimeUnit)}.
+ */
+public interface ScheduledTask {
+
+  /**
+   * Cancels the task if it has not run yet. This is safe to call from any thread and costs
+   * constant time, the reactor drops cancelled tasks when their deadline comes.
+   *
+   * @return false if the task has already run or been cancelled.
+   */
+  boolean cancel();
+
+  /**
+   * @return true if the task has been cancelled before it ran.
+   */
+  boolean isCancelled();
+
+  /**
+   * @return true if the task has run.
+   */
+  boolean isExpired();
+}
@@ -0,0 +1,234 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.nio.channels.SelectionKey;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A dispatcher meant for handlers doing blocking work, such as writing to a database. Each read
+ * event is handled on its own virtual thread, so blocking a handler does not hold a pool thread and
+ * there is no pool size to tune.
+ *
+ * <p>
+ * Unlike {@link ThreadPoolDispatcher} the events of a connection are handled one after the other in
+ * the order they were read, using a lightweight serial executor per {@link SelectionKey}, while
+ * different connections are handled concurrently. Note that all the peers of a datagram channel
+ * share a key and are therefore handled serially.
+ *
+ * <p>
+ * Virtual threads are looked up when the dispatcher is created, on runtimes without them it falls
+ * back to a cached thread pool which grows with the number of concurrently blocked handlers.
+ */
+public class VirtualThreadDispatcher implements Dispatcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadDispatcher.class);
+
+  private static final int MIN_SWEEP_THRESHOLD = 1024;
+
+  private final ExecutorService executorService;
+  private final boolean virtualThreads;
+  private final Map<SelectionKey, SerialExecutor> executors = new ConcurrentHashMap<>();
+  private volatile int sweepThreshold = MIN_SWEEP_THRESHOLD;
+
+  /**
+   * Creates a dispatcher using virtual threads, or a cached thread pool if the runtime does not
+   * provide them.
+   */
+  public VirtualThreadDispatcher() {
+    ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+    this.virtualThreads = virtualThreadExecutor != null;
+    this.executorService =
+        virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool();
+  }
+
+  /**
+   * Creates a dispatcher running the handlers on the provided executor, still preserving the order
+   * of events per connection.
+   *
+   * @param executorService the executor running the handlers.
+   */
+  public VirtualThreadDispatcher(ExecutorService executorService) {
+    this.executorService = executorService;
+    this.virtualThreads = false;
+  }
+
+  /**
+   * @return true if the handlers run on virtual threads.
+   */
+  public boolean isUsingVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Queues the read event behind the pending events of the same connection. This is a non-blocking
+   * call and returns immediately.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    SerialExecutor executor = executors.get(key);
+    if (executor == null) {
+      executor = executors.computeIfAbsent(key, k -> new SerialExecutor());
+      sweepClosedConnections();
+    }
+    executor.execute(new ReadTask(channel, readObject, key));
+  }
+
+  /**
+   * Stops accepting events and waits for the handlers of the events already queued.
+   *
+   * @throws InterruptedException if interrupted while stopping.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    executorService.awaitTermination(4, TimeUnit.SECONDS);
+  }
+
+  /*
+   * Executors of closed connections are dropped once idle. Sweeping whenever the map doubled keeps
+   * the cost constant per connection.
+   */
+  private void sweepClosedConnections() {
+    if (executors.size() < sweepThreshold) {
+      return;
+    }
+    executors.entrySet().removeIf(e -> !e.getKey().isValid() && e.getValue().isIdle());
+    sweepThreshold = Math.max(MIN_SWEEP_THRESHOLD, executors.size() * 2);
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOGGER.info("Virtual threads are not available, using a cached thread pool");
+      return null;
+    }
+  }
+
+  /**
+   * Runs the tasks of one connection one at a time, in submission order, on the shared executor. A
+   * single task drains the queue, so a burst of events costs one thread hand-off.
+   */
+  private final class SerialExecutor implements Runnable {
+    private final Queue<ReadTask> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    void execute(ReadTask task) {
+      tasks.add(task);
+      try {
+        schedule();
+      } catch (RejectedExecutionException e) {
+        // unless the queue has been drained meanwhile, which released the task already
+        if (tasks.remove(task)) {
+          task.release();
+        }
+        LOGGER.warn("dispatcher stopped, dropping read event");
+      }
+    }
+
+    boolean isIdle() {
+      return !scheduled.get() && tasks.isEmpty();
+    }
+
+    private void schedule() {
+      if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+        try {
+          executorService.execute(this);
+        } catch (RejectedExecutionException e) {
+          scheduled.set(false);
+          throw e;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        ReadTask task;
+        while ((task = tasks.poll()) != null) {
+          try {
+            task.run();
+          } catch (RuntimeException e) {
+            LOGGER.error("error handling read event", e);
+          }
+        }
+      } finally {
+        scheduled.set(false);
+        // a task may have been queued after the last poll but before the flag was cleared
+        try {
+          schedule();
+        } catch (RejectedExecutionException e) {
+          int dropped = 0;
+          ReadTask task;
+          while ((task = tasks.poll()) != null) {
+            task.release();
+            dropped++;
+          }
+          LOGGER.warn("dispatcher stopped, dropping {} read events", dropped);
+        }
+      }
+    }
+  }
+
+  /**
+   * A read event waiting for the handler, owning the read object until it is handled or dropped.
+   */
+  private static final class ReadTask implements Runnable {
+    private final AbstractNioChannel channel;
+    private final Object readObject;
+    private final SelectionKey key;
+
+    ReadTask(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+      this.channel = channel;
+      this.readObject = readObject;
+      this.key = key;
+    }
+
+    @Override
+    public void run() {
+      try {
+        channel.getHandler().handleChannelRead(channel, readObject, key);
+      } finally {
+        release();
+      }
+    }
+
+    void release() {
+      ReferenceCounted.release(readObject);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import com.iluwatar.reactor.app.LoadGenerator.LoadReport;
+import com.iluwatar.reactor.framework.SameThreadDispatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a short, light load against the logging service to check that the load generator measures
+ * what the server acknowledges.
+ */
+public class LoadGeneratorTest {
+
+  @Test
+  public void testLoadIsMeasured() throws Exception {
+    LoadGenerator generator = new LoadGenerator(2, 1, 300, 200, 1000);
+    LoadReport report = ReactorBenchmark.run(new App(new SameThreadDispatcher(), 2), generator);
+
+    assertEquals(0, report.getErrors());
+    // 300 requests per second for a second, give or take the scheduling of the last requests
+    assertTrue(report.getCompletedRequests() > 250, report.toString());
+    assertTrue(report.getThroughput() > 200, report.toString());
+    assertTrue(report.getLatencyMicros(50) > 0);
+    assertTrue(report.getLatencyMicros(99.9) >= report.getLatencyMicros(50));
+  }
+}
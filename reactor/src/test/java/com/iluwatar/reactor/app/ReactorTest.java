@@ -24,6 +24,7 @@ package com.iluwatar.reactor.app;
 
 import com.iluwatar.reactor.framework.SameThreadDispatcher;
 import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
+import com.iluwatar.reactor.framework.VirtualThreadDispatcher;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -94,4 +95,60 @@ public class ReactorTest {
     app.stop();
     LOGGER.info("testAppUsingSameThreadDispatcher stop");
   }
+
+  /**
+   * Test the application using an acceptor loop and multiple worker loops.
+   * 
+   * @throws IOException if any I/O error occurs.
+   * @throws InterruptedException if interrupted while stopping the application.
+   */
+  @Test
+  public void testAppUsingMultiReactor() throws IOException, InterruptedException {
+    LOGGER.info("testAppUsingMultiReactor start");
+    App app = new App(new SameThreadDispatcher(), 2);
+    app.start();
+
+    AppClient client = new AppClient();
+    client.start();
+
+    // allow clients to send requests. Artificial delay.
+    try {
+      Thread.sleep(2000);
+    } catch (InterruptedException e) {
+      LOGGER.error("sleep interrupted", e);
+    }
+
+    client.stop();
+
+    app.stop();
+    LOGGER.info("testAppUsingMultiReactor stop");
+  }
+
+  /**
+   * Test the application using the virtual thread dispatcher.
+   * 
+   * @throws IOException if any I/O error occurs.
+   * @throws InterruptedException if interrupted while stopping the application.
+   */
+  @Test
+  public void testAppUsingVirtualThreadDispatcher() throws IOException, InterruptedException {
+    LOGGER.info("testAppUsingVirtualThreadDispatcher start");
+    App app = new App(new VirtualThreadDispatcher());
+    app.start();
+
+    AppClient client = new AppClient();
+    client.start();
+
+    // allow clients to send requests. Artificial delay.
+    try {
+      Thread.sleep(2000);
+    } catch (InterruptedException e) {
+      LOGGER.error("sleep interrupted", e);
+    }
+
+    client.stop();
+
+    app.stop();
+    LOGGER.info("testAppUsingVirtualThreadDispatcher stop");
+  }
 }
@@ -0,0 +1,122 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link BufferPool} and {@link PooledBuffer}.
+ */
+public class BufferPoolTest {
+
+  @Test
+  public void testAllocationIsRoundedToSizeClass() {
+    BufferPool pool = new BufferPool(512, 4096, 4);
+    PooledBuffer small = pool.allocate(10);
+    PooledBuffer medium = pool.allocate(700);
+
+    assertEquals(512, small.buffer().capacity());
+    assertEquals(1024, medium.buffer().capacity());
+    assertTrue(medium.buffer().isDirect());
+  }
+
+  @Test
+  public void testReleasedBufferIsReused() {
+    BufferPool pool = new BufferPool(512, 4096, 4);
+    PooledBuffer first = pool.allocate(1000);
+    ByteBuffer underlying = first.buffer();
+    underlying.put((byte) 1);
+
+    assertTrue(first.release());
+    assertEquals(1, pool.getPooledCount());
+
+    PooledBuffer second = pool.allocate(1000);
+    assertSame(underlying, second.buffer());
+    assertEquals(0, second.buffer().position());
+    assertEquals(0, pool.getPooledCount());
+  }
+
+  @Test
+  public void testReferenceCounting() {
+    BufferPool pool = new BufferPool(512, 4096, 4);
+    PooledBuffer buffer = pool.allocate(100).retain();
+
+    assertEquals(2, buffer.refCnt());
+    assertFalse(buffer.release());
+    assertTrue(buffer.release());
+    assertEquals(0, buffer.refCnt());
+    assertThrows(IllegalStateException.class, buffer::release);
+    assertThrows(IllegalStateException.class, buffer::retain);
+  }
+
+  @Test
+  public void testOversizedBuffersAreNotPooled() {
+    BufferPool pool = new BufferPool(512, 4096, 4);
+    PooledBuffer large = pool.allocate(10000);
+    assertEquals(10000, large.buffer().capacity());
+
+    large.release();
+    assertEquals(0, pool.getPooledCount());
+  }
+
+  @Test
+  public void testFreeListIsBounded() {
+    BufferPool pool = new BufferPool(512, 4096, 2);
+    PooledBuffer[] buffers = new PooledBuffer[4];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = pool.allocate(512);
+    }
+    for (PooledBuffer buffer : buffers) {
+      buffer.release();
+    }
+    assertEquals(2, pool.getPooledCount());
+  }
+
+  @Test
+  public void testGrowKeepsWrittenBytes() {
+    BufferPool pool = new BufferPool(512, 4096, 4);
+    PooledBuffer buffer = pool.allocate(512);
+    for (int i = 0; i < 512; i++) {
+      buffer.buffer().put((byte) i);
+    }
+
+    PooledBuffer grown = pool.grow(buffer);
+    assertNotSame(buffer.buffer(), grown.buffer());
+    assertEquals(0, buffer.refCnt());
+    assertEquals(1024, grown.buffer().capacity());
+    assertEquals(512, grown.buffer().position());
+    grown.buffer().flip();
+    for (int i = 0; i < 512; i++) {
+      assertEquals((byte) i, grown.buffer().get());
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the frame decoders and encoders of the {@link ChannelPipeline}.
+ */
+public class CodecTest {
+
+  private final BufferPool pool = new BufferPool(64, 4096, 16);
+  private Pipe pipe;
+  private SelectionKey key;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    pipe = Pipe.open();
+    key = new StubSelectionKey(pipe.source());
+    NioServerSocketChannel channel = new NioServerSocketChannel(0, (ch, readObject, k) -> { });
+    channel.setBufferPool(pool);
+    key.attach(channel);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    pipe.source().close();
+    pipe.sink().close();
+  }
+
+  @Test
+  public void testLengthFieldFramesSplitAcrossReads() throws IOException {
+    byte[] stream = concat(lengthPrefixed("first"), lengthPrefixed("second frame"),
+        lengthPrefixed(""));
+    LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(2, 1024);
+
+    List<Object> frames = new ArrayList<>();
+    for (int offset = 0; offset < stream.length; offset += 3) {
+      byte[] chunk = Arrays.copyOfRange(stream, offset, Math.min(stream.length, offset + 3));
+      decoder.read(key, buffer(chunk), frames);
+    }
+
+    assertEquals(Arrays.asList("first", "second frame", ""), strings(frames));
+  }
+
+  @Test
+  public void testCoalescedFramesAreSlicedFromOneRead() throws IOException {
+    PooledBuffer read = buffer(concat(lengthPrefixed("a"), lengthPrefixed("bc"),
+        new byte[] {0, 5, 'd'}));
+    List<Object> frames = new ArrayList<>();
+    new LengthFieldFrameDecoder(2, 1024).read(key, read, frames);
+
+    // two slices plus the partial frame kept by the decoder share the read buffer
+    assertEquals(3, read.refCnt());
+    assertEquals(Arrays.asList("a", "bc"), strings(frames));
+    assertEquals(1, read.refCnt());
+  }
+
+  @Test
+  public void testTooLongFrameIsRejected() {
+    PooledBuffer read = buffer(lengthPrefixed("too long"));
+    LengthFieldFrameDecoder decoder = new LengthFieldFrameDecoder(2, 4);
+
+    assertThrows(IOException.class, () -> decoder.read(key, read, new ArrayList<>()));
+    assertEquals(0, read.refCnt());
+  }
+
+  @Test
+  public void testLineFrames() throws IOException {
+    LineFrameDecoder decoder = new LineFrameDecoder(64);
+    List<Object> frames = new ArrayList<>();
+    PooledBuffer first = buffer("one\r\ntw".getBytes(StandardCharsets.UTF_8));
+    decoder.read(key, first, frames);
+    decoder.read(key, buffer("o\n\nthr".getBytes(StandardCharsets.UTF_8)), frames);
+
+    assertEquals(Arrays.asList("one", "two", ""), strings(frames));
+
+    // the partial line is kept until the connection closes
+    assertEquals(1, first.refCnt());
+    decoder.closed(pipe.source());
+    assertEquals(0, first.refCnt());
+  }
+
+  @Test
+  public void testLengthFieldPrepender() {
+    List<Object> out = new ArrayList<>();
+    new LengthFieldPrepender(4).write(key, ByteBuffer.wrap(new byte[300]), out);
+
+    assertEquals(2, out.size());
+    assertEquals(300, ((ByteBuffer) out.get(0)).getInt(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new LengthFieldPrepender(1).write(key, ByteBuffer.wrap(new byte[300]), out));
+  }
+
+  @Test
+  public void testLengthPrefixedEcho() throws Exception {
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    NioServerSocketChannel channel = new NioServerSocketChannel(0,
+        (ch, readObject, k) -> ch.write(((PooledBuffer) readObject).retain(), k));
+    channel.getPipeline()
+        .addInbound(new LengthFieldFrameDecoder(4, 1024 * 1024))
+        .addOutbound(new LengthFieldPrepender(4));
+    channel.bind();
+    reactor.registerChannel(channel).start();
+
+    int port = channel.getJavaChannel().socket().getLocalPort();
+    try (Socket socket = new Socket(InetAddress.getLocalHost(), port)) {
+      DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+      for (int i = 0; i < 100; i++) {
+        byte[] message = ("message " + i).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(message.length);
+        out.write(message);
+      }
+      out.flush();
+
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      for (int i = 0; i < 100; i++) {
+        byte[] message = new byte[in.readInt()];
+        in.readFully(message);
+        assertArrayEquals(("message " + i).getBytes(StandardCharsets.UTF_8), message);
+      }
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  public void testConcurrentWritersDoNotInterleaveFrames() throws Exception {
+    int writers = 4;
+    int messagesPerWriter = 2000;
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    NioServerSocketChannel channel = new NioServerSocketChannel(0, (ch, readObject, k) -> {
+      CountDownLatch start = new CountDownLatch(1);
+      for (int w = 0; w < writers; w++) {
+        int writer = w;
+        new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < messagesPerWriter; i++) {
+            byte[] message = (writer + ":" + i).getBytes(StandardCharsets.UTF_8);
+            ch.write(ByteBuffer.wrap(message), k);
+          }
+        }).start();
+      }
+      start.countDown();
+    });
+    channel.getPipeline()
+        .addInbound(new LengthFieldFrameDecoder(4, 1024))
+        .addOutbound(new LengthFieldPrepender(4));
+    channel.bind();
+    reactor.registerChannel(channel).start();
+
+    int port = channel.getJavaChannel().socket().getLocalPort();
+    try (Socket socket = new Socket(InetAddress.getLocalHost(), port)) {
+      socket.setSoTimeout(10000);
+      DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+      out.writeInt(1);
+      out.write('x');
+      out.flush();
+
+      // every frame is whole and each writer's frames arrive in the order it wrote them
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      int[] next = new int[writers];
+      for (int n = 0; n < writers * messagesPerWriter; n++) {
+        int length = in.readInt();
+        assertTrue(length > 0 && length <= 16, "corrupted length field " + length);
+        byte[] message = new byte[length];
+        in.readFully(message);
+        String frame = new String(message, StandardCharsets.UTF_8);
+        assertTrue(frame.matches("\\d+:\\d+"), "corrupted frame " + frame);
+        String[] parts = frame.split(":");
+        int writer = Integer.parseInt(parts[0]);
+        assertEquals(next[writer]++, Integer.parseInt(parts[1]));
+      }
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  private PooledBuffer buffer(byte[] bytes) {
+    PooledBuffer buffer = pool.allocate(bytes.length);
+    buffer.buffer().put(bytes).flip();
+    return buffer;
+  }
+
+  private static byte[] lengthPrefixed(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    return concat(new byte[] {(byte) (bytes.length >> 8), (byte) bytes.length}, bytes);
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(parts).mapToInt(p -> p.length).sum());
+    for (byte[] part : parts) {
+      buffer.put(part);
+    }
+    return buffer.array();
+  }
+
+  private static List<String> strings(List<Object> frames) {
+    List<String> strings = new ArrayList<>();
+    for (Object frame : frames) {
+      PooledBuffer buffer = (PooledBuffer) frame;
+      strings.add(new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+      buffer.release();
+    }
+    return strings;
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link HashedWheelTimer}, driven by a simulated clock with ticks of 10 nanoseconds and a
+ * wheel of 8 buckets.
+ */
+public class HashedWheelTimerTest {
+
+  private static final long START = 1_000;
+
+  private final HashedWheelTimer timer = new HashedWheelTimer(10, 8, START);
+  private final List<String> fired = new ArrayList<>();
+
+  @Test
+  public void testTasksRunWhenDue() {
+    schedule("a", 25, START);
+    schedule("b", 5, START);
+
+    assertEquals(10, timer.advance(START));
+    assertEquals(20, timer.advance(START + 10));
+    assertEquals(listOf("b"), fired);
+
+    timer.advance(START + 29);
+    assertEquals(listOf("b"), fired);
+    assertEquals(-1, timer.advance(START + 30));
+    assertEquals(listOf("b", "a"), fired);
+  }
+
+  @Test
+  public void testTaskBeyondOneRotation() {
+    // 8 buckets of 10ns make a rotation of 80ns, the task needs two more rotations
+    schedule("late", 205, START);
+
+    timer.advance(START + 90);
+    timer.advance(START + 170);
+    assertTrue(fired.isEmpty());
+    timer.advance(START + 200);
+    assertTrue(fired.isEmpty());
+    timer.advance(START + 210);
+    assertEquals(listOf("late"), fired);
+  }
+
+  @Test
+  public void testCancelledTaskDoesNotRun() {
+    HashedWheelTimer.Timeout timeout = schedule("cancelled", 15, START);
+    schedule("kept", 15, START);
+
+    assertTrue(timeout.cancel());
+    assertFalse(timeout.cancel());
+    timer.advance(START + 20);
+
+    assertEquals(listOf("kept"), fired);
+    assertTrue(timeout.isCancelled());
+    assertEquals(0, timer.getPendingTasks());
+  }
+
+  @Test
+  public void testTaskScheduledByExpiringTaskRunsOnNextTick() {
+    HashedWheelTimer.Timeout first = HashedWheelTimer.newTimeout(() -> {
+      fired.add("first");
+      schedule("second", 0, START + 10);
+    }, START + 10);
+    timer.add(first, START);
+
+    timer.advance(START + 10);
+    assertEquals(listOf("first"), fired);
+    assertTrue(first.isExpired());
+    timer.advance(START + 20);
+    assertEquals(listOf("first", "second"), fired);
+  }
+
+  @Test
+  public void testTaskRescheduledOneRotationAheadWaitsForTheRotation() {
+    // the second task is due exactly one rotation after the first, in the bucket being expired
+    HashedWheelTimer.Timeout first = HashedWheelTimer.newTimeout(() -> {
+      fired.add("first");
+      schedule("second", 80, START + 10);
+    }, START + 10);
+    timer.add(first, START);
+    schedule("other", 10, START);
+
+    timer.advance(START + 10);
+    assertEquals(listOf("first", "other"), fired);
+    timer.advance(START + 80);
+    assertEquals(listOf("first", "other"), fired);
+    timer.advance(START + 90);
+    assertEquals(listOf("first", "other", "second"), fired);
+  }
+
+  @Test
+  public void testIdleWheelSkipsPassedTicks() {
+    assertEquals(-1, timer.advance(START + 1_000_000));
+    schedule("a", 10, START + 1_000_000);
+
+    assertEquals(10, timer.advance(START + 1_000_000));
+    timer.advance(START + 1_000_010);
+    assertEquals(listOf("a"), fired);
+  }
+
+  private HashedWheelTimer.Timeout schedule(String name, long delay, long now) {
+    HashedWheelTimer.Timeout timeout = HashedWheelTimer.newTimeout(() -> fired.add(name), now + delay);
+    timer.add(timeout, now);
+    return timeout;
+  }
+
+  private static List<String> listOf(String... names) {
+    List<String> list = new ArrayList<>();
+    for (String name : names) {
+      list.add(name);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,244 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the multi-reactor mode of {@link NioReactor}.
+ */
+public class NioReactorTest {
+
+  @Test
+  public void testConnectionsAreSpreadOverWorkerLoops() throws Exception {
+    Set<String> loopThreads = ConcurrentHashMap.newKeySet();
+    Set<NioReactor> owners = ConcurrentHashMap.newKeySet();
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher(), 2);
+    ChannelHandler echo = (channel, readObject, key) -> {
+      loopThreads.add(Thread.currentThread().getName());
+      owners.add(reactor.eventLoopOf(key));
+      channel.write(((PooledBuffer) readObject).retain(), key);
+    };
+    NioServerSocketChannel channel = new NioServerSocketChannel(0, echo);
+    channel.bind();
+    reactor.registerChannel(channel).start();
+
+    int port = channel.getJavaChannel().socket().getLocalPort();
+    try {
+      for (int i = 0; i < 4; i++) {
+        assertEquals("ping " + i, roundTrip(port, "ping " + i));
+      }
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+
+    assertEquals(2, reactor.getWorkerCount());
+    assertEquals(2, loopThreads.size());
+    assertEquals(2, owners.size());
+    assertFalse(owners.contains(reactor));
+  }
+
+  @Test
+  public void testLargeMessagesAreEchoedCompletely() throws Exception {
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    NioServerSocketChannel channel = new NioServerSocketChannel(0,
+        (ch, readObject, key) -> ch.write(((PooledBuffer) readObject).retain(), key));
+    channel.bind();
+    reactor.registerChannel(channel).start();
+
+    byte[] message = new byte[200 * 1024];
+    for (int i = 0; i < message.length; i++) {
+      message[i] = (byte) (i % 251);
+    }
+    int port = channel.getJavaChannel().socket().getLocalPort();
+    try (Socket socket = new Socket(InetAddress.getLocalHost(), port)) {
+      socket.getOutputStream().write(message);
+      socket.getOutputStream().flush();
+      byte[] echoed = new byte[message.length];
+      int offset = 0;
+      InputStream in = socket.getInputStream();
+      while (offset < echoed.length) {
+        int read = in.read(echoed, offset, echoed.length - offset);
+        assertTrue(read > 0);
+        offset += read;
+      }
+      assertArrayEquals(message, echoed);
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  public void testWritabilityFollowsWatermarks() throws Exception {
+    List<Boolean> writabilityChanges = new CopyOnWriteArrayList<>();
+    ChannelHandler handler = new ChannelHandler() {
+      @Override
+      public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+          SelectionKey key) {
+        // 128 KiB of replies queued before the loop gets a chance to flush
+        for (int i = 0; i < 32; i++) {
+          channel.write(ByteBuffer.allocate(4096), key);
+        }
+      }
+
+      @Override
+      public void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+          boolean writable) {
+        writabilityChanges.add(writable);
+      }
+    };
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    NioServerSocketChannel channel = new NioServerSocketChannel(0, handler);
+    channel.setWriteBufferWaterMarks(8 * 1024, 16 * 1024);
+    channel.bind();
+    reactor.registerChannel(channel).start();
+
+    int port = channel.getJavaChannel().socket().getLocalPort();
+    try (Socket socket = new Socket(InetAddress.getLocalHost(), port)) {
+      for (int round = 0; round < 2; round++) {
+        socket.getOutputStream().write(1);
+        socket.getOutputStream().flush();
+        byte[] reply = new byte[32 * 4096];
+        int offset = 0;
+        while (offset < reply.length) {
+          int read = socket.getInputStream().read(reply, offset, reply.length - offset);
+          assertTrue(read > 0);
+          offset += read;
+        }
+      }
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+
+    assertEquals(Arrays.asList(false, true, false, true), writabilityChanges);
+  }
+
+  @Test
+  public void testScheduledTaskRunsOnEventLoopAfterDelay() throws Exception {
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.start();
+    try {
+      long start = System.nanoTime();
+      CompletableFuture<Long> ranAfter = new CompletableFuture<>();
+      ScheduledTask cancelled = reactor.schedule(() -> ranAfter.complete(-1L), 100, TimeUnit.MILLISECONDS);
+      reactor.schedule(() -> ranAfter.complete(System.nanoTime() - start), 200, TimeUnit.MILLISECONDS);
+      assertTrue(cancelled.cancel());
+
+      long elapsed = ranAfter.get(2, TimeUnit.SECONDS);
+      assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(200), "ran after " + elapsed);
+    } finally {
+      reactor.stop();
+    }
+  }
+
+  @Test
+  public void testIdleConnectionIsClosed() throws Exception {
+    List<IdleState> idleStates = new CopyOnWriteArrayList<>();
+    ChannelHandler handler = new ChannelHandler() {
+      @Override
+      public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+          SelectionKey key) {
+        // requests are not answered
+      }
+
+      @Override
+      public void handleIdle(AbstractNioChannel channel, SelectionKey key, IdleState state) {
+        idleStates.add(state);
+      }
+    };
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher(), 1);
+    NioServerSocketChannel channel = new NioServerSocketChannel(0, handler);
+    channel.getPipeline().addInbound(new IdleStateHandler(300, 0, TimeUnit.MILLISECONDS, true));
+    channel.bind();
+    reactor.registerChannel(channel).start();
+
+    int port = channel.getJavaChannel().socket().getLocalPort();
+    try (Socket idle = new Socket(InetAddress.getLocalHost(), port);
+        Socket busy = new Socket(InetAddress.getLocalHost(), port)) {
+      idle.setSoTimeout(5000);
+      busy.setSoTimeout(100);
+      long start = System.nanoTime();
+      // the busy client keeps sending for longer than the idle time
+      while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900)) {
+        busy.getOutputStream().write('.');
+        Thread.sleep(50);
+      }
+
+      assertEquals(-1, idle.getInputStream().read());
+      assertEquals(Arrays.asList(IdleState.READER_IDLE), idleStates);
+      assertThrows(SocketTimeoutException.class, () -> busy.getInputStream().read());
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  public void testExecuteRunsOnEventLoop() throws Exception {
+    NioReactor reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.start();
+    try {
+      CompletableFuture<Thread> loopThread = new CompletableFuture<>();
+      reactor.execute(() -> loopThread.complete(Thread.currentThread()));
+      assertNotSame(Thread.currentThread(), loopThread.get(2, TimeUnit.SECONDS));
+    } finally {
+      reactor.stop();
+    }
+  }
+
+  private static String roundTrip(int port, String message) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLocalHost(), port)) {
+      socket.getOutputStream().write(message.getBytes());
+      socket.getOutputStream().flush();
+      InputStream in = socket.getInputStream();
+      byte[] data = new byte[1024];
+      int read = in.read(data);
+      return new String(data, 0, read);
+    }
+  }
+}
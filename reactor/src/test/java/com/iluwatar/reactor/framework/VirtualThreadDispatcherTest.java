@@ -0,0 +1,152 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link VirtualThreadDispatcher}.
+ */
+public class VirtualThreadDispatcherTest {
+
+  private final VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher();
+  private Pipe first;
+  private Pipe second;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    first = Pipe.open();
+    second = Pipe.open();
+  }
+
+  /**
+   * Stops the dispatcher and closes the pipes backing the keys.
+   */
+  @AfterEach
+  public void tearDown() throws InterruptedException, IOException {
+    dispatcher.stop();
+    first.source().close();
+    first.sink().close();
+    second.source().close();
+    second.sink().close();
+  }
+
+  @Test
+  public void testEventsOfAConnectionAreHandledInOrder() throws Exception {
+    int events = 500;
+    Map<SelectionKey, List<Integer>> handled = new ConcurrentHashMap<>();
+    CountDownLatch done = new CountDownLatch(2 * events);
+    AbstractNioChannel channel = channel((ch, readObject, key) -> {
+      if ((Integer) readObject % 50 == 0) {
+        sleep(1);
+      }
+      handled.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add((Integer) readObject);
+      done.countDown();
+    });
+    SelectionKey firstKey = new StubSelectionKey(first.source());
+    SelectionKey secondKey = new StubSelectionKey(second.source());
+
+    for (int i = 0; i < events; i++) {
+      dispatcher.onChannelReadEvent(channel, i, firstKey);
+      dispatcher.onChannelReadEvent(channel, i, secondKey);
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < events; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, handled.get(firstKey));
+    assertEquals(expected, handled.get(secondKey));
+  }
+
+  @Test
+  public void testBlockedConnectionDoesNotBlockOthers() throws Exception {
+    CountDownLatch secondHandled = new CountDownLatch(1);
+    CountDownLatch firstHandled = new CountDownLatch(1);
+    SelectionKey firstKey = new StubSelectionKey(first.source());
+    AbstractNioChannel channel = channel((ch, readObject, key) -> {
+      if (key == firstKey) {
+        // blocks until the other connection has been handled
+        await(secondHandled);
+        firstHandled.countDown();
+      } else {
+        secondHandled.countDown();
+      }
+    });
+
+    dispatcher.onChannelReadEvent(channel, "blocking", firstKey);
+    dispatcher.onChannelReadEvent(channel, "other", new StubSelectionKey(second.source()));
+
+    assertTrue(firstHandled.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testReadObjectIsReleased() throws Exception {
+    CountDownLatch handled = new CountDownLatch(1);
+    AbstractNioChannel channel = channel((ch, readObject, key) -> handled.countDown());
+    PooledBuffer buffer = new BufferPool(64, 64, 1).allocate(16);
+
+    dispatcher.onChannelReadEvent(channel, buffer, new StubSelectionKey(first.source()));
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+
+    assertEquals(0, buffer.refCnt());
+  }
+
+  private static AbstractNioChannel channel(ChannelHandler handler) throws IOException {
+    return new NioServerSocketChannel(0, handler);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
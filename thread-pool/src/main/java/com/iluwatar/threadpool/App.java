@@ -28,7 +28,6 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  *线程池模式是创建多个线程以执行多个任务的模式，其中
@@ -50,8 +49,8 @@ import java.util.concurrent.Executors;
  * <p>
  * In this example we create a list of tasks presenting work to be done. Each task is then wrapped
  * into a {@link Worker} object that implements {@link Runnable}. We create an
- * {@link ExecutorService} with fixed number of threads (Thread Pool) and use them to execute the
- * {@link Worker}s.
+ * {@link ExecutorService} with a number of threads (Thread Pool) and use them to execute the
+ * {@link Worker}s. The {@link WorkStealingScheduler} used here schedules them by their cost.
  *
  */
 public class App {
@@ -85,11 +84,11 @@ public class App {
     tasks.add(new PotatoPeelingTask(4));
     tasks.add(new PotatoPeelingTask(5));
 
-    // Creates a thread pool that reuses a fixed number of threads operating off a shared
-    // unbounded queue. At any point, at most nThreads threads will be active processing
-    // tasks. If additional tasks are submitted when all threads are active, they will wait
-    // in the queue until a thread is available.
-    ExecutorService executor = Executors.newFixedThreadPool(3);
+    // Creates a thread pool of 3 to 6 threads, each with its own queues of short and long tasks.
+    // The pool uses the time of the tasks to run the short ones first, lets idle threads steal
+    // queued tasks from busy ones, and adds threads while tasks wait too long in the queues.
+    // See Executors.newFixedThreadPool for the classic thread pool with a shared queue.
+    ExecutorService executor = new WorkStealingScheduler(3, 6);
 
     // Allocate new worker for each task
     // The worker is executed when a thread becomes
@@ -0,0 +1,219 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the same stream of mixed cost tasks through {@link WorkStealingScheduler}, a fixed thread
+ * pool and a {@link ForkJoinPool} of the same size, and prints throughput and the mean and 99th
+ * percentile latency, from submission to completion, of the short and long tasks of each.
+ *
+ * <p>
+ * The stream is made of {@link CoffeeMakingTask}s of one to three cups and, for a fifth of the
+ * tasks, {@link PotatoPeelingTask}s of three to nine potatoes, all submitted at once. Every task
+ * keeps a core busy for as many micro seconds as it would take milli seconds, so the stream runs
+ * in seconds.
+ *
+ * <p>
+ * Usage: {@code SchedulerBenchmark [tasks] [threads] [rounds]}. The defaults are 5000 tasks on as
+ * many threads as there are cores, measured over 3 rounds after a warmup round.
+ */
+public class SchedulerBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchedulerBenchmark.class);
+
+  private static final long SEED = 42;
+
+  /**
+   * Benchmark entry.
+   *
+   * @param args optional tasks, threads, rounds.
+   * @throws InterruptedException if interrupted while running.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int taskCount = intArg(args, 0, 5000);
+    int threads = intArg(args, 1, Runtime.getRuntime().availableProcessors());
+    int rounds = intArg(args, 2, 3);
+    List<Task> tasks = mixedTasks(taskCount);
+
+    Map<String, Supplier<ExecutorService>> executors = new LinkedHashMap<>();
+    executors.put("WorkStealingScheduler(1-" + threads + ")",
+        () -> new WorkStealingScheduler(1, threads));
+    executors.put("FixedThreadPool(" + threads + ")", () -> Executors.newFixedThreadPool(threads));
+    executors.put("ForkJoinPool(" + threads + ")", () -> new ForkJoinPool(threads));
+
+    Map<String, Report> reports = new LinkedHashMap<>();
+    for (Map.Entry<String, Supplier<ExecutorService>> executor : executors.entrySet()) {
+      LOGGER.info("Benchmarking {}", executor.getKey());
+      run(executor.getValue().get(), tasks);
+      Report report = new Report();
+      for (int i = 0; i < rounds; i++) {
+        report.add(run(executor.getValue().get(), tasks));
+      }
+      reports.put(executor.getKey(), report);
+    }
+
+    LOGGER.info("{} tasks on {} threads", taskCount, threads);
+    for (Map.Entry<String, Report> report : reports.entrySet()) {
+      LOGGER.info("{}: {}", report.getKey(), report.getValue());
+    }
+  }
+
+  /**
+   * Creates the task stream, the same for every run.
+   *
+   * @param count number of tasks.
+   * @return the tasks.
+   */
+  public static List<Task> mixedTasks(int count) {
+    Random random = new Random(SEED);
+    List<Task> tasks = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      tasks.add(random.nextInt(5) == 0 ? new PotatoPeelingTask(3 + random.nextInt(7))
+          : new CoffeeMakingTask(1 + random.nextInt(3)));
+    }
+    return tasks;
+  }
+
+  /**
+   * Submits all the tasks to the executor, waits for them to complete and shuts it down.
+   *
+   * @param executor the executor to be benchmarked.
+   * @param tasks the tasks to be run.
+   * @return the measurements.
+   * @throws InterruptedException if interrupted while running.
+   */
+  public static Round run(ExecutorService executor, List<Task> tasks) throws InterruptedException {
+    long[] latencies = new long[tasks.size()];
+    CountDownLatch done = new CountDownLatch(tasks.size());
+    long start = System.nanoTime();
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      int index = i;
+      long submitted = System.nanoTime();
+      Runnable command = () -> {
+        spin(TimeUnit.MICROSECONDS.toNanos(task.getTimeMs()));
+        latencies[index] = System.nanoTime() - submitted;
+        done.countDown();
+      };
+      if (executor instanceof WorkStealingScheduler) {
+        ((WorkStealingScheduler) executor).execute(command, task.getTimeMs());
+      } else {
+        executor.execute(command);
+      }
+    }
+    done.await();
+    long elapsed = System.nanoTime() - start;
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    return new Round(tasks, latencies, elapsed);
+  }
+
+  private static void spin(long nanos) {
+    long end = System.nanoTime() + nanos;
+    while (System.nanoTime() - end < 0) {
+      // keep the core busy
+    }
+  }
+
+  private static int intArg(String[] args, int index, int defaultValue) {
+    return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+  }
+
+  /**
+   * Measurements of a single run of the task stream.
+   */
+  public static class Round {
+
+    private final double tasksPerSecond;
+    private final long[] shortLatencies;
+    private final long[] longLatencies;
+
+    Round(List<Task> tasks, long[] latencies, long elapsedNanos) {
+      this.tasksPerSecond = tasks.size() * 1e9 / elapsedNanos;
+      this.shortLatencies = select(tasks, latencies, CoffeeMakingTask.class);
+      this.longLatencies = select(tasks, latencies, PotatoPeelingTask.class);
+    }
+
+    private static long[] select(List<Task> tasks, long[] latencies, Class<?> type) {
+      long[] selected = new long[latencies.length];
+      int count = 0;
+      for (int i = 0; i < latencies.length; i++) {
+        if (type.isInstance(tasks.get(i))) {
+          selected[count++] = latencies[i];
+        }
+      }
+      long[] sorted = Arrays.copyOf(selected, count);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+
+    public double getTasksPerSecond() {
+      return tasksPerSecond;
+    }
+  }
+
+  /**
+   * Measurements averaged over a number of rounds.
+   */
+  public static class Report {
+
+    private final List<Round> rounds = new ArrayList<>();
+
+    void add(Round round) {
+      rounds.add(round);
+    }
+
+    @Override
+    public String toString() {
+      double throughput = rounds.stream().mapToDouble(Round::getTasksPerSecond).average()
+          .orElse(0);
+      return String.format("%.0f tasks/s, short tasks %s, long tasks %s", throughput,
+          latency(round -> round.shortLatencies), latency(round -> round.longLatencies));
+    }
+
+    private String latency(Function<Round, long[]> lane) {
+      double mean = rounds.stream().map(lane).flatMapToLong(Arrays::stream).average().orElse(0);
+      double p99 = rounds.stream().map(lane)
+          .mapToLong(sorted -> sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.99)])
+          .average().orElse(0);
+      return String.format("mean %.1f ms p99 %.1f ms", mean / 1e6, p99 / 1e6);
+    }
+  }
+}
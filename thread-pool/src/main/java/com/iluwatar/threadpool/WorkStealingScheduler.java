@@ -0,0 +1,460 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread pool that uses the estimated cost of its tasks, {@link Task#getTimeMs()} for a
+ * {@link Worker}, to schedule them.
+ * <p>
+ * Every worker thread has its own deques, one lane for short tasks and one for tasks whose cost
+ * reaches the long task threshold. A new task goes to the less loaded, by queued cost, of two
+ * randomly picked workers. Workers run their short tasks first, unless the oldest long task has
+ * waited longer than the long task threshold, and steal from the other workers, oldest task
+ * first, when their own lanes are empty.
+ * <p>
+ * The pool starts with the minimum number of workers. When a task is submitted while the oldest
+ * task queued at its worker has waited longer than the target latency, another worker is started,
+ * up to the maximum. Workers left idle for a second retire, down to the minimum.
+ */
+public class WorkStealingScheduler extends AbstractExecutorService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkStealingScheduler.class);
+
+  /** Default cost, in milli seconds, from which a task goes into the long task lane. */
+  public static final long DEFAULT_LONG_TASK_THRESHOLD_MS = 500;
+
+  /** Default queueing time, in milli seconds, above which the pool grows. */
+  public static final long DEFAULT_TARGET_LATENCY_MS = 50;
+
+  private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final int minWorkers;
+  private final int maxWorkers;
+  private final long longTaskThresholdMs;
+  private final long longTaskMaxWaitNanos;
+  private final long targetLatencyNanos;
+
+  private final List<WorkerThread> workers = new CopyOnWriteArrayList<>();
+  private final Queue<WorkerThread> idleWorkers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger poolSize = new AtomicInteger();
+  private final AtomicInteger threadIndex = new AtomicInteger();
+  private final AtomicLong lastGrowth = new AtomicLong(System.nanoTime());
+  private final LongAdder stealCount = new LongAdder();
+  private final LongAdder completedTaskCount = new LongAdder();
+  private final CountDownLatch termination = new CountDownLatch(1);
+
+  private volatile boolean shutdown;
+
+  /**
+   * Creates a scheduler with the default long task threshold and target latency.
+   *
+   * @param minWorkers number of workers kept even when idle
+   * @param maxWorkers number of workers the pool can grow to
+   */
+  public WorkStealingScheduler(int minWorkers, int maxWorkers) {
+    this(minWorkers, maxWorkers, DEFAULT_LONG_TASK_THRESHOLD_MS, DEFAULT_TARGET_LATENCY_MS);
+  }
+
+  /**
+   * Creates a scheduler.
+   *
+   * @param minWorkers number of workers kept even when idle
+   * @param maxWorkers number of workers the pool can grow to
+   * @param longTaskThresholdMs cost from which a task is a long one, and the longest a long task
+   *        is kept waiting behind short ones
+   * @param targetLatencyMs queueing time above which the pool grows
+   */
+  public WorkStealingScheduler(int minWorkers, int maxWorkers, long longTaskThresholdMs,
+      long targetLatencyMs) {
+    if (minWorkers < 1 || maxWorkers < minWorkers) {
+      throw new IllegalArgumentException("Invalid pool size " + minWorkers + "-" + maxWorkers);
+    }
+    this.minWorkers = minWorkers;
+    this.maxWorkers = maxWorkers;
+    this.longTaskThresholdMs = longTaskThresholdMs;
+    this.longTaskMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(longTaskThresholdMs);
+    this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+    for (int i = 0; i < minWorkers; i++) {
+      poolSize.incrementAndGet();
+      startWorker();
+    }
+  }
+
+  /**
+   * Schedules the command, using the task cost if the command is a {@link Worker} or a future
+   * submitted for one.
+   */
+  @Override
+  public void execute(Runnable command) {
+    long costMs = command instanceof CostedFutureTask ? ((CostedFutureTask<?>) command).costMs
+        : costOf(command);
+    execute(command, costMs);
+  }
+
+  /**
+   * Schedules the command with the given cost estimate.
+   *
+   * @param command the command to run
+   * @param costMs estimated running time of the command in milli seconds
+   */
+  public void execute(Runnable command, long costMs) {
+    Objects.requireNonNull(command);
+    if (shutdown) {
+      throw new RejectedExecutionException("Scheduler has been shut down");
+    }
+    ScheduledTask task = new ScheduledTask(command, costMs, costMs >= longTaskThresholdMs);
+    WorkerThread worker = place(task);
+    if (shutdown && worker.remove(task)) {
+      throw new RejectedExecutionException("Scheduler has been shut down");
+    }
+    growIfLagging(worker);
+    WorkerThread idle = idleWorkers.poll();
+    if (idle != null) {
+      LockSupport.unpark(idle);
+    }
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    // keeps the cost of a submitted worker, which the future wrapping it would hide
+    return new CostedFutureTask<>(runnable, value, costOf(runnable));
+  }
+
+  private static long costOf(Runnable command) {
+    return command instanceof Worker ? ((Worker) command).getTask().getTimeMs() : 0;
+  }
+
+  private WorkerThread place(ScheduledTask task) {
+    while (true) {
+      WorkerThread worker = pickWorker();
+      worker.enqueue(task);
+      // a retiring worker hands its tasks on, unless we take this one back first
+      if (!worker.retired || !worker.remove(task)) {
+        return worker;
+      }
+    }
+  }
+
+  private WorkerThread pickWorker() {
+    Object[] candidates = workers.toArray();
+    if (candidates.length == 0) {
+      throw new RejectedExecutionException("Scheduler has been shut down");
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    WorkerThread first = (WorkerThread) candidates[random.nextInt(candidates.length)];
+    WorkerThread second = (WorkerThread) candidates[random.nextInt(candidates.length)];
+    return first.pendingCost.get() <= second.pendingCost.get() ? first : second;
+  }
+
+  private void growIfLagging(WorkerThread worker) {
+    long now = System.nanoTime();
+    long last = lastGrowth.get();
+    if (worker.oldestWait(now) > targetLatencyNanos && now - last > targetLatencyNanos
+        && lastGrowth.compareAndSet(last, now) && reserveWorker()) {
+      LOGGER.debug("Queue latency above target, growing pool to {}", poolSize.get());
+      startWorker();
+    }
+  }
+
+  private boolean reserveWorker() {
+    while (true) {
+      int size = poolSize.get();
+      if (size == 0 || size >= maxWorkers || shutdown) {
+        return false;
+      }
+      if (poolSize.compareAndSet(size, size + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private boolean releaseWorker() {
+    while (true) {
+      int size = poolSize.get();
+      if (size <= minWorkers || shutdown) {
+        return false;
+      }
+      if (poolSize.compareAndSet(size, size - 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void startWorker() {
+    WorkerThread worker = new WorkerThread("scheduler-worker-" + threadIndex.incrementAndGet());
+    workers.add(worker);
+    worker.start();
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    for (WorkerThread worker : workers) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown();
+    List<Runnable> pending = new ArrayList<>();
+    for (WorkerThread worker : workers) {
+      worker.drainTo(pending);
+      worker.interrupt();
+    }
+    return pending;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return termination.getCount() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return termination.await(timeout, unit);
+  }
+
+  public int getPoolSize() {
+    return poolSize.get();
+  }
+
+  public long getStealCount() {
+    return stealCount.sum();
+  }
+
+  public long getCompletedTaskCount() {
+    return completedTaskCount.sum();
+  }
+
+  /**
+   * The future of a submitted runnable, carrying its cost.
+   */
+  private static final class CostedFutureTask<T> extends FutureTask<T> {
+
+    private final long costMs;
+
+    private CostedFutureTask(Runnable runnable, T value, long costMs) {
+      super(runnable, value);
+      this.costMs = costMs;
+    }
+  }
+
+  /**
+   * A submitted command with its cost and the time it was queued at.
+   */
+  private static final class ScheduledTask {
+
+    private final Runnable command;
+    private final long costMs;
+    private final boolean longTask;
+    private final long queuedAt = System.nanoTime();
+
+    private ScheduledTask(Runnable command, long costMs, boolean longTask) {
+      this.command = command;
+      this.costMs = costMs;
+      this.longTask = longTask;
+    }
+  }
+
+  /**
+   * Pool thread owning a short and a long task lane.
+   */
+  private final class WorkerThread extends Thread {
+
+    private final Deque<ScheduledTask> shortLane = new ConcurrentLinkedDeque<>();
+    private final Deque<ScheduledTask> longLane = new ConcurrentLinkedDeque<>();
+    private final AtomicLong pendingCost = new AtomicLong();
+
+    private volatile boolean retired;
+
+    private WorkerThread(String name) {
+      super(name);
+    }
+
+    private void enqueue(ScheduledTask task) {
+      pendingCost.addAndGet(task.costMs);
+      (task.longTask ? longLane : shortLane).addLast(task);
+    }
+
+    private boolean remove(ScheduledTask task) {
+      if ((task.longTask ? longLane : shortLane).removeFirstOccurrence(task)) {
+        pendingCost.addAndGet(-task.costMs);
+        return true;
+      }
+      return false;
+    }
+
+    private ScheduledTask poll(Deque<ScheduledTask> lane) {
+      ScheduledTask task = lane.pollFirst();
+      if (task != null) {
+        pendingCost.addAndGet(-task.costMs);
+      }
+      return task;
+    }
+
+    private long oldestWait(long now) {
+      ScheduledTask oldestShort = shortLane.peekFirst();
+      ScheduledTask oldestLong = longLane.peekFirst();
+      long shortWait = oldestShort == null ? 0 : now - oldestShort.queuedAt;
+      long longWait = oldestLong == null ? 0 : now - oldestLong.queuedAt;
+      return Math.max(shortWait, longWait);
+    }
+
+    private void drainTo(List<Runnable> pending) {
+      ScheduledTask task;
+      while ((task = poll(shortLane)) != null || (task = poll(longLane)) != null) {
+        pending.add(task.command);
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          ScheduledTask task = findTask();
+          if (task == null) {
+            task = awaitTask();
+          }
+          if (task != null) {
+            runTask(task);
+          } else if (shutdown) {
+            return;
+          } else if (releaseWorker()) {
+            retire();
+            return;
+          }
+        }
+      } finally {
+        if (!retired && poolSize.decrementAndGet() == 0) {
+          termination.countDown();
+        }
+      }
+    }
+
+    private ScheduledTask findTask() {
+      ScheduledTask oldestLong = longLane.peekFirst();
+      if (oldestLong != null && System.nanoTime() - oldestLong.queuedAt > longTaskMaxWaitNanos) {
+        ScheduledTask task = poll(longLane);
+        if (task != null) {
+          return task;
+        }
+      }
+      ScheduledTask task = poll(shortLane);
+      if (task == null) {
+        task = poll(longLane);
+      }
+      return task == null ? steal() : task;
+    }
+
+    private ScheduledTask steal() {
+      Object[] victims = workers.toArray();
+      int start = ThreadLocalRandom.current().nextInt(victims.length);
+      for (int lane = 0; lane < 2; lane++) {
+        for (int i = 0; i < victims.length; i++) {
+          WorkerThread victim = (WorkerThread) victims[(start + i) % victims.length];
+          if (victim == this) {
+            continue;
+          }
+          ScheduledTask task = victim.poll(lane == 0 ? victim.shortLane : victim.longLane);
+          if (task != null) {
+            stealCount.increment();
+            return task;
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Waits for work until the keep alive time elapses. The worker registers as idle before each
+     * last look for work and parks only if that finds nothing, so a submitter either sees it idle
+     * and wakes it up or has queued its task before the look.
+     */
+    private ScheduledTask awaitTask() {
+      long deadline = System.nanoTime() + KEEP_ALIVE_NANOS;
+      while (true) {
+        idleWorkers.add(this);
+        ScheduledTask task = findTask();
+        long remaining = deadline - System.nanoTime();
+        if (task != null || shutdown || remaining <= 0) {
+          idleWorkers.remove(this);
+          return task;
+        }
+        LockSupport.parkNanos(this, remaining);
+        idleWorkers.remove(this);
+      }
+    }
+
+    private void runTask(ScheduledTask task) {
+      try {
+        task.command.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("Task {} failed", task.command, e);
+      } finally {
+        completedTaskCount.increment();
+      }
+    }
+
+    private void retire() {
+      retired = true;
+      workers.remove(this);
+      ScheduledTask task;
+      while ((task = poll(shortLane)) != null || (task = poll(longLane)) != null) {
+        if (workers.isEmpty()) {
+          runTask(task);
+        } else {
+          place(task);
+        }
+      }
+    }
+  }
+}
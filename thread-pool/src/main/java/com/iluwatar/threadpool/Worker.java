@@ -40,6 +40,10 @@ public class Worker implements Runnable {
     this.task = task;
   }
 
+  public Task getTask() {
+    return task;
+  }
+
   @Override
   public void run() {
     LOGGER.info("{} processing {}", Thread.currentThread().getName(), task.toString());
@@ -0,0 +1,195 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014-2016 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WorkStealingScheduler}
+ */
+public class WorkStealingSchedulerTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private WorkStealingScheduler scheduler;
+
+  /**
+   * Releases blocked tasks and shuts the scheduler down
+   */
+  @AfterEach
+  public void tearDown() throws InterruptedException {
+    release.countDown();
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Verify that all submitted workers are run before the scheduler terminates
+   */
+  @Test
+  public void testRunsAllTasks() throws InterruptedException {
+    scheduler = new WorkStealingScheduler(2, 4);
+    AtomicInteger done = new AtomicInteger();
+    for (int i = 0; i < 1000; i++) {
+      scheduler.execute(done::incrementAndGet, i % 10 == 0 ? 1000 : 10);
+    }
+    scheduler.shutdown();
+
+    assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(1000, done.get());
+    assertEquals(1000, scheduler.getCompletedTaskCount());
+    assertThrows(RejectedExecutionException.class,
+        () -> scheduler.execute(done::incrementAndGet));
+  }
+
+  /**
+   * Verify that short tasks run before long tasks queued earlier
+   */
+  @Test
+  public void testShortTasksRunFirst() throws InterruptedException {
+    scheduler = new WorkStealingScheduler(1, 1, 500, 60_000);
+    List<String> order = new CopyOnWriteArrayList<>();
+    scheduler.execute(this::blocked, 0);
+    scheduler.execute(() -> order.add("potatoes"), 1000);
+    scheduler.execute(() -> order.add("coffee"), 100);
+    release.countDown();
+    scheduler.shutdown();
+
+    assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals("coffee", order.get(0));
+    assertEquals("potatoes", order.get(1));
+  }
+
+  /**
+   * Verify that submitted workers keep their cost and go into the lane it selects
+   */
+  @Test
+  public void testSubmittedWorkersKeepTheirCost() throws Exception {
+    scheduler = new WorkStealingScheduler(1, 1, 500, 60_000);
+    List<String> order = new CopyOnWriteArrayList<>();
+    scheduler.execute(this::blocked, 0);
+    Future<?> potatoes = scheduler.submit(new RecordingWorker(new PotatoPeelingTask(5), order));
+    Future<?> coffee = scheduler.submit(new RecordingWorker(new CoffeeMakingTask(1), order));
+    release.countDown();
+    potatoes.get(5, TimeUnit.SECONDS);
+    coffee.get(5, TimeUnit.SECONDS);
+
+    assertEquals(2, order.size());
+    assertTrue(order.get(0).startsWith("CoffeeMakingTask"));
+  }
+
+  /**
+   * Verify that tasks queued behind a blocked worker are stolen by the others
+   */
+  @Test
+  public void testIdleWorkersStealQueuedTasks() throws InterruptedException {
+    scheduler = new WorkStealingScheduler(2, 2);
+    CountDownLatch started = new CountDownLatch(1);
+    scheduler.execute(() -> {
+      started.countDown();
+      blocked();
+    });
+    started.await();
+    CountDownLatch done = new CountDownLatch(100);
+    for (int i = 0; i < 100; i++) {
+      scheduler.execute(done::countDown);
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Verify that the pool grows while tasks wait longer than the target latency
+   */
+  @Test
+  public void testGrowsWhenQueueLatencyIsAboveTarget() throws InterruptedException {
+    scheduler = new WorkStealingScheduler(1, 3, 500, 10);
+    for (int i = 0; i < 3; i++) {
+      scheduler.execute(this::blocked);
+    }
+    long deadline = System.currentTimeMillis() + 5000;
+    while (scheduler.getPoolSize() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      scheduler.execute(() -> { });
+    }
+
+    assertEquals(3, scheduler.getPoolSize());
+  }
+
+  /**
+   * Verify that a failing task does not stop its worker
+   */
+  @Test
+  public void testSurvivesFailingTask() throws InterruptedException {
+    scheduler = new WorkStealingScheduler(1, 1);
+    CountDownLatch done = new CountDownLatch(1);
+    scheduler.execute(() -> {
+      throw new IllegalStateException("Barf!");
+    });
+    scheduler.execute(done::countDown);
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  private void blocked() {
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Worker that records its task instead of sleeping
+   */
+  private static class RecordingWorker extends Worker {
+
+    private final Task task;
+    private final List<String> order;
+
+    RecordingWorker(Task task, List<String> order) {
+      super(task);
+      this.task = task;
+      this.order = order;
+    }
+
+    @Override
+    public void run() {
+      order.add(task.toString());
+    }
+  }
+}